@@ -0,0 +1,172 @@
+package cn.hamm.airpower.api;
+
+import cn.hamm.airpower.api.config.ApiConfig;
+import cn.hamm.airpower.core.AccessTokenUtil;
+import cn.hamm.airpower.core.StringUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static cn.hamm.airpower.exception.Errors.UNAUTHORIZED;
+
+/**
+ * <h1>身份令牌助手类</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 验证后的令牌在请求内只解析一次，并按令牌摘要缓存在有界的 LRU 中，缓存时间不会超过令牌本身的过期时间
+ */
+@Component
+public class AccessTokenHelper {
+    /**
+     * 缓存的 {@code REQUEST_VERIFIED_TOKEN_KEY}
+     */
+    public static final String REQUEST_VERIFIED_TOKEN_KEY = "REQUEST_VERIFIED_TOKEN_KEY";
+
+    /**
+     * 缓存分段数量
+     */
+    private static final int SEGMENT_COUNT = 16;
+
+    /**
+     * 缓存分段
+     */
+    private final TokenSegment[] segments = new TokenSegment[SEGMENT_COUNT];
+
+    @Autowired
+    private ApiConfig apiConfig;
+
+    /**
+     * 获取当前请求验证后的令牌
+     *
+     * @param request 请求
+     * @return 验证后的令牌
+     * @apiNote 优先使用 Get 参数传入的身份，同一请求内只验证一次
+     */
+    public final AccessTokenUtil.VerifiedToken getVerifiedToken(@NotNull HttpServletRequest request) {
+        Object cached = request.getAttribute(REQUEST_VERIFIED_TOKEN_KEY);
+        if (cached instanceof AccessTokenUtil.VerifiedToken verifiedToken) {
+            return verifiedToken;
+        }
+        String accessToken = request.getParameter(apiConfig.getAuthorizeHeader());
+        if (StringUtil.isEmpty(accessToken)) {
+            accessToken = request.getHeader(apiConfig.getAuthorizeHeader());
+        }
+        UNAUTHORIZED.whenEmpty(accessToken);
+        AccessTokenUtil.VerifiedToken verifiedToken = verify(accessToken);
+        request.setAttribute(REQUEST_VERIFIED_TOKEN_KEY, verifiedToken);
+        return verifiedToken;
+    }
+
+    /**
+     * 验证令牌
+     *
+     * @param accessToken 身份令牌
+     * @return 验证后的令牌
+     */
+    public final AccessTokenUtil.VerifiedToken verify(@NotNull String accessToken) {
+        int cacheSize = apiConfig.getAccessTokenCacheSize();
+        if (cacheSize <= 0) {
+            return AccessTokenUtil.create().verify(accessToken, apiConfig.getAccessTokenSecret());
+        }
+        final String tokenHash = DigestUtils.sha256Hex(accessToken);
+        TokenSegment segment = getSegment(tokenHash, cacheSize);
+        long now = System.currentTimeMillis();
+        CachedToken cachedToken = segment.get(tokenHash);
+        if (Objects.nonNull(cachedToken) && cachedToken.getExpireTime() > now) {
+            return cachedToken.getVerifiedToken();
+        }
+        AccessTokenUtil.VerifiedToken verifiedToken = AccessTokenUtil.create()
+                .verify(accessToken, apiConfig.getAccessTokenSecret());
+        long expireTime = now + apiConfig.getAccessTokenCacheSecond() * 1000;
+        long tokenExpireTime = verifiedToken.getExpireTimestamps();
+        if (tokenExpireTime > 0) {
+            expireTime = Math.min(expireTime, tokenExpireTime);
+        }
+        segment.put(tokenHash, new CachedToken(verifiedToken, expireTime));
+        return verifiedToken;
+    }
+
+    /**
+     * 获取令牌所在的缓存分段
+     *
+     * @param tokenHash 令牌摘要
+     * @param cacheSize 缓存总数量
+     * @return 缓存分段
+     */
+    private @NotNull TokenSegment getSegment(@NotNull String tokenHash, int cacheSize) {
+        int index = (tokenHash.hashCode() & Integer.MAX_VALUE) % SEGMENT_COUNT;
+        TokenSegment segment = segments[index];
+        if (Objects.isNull(segment)) {
+            synchronized (segments) {
+                segment = segments[index];
+                if (Objects.isNull(segment)) {
+                    segment = new TokenSegment(Math.max(1, cacheSize / SEGMENT_COUNT));
+                    segments[index] = segment;
+                }
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * 缓存的令牌
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class CachedToken {
+        /**
+         * 验证后的令牌
+         */
+        private final AccessTokenUtil.VerifiedToken verifiedToken;
+
+        /**
+         * 缓存过期时间
+         */
+        private final long expireTime;
+    }
+
+    /**
+     * 令牌缓存分段
+     *
+     * @apiNote 按访问顺序淘汰
+     */
+    private static class TokenSegment extends LinkedHashMap<String, CachedToken> {
+        /**
+         * 分段容量
+         */
+        private final int capacity;
+
+        /**
+         * 创建缓存分段
+         *
+         * @param capacity 分段容量
+         */
+        private TokenSegment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        public synchronized CachedToken get(Object key) {
+            return super.get(key);
+        }
+
+        @Override
+        public synchronized CachedToken put(String key, CachedToken value) {
+            return super.put(key, value);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedToken> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -22,6 +22,8 @@ public class ApiController {
     protected ApiConfig apiConfig;
     @Autowired
     protected HttpServletRequest request;
+    @Autowired
+    protected AccessTokenHelper accessTokenHelper;
 
     /**
      * 获取当前登录用户的信息
@@ -40,15 +42,9 @@ public class ApiController {
      * 获取当前登录用户的TOKEN
      *
      * @return TOKEN
+     * @apiNote 同一请求内只验证一次
      */
     protected final AccessTokenUtil.VerifiedToken getCurrentUserVerifiedToken() {
-        String accessToken = request.getParameter(apiConfig.getAuthorizeHeader());
-        if (StringUtil.isEmpty(accessToken)) {
-            accessToken = request.getHeader(apiConfig.getAuthorizeHeader());
-        }
-        return AccessTokenUtil.create().verify(
-                accessToken,
-                apiConfig.getAccessTokenSecret()
-        );
+        return accessTokenHelper.getVerifiedToken(request);
     }
 }
@@ -5,6 +5,9 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * <h1>API 配置文件</h1>
  *
@@ -33,6 +36,34 @@ public class ApiConfig {
      */
     private Boolean responseLog = true;
 
+    /**
+     * 日志采样率
+     *
+     * @apiNote 取值 <code>0</code> ~ <code>1</code>，未在 {@link #logSampleRates} 中匹配到的路由使用此采样率
+     */
+    private double logSampleRate = 1;
+
+    /**
+     * 路由日志采样率
+     *
+     * @apiNote key 为请求路径(支持 Ant 风格通配符)，value 为该路由的采样率
+     */
+    private Map<String, Double> logSampleRates = new HashMap<>();
+
+    /**
+     * 日志包体最大长度
+     *
+     * @apiNote 超出部分将被截断，同时作为请求包体的缓存上限，配置为 <code>0</code> 则不限制
+     */
+    private int logMaxBodyLength = 4096;
+
+    /**
+     * 异步日志队列长度
+     *
+     * @apiNote 队列已满时将丢弃新的日志，不会阻塞请求线程
+     */
+    private int logQueueSize = 4096;
+
     /**
      * 响应 Trace 到返回包体
      */
@@ -47,4 +78,18 @@ public class ApiConfig {
      * 身份令牌 header 的 key
      */
     private String authorizeHeader = HttpHeaders.AUTHORIZATION;
+
+    /**
+     * 验证后的身份令牌缓存数量
+     *
+     * @apiNote 配置为 <code>0</code> 则不缓存
+     */
+    private int accessTokenCacheSize = 10000;
+
+    /**
+     * 验证后的身份令牌最长缓存时间(秒)
+     *
+     * @apiNote 不会超过令牌本身的过期时间
+     */
+    private long accessTokenCacheSecond = 300;
 }
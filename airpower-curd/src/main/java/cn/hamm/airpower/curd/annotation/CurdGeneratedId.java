@@ -0,0 +1,26 @@
+package cn.hamm.airpower.curd.annotation;
+
+import cn.hamm.airpower.curd.base.CurdIdGenerator;
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * <h1>实体 ID 的生成方式</h1>
+ *
+ * <li>默认与 {@code GenerationType.IDENTITY} 一致，由数据库自增生成</li>
+ * <li>实体类标记了 {@link SegmentId} 时改为号段分配</li>
+ *
+ * @author Hamm.cn
+ * @see CurdIdGenerator
+ */
+@IdGeneratorType(CurdIdGenerator.class)
+@Target({FIELD, METHOD})
+@Retention(RUNTIME)
+public @interface CurdGeneratedId {
+}
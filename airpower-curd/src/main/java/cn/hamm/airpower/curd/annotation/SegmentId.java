@@ -0,0 +1,30 @@
+package cn.hamm.airpower.curd.annotation;
+
+import cn.hamm.airpower.curd.base.CurdIdGenerator;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * <h1>号段 ID</h1>
+ *
+ * <li>标记后实体的 ID 不再由数据库自增生成，而是从 Redis 按号段租用后在本地分配</li>
+ * <li>插入前即可拿到 ID，配合 {@code spring.jpa.properties.hibernate.jdbc.batch_size} 可以真正批量插入</li>
+ * <li>Redis 不可用时回退为雪花 ID，租用失败后的几秒内不再访问 Redis</li>
+ * <li>雪花 ID 都大于 {@code 2^53 - 1}，超出 JavaScript 的安全整数范围，前端需要按字符串处理 ID，
+ * 否则 Redis 故障期间插入的数据在前端会丢失精度</li>
+ *
+ * @author Hamm.cn
+ * @see CurdIdGenerator
+ */
+@Target(TYPE)
+@Retention(RUNTIME)
+public @interface SegmentId {
+    /**
+     * 每次租用的号段长度
+     */
+    int step() default 1000;
+}
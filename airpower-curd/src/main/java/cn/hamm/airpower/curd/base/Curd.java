@@ -6,11 +6,9 @@ import cn.hamm.airpower.curd.annotation.Extends;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
 import static cn.hamm.airpower.exception.Errors.API_SERVICE_UNSUPPORTED;
 
@@ -73,6 +71,29 @@ public enum Curd implements IDictionary {
      */
     QueryExport(10, "查询异步导出结果", "queryExport");
 
+    /**
+     * 控制器可用 API 缓存
+     */
+    private static final ClassValue<Set<Curd>> CURD_SET_CACHE = new ClassValue<>() {
+        @Override
+        protected Set<Curd> computeValue(@NotNull Class<?> clazz) {
+            Set<Curd> curdSet = EnumSet.noneOf(Curd.class);
+            curdSet.addAll(getCurdList(clazz));
+            return Collections.unmodifiableSet(curdSet);
+        }
+    };
+
+    /**
+     * 方法名称与接口的映射
+     */
+    private static final Map<String, Curd> METHOD_NAME_MAP = new HashMap<>();
+
+    static {
+        for (Curd curd : values()) {
+            METHOD_NAME_MAP.put(curd.getMethodName(), curd);
+        }
+    }
+
     private final int key;
     private final String label;
 
@@ -93,6 +114,27 @@ public enum Curd implements IDictionary {
         return getCurdList(clazz, whiteList, blackList);
     }
 
+    /**
+     * 通过方法名称获取接口
+     *
+     * @param methodName 方法名称
+     * @return 接口，不是增删改查接口时返回 {@code null}
+     */
+    public static @Nullable Curd getByMethodName(String methodName) {
+        return METHOD_NAME_MAP.get(methodName);
+    }
+
+    /**
+     * 获取控制器的可用 API 集合
+     *
+     * @param clazz 类
+     * @return 可用 API 集合
+     * @apiNote 每个控制器类仅解析一次，后续直接读取缓存
+     */
+    public static @NotNull Set<Curd> getCurdSet(@NotNull Class<?> clazz) {
+        return CURD_SET_CACHE.get(clazz);
+    }
+
     /**
      * 获取控制器的可用 API 列表
      *
@@ -122,7 +164,6 @@ public enum Curd implements IDictionary {
      * @param <T>        泛型
      */
     public <T extends CurdController<?, ?, ?>> void checkApiAvailable(@NotNull T controller) {
-        List<Curd> curdList = getCurdList(controller.getClass());
-        API_SERVICE_UNSUPPORTED.when(!curdList.contains(this));
+        API_SERVICE_UNSUPPORTED.when(!getCurdSet(controller.getClass()).contains(this));
     }
 }
@@ -6,10 +6,10 @@ import cn.hamm.airpower.core.annotation.Meta;
 import cn.hamm.airpower.core.annotation.ReadOnly;
 import cn.hamm.airpower.core.exception.ServiceException;
 import cn.hamm.airpower.core.interfaces.IEntity;
+import cn.hamm.airpower.curd.annotation.CurdGeneratedId;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.Column;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.MappedSuperclass;
 import jakarta.validation.constraints.Min;
@@ -24,8 +24,6 @@ import org.springframework.beans.BeanUtils;
 
 import java.io.Serializable;
 
-import static jakarta.persistence.GenerationType.IDENTITY;
-
 /**
  * <h1>实体根类</h1>
  *
@@ -56,7 +54,7 @@ public class CurdEntity<E extends CurdEntity<E>> extends RootModel<E>
 
     @Description("ID")
     @Id
-    @GeneratedValue(strategy = IDENTITY)
+    @CurdGeneratedId
     @Column(nullable = false, columnDefinition = "bigint UNSIGNED comment 'ID'")
     @Min(value = 0, message = "ID必须大于{value}")
     @NotNull(groups = {WhenUpdate.class, WhenIdRequired.class}, message = "ID 不能为空")
@@ -0,0 +1,93 @@
+package cn.hamm.airpower.curd.base;
+
+import cn.hamm.airpower.curd.annotation.CurdGeneratedId;
+import cn.hamm.airpower.curd.annotation.SegmentId;
+import cn.hamm.airpower.curd.helper.SegmentIdHelper;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.IdentityGenerator;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+import java.util.Objects;
+
+import static org.hibernate.generator.EventTypeSets.INSERT_ONLY;
+
+/**
+ * <h1>实体 ID 生成器</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 未标记 {@link SegmentId} 的实体仍由数据库自增生成；标记后在插入前从 {@link SegmentIdHelper} 分配，
+ * 分配失败时回退为雪花 ID
+ * @see CurdGeneratedId
+ */
+public class CurdIdGenerator extends IdentityGenerator implements BeforeExecutionGenerator {
+    /**
+     * 号段配置，为 {@code null} 时使用数据库自增
+     */
+    private final SegmentId segmentId;
+
+    /**
+     * 号段名称
+     */
+    private final String segmentName;
+
+    /**
+     * 表名
+     */
+    private final String tableName;
+
+    /**
+     * 创建生成器
+     *
+     * @param config  注解
+     * @param member  ID 字段
+     * @param context 上下文
+     */
+    public CurdIdGenerator(CurdGeneratedId config, Member member, @NotNull GeneratorCreationContext context) {
+        Class<?> entityClass = context.getPersistentClass().getMappedClass();
+        this.segmentId = entityClass.getAnnotation(SegmentId.class);
+        this.segmentName = entityClass.getSimpleName();
+        this.tableName = context.getPersistentClass().getTable().getQuotedName();
+    }
+
+    @Override
+    public boolean generatedOnExecution() {
+        return Objects.isNull(segmentId);
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return INSERT_ONLY;
+    }
+
+    @Override
+    public Object generate(
+            SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType
+    ) {
+        SegmentIdHelper segmentIdHelper = SegmentIdHelper.getInstance();
+        if (Objects.isNull(segmentIdHelper)) {
+            return SegmentIdHelper.nextSnowflakeId();
+        }
+        // 租用号段失败时由号段 ID 助手回退为雪花 ID
+        return segmentIdHelper.nextId(segmentName, segmentId.step(), () -> getMaxId(session));
+    }
+
+    /**
+     * 查询表中号段范围内最大的 ID
+     *
+     * @param session 会话
+     * @return 最大 ID，空表时为 {@code 0}
+     * @apiNote 不统计雪花 ID，否则号段会跳到雪花 ID 的范围
+     */
+    private long getMaxId(@NotNull SharedSessionContractImplementor session) {
+        Object maxId = session.createNativeQuery(
+                "SELECT MAX(" + CurdEntity.STRING_ID + ") FROM " + tableName
+                        + " WHERE " + CurdEntity.STRING_ID + " <= " + SegmentIdHelper.SEGMENT_MAX_ID
+        ).getSingleResult();
+        return maxId instanceof Number number ? number.longValue() : 0;
+    }
+}
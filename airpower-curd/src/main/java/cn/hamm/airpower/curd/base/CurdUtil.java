@@ -11,6 +11,7 @@ import lombok.Data;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
@@ -19,11 +20,14 @@ import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
 import org.springframework.util.ClassUtils;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
 import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 /**
  * <h1>CURD 工具类</h1>
@@ -32,6 +36,48 @@ import java.util.Objects;
  */
 @Slf4j
 public class CurdUtil {
+    /**
+     * 索引文件位置
+     *
+     * @apiNote 由 {@code airpower-processor} 在编译期生成
+     */
+    public static final String INDEX_LOCATION = "META-INF/airpower.index";
+
+    /**
+     * 忽略索引的系统属性
+     */
+    public static final String INDEX_IGNORE_PROPERTY = "airpower.index.ignore";
+
+    /**
+     * 实体的索引类型
+     */
+    public static final String INDEX_ENTITY = "entity";
+
+    /**
+     * 控制器的索引类型
+     */
+    public static final String INDEX_CONTROLLER = "controller";
+
+    /**
+     * 实体类名后缀
+     */
+    private static final String ENTITY = "Entity";
+
+    /**
+     * 索引分隔符
+     */
+    private static final String INDEX_SEPARATOR = "=";
+
+    /**
+     * 扫描结果缓存
+     */
+    private static final Map<String, List<Class<?>>> SCAN_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 类索引，key 为索引文件所在的类路径根目录，没有索引文件时为空
+     */
+    private static volatile Map<String, Map<String, List<String>>> classIndex;
+
     /**
      * <h1>扫描实体</h1>
      *
@@ -42,65 +88,240 @@ public class CurdUtil {
             String packageName
     ) {
         List<EntityMeta> entityMetaList = new ArrayList<>();
-        try {
-            ResourcePatternResolver resourcePatternResolver = new PathMatchingResourcePatternResolver();
-            String pattern = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
-                    ClassUtils.convertClassNameToResourcePath(packageName) + "/**/*Entity.class";
-            Resource[] resources = resourcePatternResolver.getResources(pattern);
-            MetadataReaderFactory metadataReaderFactory = new CachingMetadataReaderFactory(resourcePatternResolver);
+        List<Class<?>> classList = scanClass(packageName, INDEX_ENTITY, ENTITY,
+                clazz -> Objects.nonNull(ReflectUtil.getAnnotation(Entity.class, clazz))
+        );
+        for (Class<?> clazz : classList) {
+            try {
+                entityMetaList.add(getEntityMeta(clazz));
+            } catch (Exception e) {
+                log.error("扫描实体出错", e);
+            }
+        }
+        return entityMetaList;
+    }
 
-            for (Resource resource : resources) {
-                // 用于读取类信息
-                MetadataReader metadataReader = metadataReaderFactory.getMetadataReader(resource);
-                // 扫描到的 class
-                String className = metadataReader.getClassMetadata().getClassName();
+    /**
+     * <h1>扫描类</h1>
+     *
+     * @param packageName 包名
+     * @param indexType   索引类型
+     * @param classSuffix 类名后缀
+     * @param filter      过滤器
+     * @return 扫描到的类列表
+     * @apiNote 包所在的类路径根目录都有编译期生成的索引时读取索引，否则扫描类路径；
+     * 同一个包只扫描一次，后续直接读取缓存，所以同一索引类型应当使用相同的过滤器
+     */
+    public static @NotNull List<Class<?>> scanClass(
+            String packageName, String indexType, String classSuffix, Predicate<Class<?>> filter
+    ) {
+        final String cacheKey = indexType + INDEX_SEPARATOR + packageName + INDEX_SEPARATOR + classSuffix;
+        List<Class<?>> classList = SCAN_CACHE.get(cacheKey);
+        if (Objects.nonNull(classList)) {
+            return classList;
+        }
+        List<String> classNameList = getIndexedClassNameList(packageName, indexType);
+        if (Objects.isNull(classNameList)) {
+            classNameList = getScannedClassNameList(packageName, classSuffix);
+        } else {
+            final String packagePrefix = packageName + ".";
+            classNameList = classNameList.stream()
+                    .filter(className -> className.startsWith(packagePrefix))
+                    .filter(className -> className.endsWith(classSuffix))
+                    .toList();
+        }
+        List<Class<?>> result = new ArrayList<>();
+        for (String className : classNameList) {
+            try {
                 Class<?> clazz = Class.forName(className);
+                if (filter.test(clazz)) {
+                    result.add(clazz);
+                }
+            } catch (ClassNotFoundException | LinkageError e) {
+                // 索引中已经删除的类
+                log.warn("加载类 {} 失败: {}", className, e.getMessage());
+            }
+        }
+        classList = List.copyOf(result);
+        SCAN_CACHE.put(cacheKey, classList);
+        return classList;
+    }
 
-                Entity entityAnnotation = ReflectUtil.getAnnotation(Entity.class, clazz);
-                if (Objects.isNull(entityAnnotation)) {
-                    // 不是实体
-                    continue;
+    /**
+     * 获取实体的元数据
+     *
+     * @param clazz 实体类
+     * @return 元数据
+     */
+    private static @NotNull EntityMeta getEntityMeta(@NotNull Class<?> clazz) {
+        EntityMeta entityMeta = new EntityMeta()
+                .setName(clazz.getSimpleName())
+                .setDescription(ReflectUtil.getDescription(clazz));
+
+        // 取出所有属性
+        List<Field> fields = ReflectUtil.getFieldList(clazz);
+        List<EntityMeta.EntityFieldMeta> entityFieldMetas = new ArrayList<>();
+        for (Field field : fields) {
+            Column columnAnnotation = ReflectUtil.getAnnotation(Column.class, field);
+            if (Objects.isNull(columnAnnotation)) {
+                // 非数据库实体
+                continue;
+            }
+            EntityMeta.EntityFieldMeta entityFieldMeta = new EntityMeta.EntityFieldMeta()
+                    .setIsUnique(columnAnnotation.unique())
+                    .setDefinition(columnAnnotation.columnDefinition())
+                    .setName(field.getName())
+                    .setDescription(ReflectUtil.getDescription(field))
+                    .setType(field.getType().getSimpleName());
+            Dictionary dictionaryAnnotation = ReflectUtil.getAnnotation(Dictionary.class, field);
+            if (Objects.nonNull(dictionaryAnnotation)) {
+                Class<? extends IDictionary> dictionaryClass = dictionaryAnnotation.value();
+                List<Map<String, Object>> dictionaryList = DictionaryUtil.getDictionaryList(dictionaryClass);
+                entityFieldMeta.setOptions(dictionaryList);
+            }
+
+            Id idAnnotation = ReflectUtil.getAnnotation(Id.class, field);
+            if (Objects.nonNull(idAnnotation)) {
+                entityFieldMeta.setIsId(true);
+            }
+            entityFieldMetas.add(entityFieldMeta);
+        }
+        entityMeta.setFields(entityFieldMetas);
+        return entityMeta;
+    }
+
+    /**
+     * 从索引中获取类名列表
+     *
+     * @param packageName 包名
+     * @param indexType   索引类型
+     * @return 类名列表，包所在的某个类路径根目录没有索引文件时返回 {@code null}
+     * @apiNote 按类路径根目录判断，依赖的 jar 带有索引而应用本身没有索引时，应用的包仍然扫描类路径
+     */
+    private static @Nullable List<String> getIndexedClassNameList(String packageName, String indexType) {
+        Map<String, Map<String, List<String>>> index = classIndex;
+        if (Objects.isNull(index)) {
+            synchronized (CurdUtil.class) {
+                index = classIndex;
+                if (Objects.isNull(index)) {
+                    index = loadClassIndex();
+                    classIndex = index;
                 }
+            }
+        }
+        if (index.isEmpty()) {
+            return null;
+        }
+        List<String> rootList = getPackageRootList(packageName);
+        if (Objects.isNull(rootList) || rootList.isEmpty()) {
+            return null;
+        }
+        List<String> classNameList = new ArrayList<>();
+        for (String root : rootList) {
+            Map<String, List<String>> rootIndex = index.get(root);
+            if (Objects.isNull(rootIndex)) {
+                return null;
+            }
+            classNameList.addAll(rootIndex.getOrDefault(indexType, List.of()));
+        }
+        return classNameList;
+    }
 
-                EntityMeta entityMeta = new EntityMeta()
-                        .setName(clazz.getSimpleName())
-                        .setDescription(ReflectUtil.getDescription(clazz));
-
-                // 取出所有属性
-                List<Field> fields = ReflectUtil.getFieldList(clazz);
-                List<EntityMeta.EntityFieldMeta> entityFieldMetas = new ArrayList<>();
-                for (Field field : fields) {
-                    Column columnAnnotation = ReflectUtil.getAnnotation(Column.class, field);
-                    if (Objects.isNull(columnAnnotation)) {
-                        // 非数据库实体
-                        continue;
-                    }
-                    EntityMeta.EntityFieldMeta entityFieldMeta = new EntityMeta.EntityFieldMeta()
-                            .setIsUnique(columnAnnotation.unique())
-                            .setDefinition(columnAnnotation.columnDefinition())
-                            .setName(field.getName())
-                            .setDescription(ReflectUtil.getDescription(field))
-                            .setType(field.getType().getSimpleName());
-                    Dictionary dictionaryAnnotation = ReflectUtil.getAnnotation(Dictionary.class, field);
-                    if (Objects.nonNull(dictionaryAnnotation)) {
-                        Class<? extends IDictionary> dictionaryClass = dictionaryAnnotation.value();
-                        List<Map<String, Object>> dictionaryList = DictionaryUtil.getDictionaryList(dictionaryClass);
-                        entityFieldMeta.setOptions(dictionaryList);
-                    }
+    /**
+     * 获取包所在的类路径根目录
+     *
+     * @param packageName 包名
+     * @return 根目录列表，读取失败时返回 {@code null}
+     */
+    private static @Nullable List<String> getPackageRootList(String packageName) {
+        final String packagePath = ClassUtils.convertClassNameToResourcePath(packageName);
+        List<String> rootList = new ArrayList<>();
+        try {
+            Enumeration<URL> urls = ClassUtils.getDefaultClassLoader().getResources(packagePath);
+            while (urls.hasMoreElements()) {
+                String url = urls.nextElement().toString();
+                if (url.endsWith("/")) {
+                    url = url.substring(0, url.length() - 1);
+                }
+                if (url.endsWith(packagePath)) {
+                    rootList.add(url.substring(0, url.length() - packagePath.length()));
+                }
+            }
+        } catch (Exception e) {
+            log.error("读取包 {} 的类路径出错", packageName, e);
+            return null;
+        }
+        return rootList;
+    }
 
-                    Id idAnnotation = ReflectUtil.getAnnotation(Id.class, field);
-                    if (Objects.nonNull(idAnnotation)) {
-                        entityFieldMeta.setIsId(true);
+    /**
+     * 加载类路径下所有的索引文件
+     *
+     * @return 类索引
+     */
+    private static @NotNull Map<String, Map<String, List<String>>> loadClassIndex() {
+        if (Boolean.getBoolean(INDEX_IGNORE_PROPERTY)) {
+            return Map.of();
+        }
+        Map<String, Map<String, List<String>>> index = new HashMap<>();
+        int count = 0;
+        try {
+            Enumeration<URL> urls = ClassUtils.getDefaultClassLoader().getResources(INDEX_LOCATION);
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                String location = url.toString();
+                Map<String, List<String>> rootIndex = index.computeIfAbsent(
+                        location.substring(0, location.length() - INDEX_LOCATION.length()), key -> new HashMap<>()
+                );
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        url.openStream(), StandardCharsets.UTF_8
+                ))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int separatorIndex = line.indexOf(INDEX_SEPARATOR);
+                        if (separatorIndex <= 0) {
+                            continue;
+                        }
+                        rootIndex.computeIfAbsent(line.substring(0, separatorIndex).trim(), key -> new ArrayList<>())
+                                .add(line.substring(separatorIndex + 1).trim());
+                        count++;
                     }
-                    entityFieldMetas.add(entityFieldMeta);
                 }
-                entityMeta.setFields(entityFieldMetas);
-                entityMetaList.add(entityMeta);
             }
         } catch (Exception e) {
-            log.error("扫描实体出错", e);
+            log.error("读取类索引出错", e);
+            return Map.of();
         }
-        return entityMetaList;
+        if (!index.isEmpty()) {
+            log.info("已读取 {} 个类索引文件，共 {} 个类", index.size(), count);
+        }
+        return index;
+    }
+
+    /**
+     * 扫描类路径获取类名列表
+     *
+     * @param packageName 包名
+     * @param classSuffix 类名后缀
+     * @return 类名列表
+     */
+    private static @NotNull List<String> getScannedClassNameList(String packageName, String classSuffix) {
+        List<String> classNameList = new ArrayList<>();
+        try {
+            ResourcePatternResolver resourcePatternResolver = new PathMatchingResourcePatternResolver();
+            String pattern = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
+                    ClassUtils.convertClassNameToResourcePath(packageName) + "/**/*" + classSuffix + ".class";
+            Resource[] resources = resourcePatternResolver.getResources(pattern);
+            MetadataReaderFactory metadataReaderFactory = new CachingMetadataReaderFactory(resourcePatternResolver);
+            for (Resource resource : resources) {
+                // 用于读取类信息
+                MetadataReader metadataReader = metadataReaderFactory.getMetadataReader(resource);
+                classNameList.add(metadataReader.getClassMetadata().getClassName());
+            }
+        } catch (Exception e) {
+            log.error("扫描类路径出错", e);
+        }
+        return classNameList;
     }
 
     @Data
@@ -19,4 +19,26 @@ public class AccessConfig {
      * 身份令牌有效期
      */
     private long authorizeExpireSecond = DateTimeUtil.SECOND_PER_DAY;
+
+    /**
+     * 用户权限位图的缓存时间(秒)
+     */
+    private long permissionCacheSecond = DateTimeUtil.SECOND_PER_DAY;
+
+    /**
+     * 用户权限位图的本地缓存时间(毫秒)
+     *
+     * @apiNote 单个用户权限失效后，其他节点最长会在此时间后生效
+     */
+    private long permissionNearCacheMillisecond = 5000;
+
+    /**
+     * 用户权限位图的本地缓存数量
+     */
+    private int permissionNearCacheSize = 10000;
+
+    /**
+     * 权限版本号的检查间隔(毫秒)
+     */
+    private long permissionVersionCheckMillisecond = 1000;
 }
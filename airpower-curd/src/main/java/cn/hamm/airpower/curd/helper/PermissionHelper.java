@@ -0,0 +1,289 @@
+package cn.hamm.airpower.curd.helper;
+
+import cn.hamm.airpower.curd.config.AccessConfig;
+import cn.hamm.airpower.curd.permission.IPermissionLoader;
+import cn.hamm.airpower.redis.RedisHelper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static cn.hamm.airpower.exception.Errors.FORBIDDEN;
+
+/**
+ * <h1>权限助手类</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 用户的权限以位图的形式缓存在 Redis 与本地，鉴权仅需一次位运算；
+ * 角色或权限变更后调用 {@link #invalidateAll()} 递增版本号即可让所有节点的缓存失效；
+ * 单个用户的角色变更后调用 {@link #invalidate(long)} 递增该用户的版本号，缓存 KEY 同时包含两个版本号
+ * @see IPermissionLoader
+ */
+@Component
+@Slf4j
+public class PermissionHelper {
+    /**
+     * 权限版本号的缓存 KEY
+     */
+    private static final String PERMISSION_VERSION_KEY = "PERMISSION_VERSION";
+
+    /**
+     * 用户权限位图的缓存前缀
+     */
+    private static final String PERMISSION_CACHE_PREFIX = "PERMISSION_";
+
+    /**
+     * 用户权限版本号的缓存前缀
+     */
+    private static final String PERMISSION_USER_VERSION_PREFIX = "PERMISSION_USER_VERSION_";
+
+    /**
+     * 用户权限位图的本地缓存
+     */
+    private final Map<Long, CachedPermission> nearCache = new ConcurrentHashMap<>();
+
+    /**
+     * 当前的权限版本号
+     */
+    private volatile long version;
+
+    /**
+     * 上次检查版本号的时间
+     */
+    private volatile long versionCheckTime;
+
+    @Autowired(required = false)
+    private IPermissionLoader permissionLoader;
+
+    @Autowired
+    private RedisHelper redisHelper;
+
+    @Autowired
+    private RouteHelper routeHelper;
+
+    @Autowired
+    private AccessConfig accessConfig;
+
+    /**
+     * 是否启用了内置的权限缓存
+     *
+     * @return 是否启用
+     */
+    public final boolean isEnabled() {
+        return Objects.nonNull(permissionLoader);
+    }
+
+    /**
+     * 检查用户是否拥有权限
+     *
+     * @param userId             用户 ID
+     * @param permissionIdentity 权限标识
+     * @apiNote 没有注册 {@link IPermissionLoader} 时不做检查
+     */
+    public final void checkPermission(long userId, String permissionIdentity) {
+        if (!isEnabled()) {
+            return;
+        }
+        FORBIDDEN.when(!hasPermission(userId, permissionIdentity));
+    }
+
+    /**
+     * 判断用户是否拥有权限
+     *
+     * @param userId             用户 ID
+     * @param permissionIdentity 权限标识
+     * @return 是否拥有权限
+     */
+    public final boolean hasPermission(long userId, String permissionIdentity) {
+        int index = routeHelper.getPermissionIndex(permissionIdentity);
+        if (index < 0) {
+            log.warn("权限标识 {} 没有被索引", permissionIdentity);
+            return false;
+        }
+        return hasPermission(userId, index);
+    }
+
+    /**
+     * 检查用户是否拥有权限
+     *
+     * @param userId          用户 ID
+     * @param permissionIndex 权限索引
+     * @apiNote 路由构建时已经解析好权限索引，可以跳过按标识查找；没有注册 {@link IPermissionLoader} 时不做检查
+     */
+    public final void checkPermission(long userId, int permissionIndex) {
+        if (!isEnabled()) {
+            return;
+        }
+        FORBIDDEN.when(permissionIndex < 0 || !hasPermission(userId, permissionIndex));
+    }
+
+    /**
+     * 判断用户是否拥有权限
+     *
+     * @param userId          用户 ID
+     * @param permissionIndex 权限索引
+     * @return 是否拥有权限
+     */
+    public final boolean hasPermission(long userId, int permissionIndex) {
+        return permissionIndex >= 0 && getPermissionBits(userId).get(permissionIndex);
+    }
+
+    /**
+     * 使指定用户的权限缓存失效
+     *
+     * @param userId 用户 ID
+     * @apiNote 用户的角色变化后调用，递增用户的版本号，旧版本号下的缓存不会再被读取，
+     * 也不会被失效前开始的加载覆盖；其他节点的本地缓存最长在
+     * {@link AccessConfig#getPermissionNearCacheMillisecond()} 后失效
+     */
+    public final void invalidate(long userId) {
+        redisHelper.increment(getUserVersionKey(userId));
+        nearCache.remove(userId);
+    }
+
+    /**
+     * 使所有用户的权限缓存失效
+     *
+     * @apiNote 角色的权限变化后调用，所有节点将在下一次检查版本号时失效
+     */
+    public final void invalidateAll() {
+        version = redisHelper.increment(PERMISSION_VERSION_KEY);
+        versionCheckTime = System.currentTimeMillis();
+        nearCache.clear();
+    }
+
+    /**
+     * 获取用户的权限位图
+     *
+     * @param userId 用户 ID
+     * @return 权限位图
+     */
+    private @NotNull BitSet getPermissionBits(long userId) {
+        final long currentVersion = getVersion();
+        final long now = System.currentTimeMillis();
+        CachedPermission cachedPermission = nearCache.get(userId);
+        if (Objects.nonNull(cachedPermission) && cachedPermission.getVersion() == currentVersion
+                && cachedPermission.getExpireTime() > now) {
+            return cachedPermission.getBits();
+        }
+        // 先读取用户版本号再加载，加载期间失效的话写入的是旧版本号下的 KEY，不会被读取
+        String cacheKey = getCacheKey(userId, currentVersion, getUserVersion(userId));
+        Object cached = redisHelper.get(cacheKey);
+        BitSet bits;
+        if (Objects.nonNull(cached)) {
+            bits = BitSet.valueOf(Base64.getDecoder().decode(cached.toString()));
+        } else {
+            bits = loadPermissionBits(userId);
+            redisHelper.set(cacheKey, Base64.getEncoder().encodeToString(bits.toByteArray()),
+                    accessConfig.getPermissionCacheSecond());
+        }
+        if (nearCache.size() >= accessConfig.getPermissionNearCacheSize()) {
+            Iterator<Long> iterator = nearCache.keySet().iterator();
+            if (iterator.hasNext()) {
+                nearCache.remove(iterator.next());
+            }
+        }
+        nearCache.put(userId, new CachedPermission(
+                bits, currentVersion, now + accessConfig.getPermissionNearCacheMillisecond()
+        ));
+        return bits;
+    }
+
+    /**
+     * 从数据源加载用户的权限位图
+     *
+     * @param userId 用户 ID
+     * @return 权限位图
+     */
+    private @NotNull BitSet loadPermissionBits(long userId) {
+        BitSet bits = new BitSet();
+        permissionLoader.loadPermissionIdentities(userId).forEach(identity -> {
+            int index = routeHelper.getPermissionIndex(identity);
+            if (index >= 0) {
+                bits.set(index);
+            }
+        });
+        return bits;
+    }
+
+    /**
+     * 获取当前的权限版本号
+     *
+     * @return 版本号
+     * @apiNote 按配置的间隔从 Redis 刷新
+     */
+    private long getVersion() {
+        long now = System.currentTimeMillis();
+        if (now - versionCheckTime >= accessConfig.getPermissionVersionCheckMillisecond()) {
+            Object value = redisHelper.get(PERMISSION_VERSION_KEY);
+            version = Objects.isNull(value) ? 0 : Long.parseLong(value.toString());
+            versionCheckTime = now;
+        }
+        return version;
+    }
+
+    /**
+     * 获取用户的权限版本号
+     *
+     * @param userId 用户 ID
+     * @return 版本号
+     */
+    private long getUserVersion(long userId) {
+        Object value = redisHelper.get(getUserVersionKey(userId));
+        return Objects.isNull(value) ? 0 : Long.parseLong(value.toString());
+    }
+
+    /**
+     * 获取用户权限版本号的缓存 KEY
+     *
+     * @param userId 用户 ID
+     * @return 缓存 KEY
+     */
+    private @NotNull String getUserVersionKey(long userId) {
+        return PERMISSION_USER_VERSION_PREFIX + userId;
+    }
+
+    /**
+     * 获取用户权限位图的缓存 KEY
+     *
+     * @param userId      用户 ID
+     * @param version     版本号
+     * @param userVersion 用户的版本号
+     * @return 缓存 KEY
+     */
+    private @NotNull String getCacheKey(long userId, long version, long userVersion) {
+        return PERMISSION_CACHE_PREFIX + routeHelper.getPermissionSignature() + "_" + version + "_" + userId
+                + "_" + userVersion;
+    }
+
+    /**
+     * 缓存的用户权限
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class CachedPermission {
+        /**
+         * 权限位图
+         */
+        private final BitSet bits;
+
+        /**
+         * 版本号
+         */
+        private final long version;
+
+        /**
+         * 本地缓存过期时间
+         */
+        private final long expireTime;
+    }
+}
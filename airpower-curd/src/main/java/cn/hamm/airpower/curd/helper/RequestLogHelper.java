@@ -0,0 +1,255 @@
+package cn.hamm.airpower.curd.helper;
+
+import cn.hamm.airpower.api.config.ApiConfig;
+import cn.hamm.airpower.core.TraceUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * <h1>请求日志助手类</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 按路由采样，包体在调用线程按需序列化并截断，日志输出由有界环形队列异步完成，队列满时直接丢弃
+ */
+@Component
+@Slf4j
+public class RequestLogHelper {
+    /**
+     * 请求是否被采样的共享数据 KEY
+     */
+    public static final String REQUEST_LOG_SAMPLED_KEY = "REQUEST_LOG_SAMPLED_KEY";
+
+    /**
+     * 最多缓存的路由采样率数量
+     */
+    private static final int MAX_CACHED_ROUTE = 4096;
+
+    /**
+     * 截断后缀
+     */
+    private static final String TRUNCATED_SUFFIX = "...(truncated)";
+
+    /**
+     * 路由采样率缓存
+     */
+    private final Map<String, Double> routeSampleRateCache = new ConcurrentHashMap<>();
+
+    /**
+     * 路径匹配器
+     */
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    /**
+     * 被丢弃的日志数量
+     */
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    @Autowired
+    private ApiConfig apiConfig;
+
+    /**
+     * 日志队列
+     */
+    private BlockingQueue<LogEvent> logQueue;
+
+    /**
+     * 日志输出线程
+     */
+    private Thread appenderThread;
+
+    /**
+     * 是否运行中
+     */
+    private volatile boolean running;
+
+    /**
+     * 启动日志输出线程
+     */
+    @PostConstruct
+    private void start() {
+        logQueue = new ArrayBlockingQueue<>(Math.max(1, apiConfig.getLogQueueSize()));
+        running = true;
+        appenderThread = new Thread(this::consume, "airpower-request-log");
+        appenderThread.setDaemon(true);
+        appenderThread.start();
+    }
+
+    /**
+     * 停止日志输出线程并输出剩余日志
+     */
+    @PreDestroy
+    private void stop() {
+        running = false;
+        appenderThread.interrupt();
+        LogEvent logEvent;
+        while ((logEvent = logQueue.poll()) != null) {
+            print(logEvent);
+        }
+    }
+
+    /**
+     * 判断请求是否被采样
+     *
+     * @param request 请求
+     * @return 是否被采样
+     * @apiNote 同一请求仅计算一次，请求日志与响应日志共享采样结果
+     */
+    public final boolean isSampled(@NotNull HttpServletRequest request) {
+        Object sampled = request.getAttribute(REQUEST_LOG_SAMPLED_KEY);
+        if (sampled instanceof Boolean value) {
+            return value;
+        }
+        boolean value = isSampled(request.getRequestURI());
+        request.setAttribute(REQUEST_LOG_SAMPLED_KEY, value);
+        return value;
+    }
+
+    /**
+     * 判断路由是否被采样
+     *
+     * @param uri 请求路径
+     * @return 是否被采样
+     */
+    public final boolean isSampled(String uri) {
+        double sampleRate = getSampleRate(uri);
+        if (sampleRate >= 1) {
+            return true;
+        }
+        if (sampleRate <= 0) {
+            return false;
+        }
+        return ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * 添加一条日志
+     *
+     * @param template     日志模板
+     * @param bodySupplier 包体提供者
+     * @apiNote 包体在调用线程序列化，避免响应结束后对象被修改或懒加载失效
+     */
+    public final void append(String template, @NotNull Supplier<String> bodySupplier) {
+        LogEvent logEvent = new LogEvent(TraceUtil.getTraceId(), template, truncate(bodySupplier.get()));
+        if (!logQueue.offer(logEvent)) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 获取被丢弃的日志数量
+     *
+     * @return 丢弃数量
+     */
+    public final long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * 截断包体
+     *
+     * @param body 包体
+     * @return 截断后的包体
+     */
+    private String truncate(String body) {
+        int maxLength = apiConfig.getLogMaxBodyLength();
+        if (Objects.isNull(body) || maxLength <= 0 || body.length() <= maxLength) {
+            return body;
+        }
+        return body.substring(0, maxLength) + TRUNCATED_SUFFIX;
+    }
+
+    /**
+     * 获取路由的采样率
+     *
+     * @param uri 请求路径
+     * @return 采样率
+     */
+    private double getSampleRate(String uri) {
+        Map<String, Double> logSampleRates = apiConfig.getLogSampleRates();
+        if (Objects.isNull(uri) || Objects.isNull(logSampleRates) || logSampleRates.isEmpty()) {
+            return apiConfig.getLogSampleRate();
+        }
+        Double sampleRate = routeSampleRateCache.get(uri);
+        if (Objects.nonNull(sampleRate)) {
+            return sampleRate;
+        }
+        sampleRate = logSampleRates.entrySet().stream()
+                .filter(entry -> antPathMatcher.match(entry.getKey(), uri))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(apiConfig.getLogSampleRate());
+        if (routeSampleRateCache.size() < MAX_CACHED_ROUTE) {
+            routeSampleRateCache.put(uri, sampleRate);
+        }
+        return sampleRate;
+    }
+
+    /**
+     * 消费日志队列
+     */
+    private void consume() {
+        while (running) {
+            try {
+                LogEvent logEvent = logQueue.poll(1, TimeUnit.SECONDS);
+                if (Objects.nonNull(logEvent)) {
+                    print(logEvent);
+                }
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("输出请求日志失败，{}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 输出日志
+     *
+     * @param logEvent 日志事件
+     */
+    private void print(@NotNull LogEvent logEvent) {
+        TraceUtil.setTraceId(logEvent.getTraceId());
+        log.info(logEvent.getTemplate(), logEvent.getBody());
+    }
+
+    /**
+     * 日志事件
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class LogEvent {
+        /**
+         * 追踪 ID
+         */
+        private final String traceId;
+
+        /**
+         * 日志模板
+         */
+        private final String template;
+
+        /**
+         * 包体
+         */
+        private final String body;
+    }
+}
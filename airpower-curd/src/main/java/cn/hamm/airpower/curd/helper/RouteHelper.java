@@ -0,0 +1,181 @@
+package cn.hamm.airpower.curd.helper;
+
+import cn.hamm.airpower.curd.base.Curd;
+import cn.hamm.airpower.curd.model.Access;
+import cn.hamm.airpower.curd.model.Route;
+import cn.hamm.airpower.curd.permission.PermissionUtil;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * <h1>路由助手类</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 启动时将所有控制器方法的访问权限、权限标识和可用的增删改查接口解析为不可变的路由表，请求时仅需一次查表；
+ * 同时为所有需要授权的权限标识按字典序分配连续的权限索引
+ */
+@Component
+@Slf4j
+public class RouteHelper implements SmartInitializingSingleton {
+    /**
+     * 路由表
+     */
+    private volatile Map<RouteKey, Route> routeMap = Map.of();
+
+    /**
+     * 权限索引表
+     */
+    private volatile Map<String, Integer> permissionIndexMap = Map.of();
+
+    /**
+     * 权限索引签名
+     */
+    private volatile String permissionSignature = "";
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    /**
+     * 所有单例初始化完成后构建路由表
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<RouteKey, HandlerMethod> handlerMethodMap = new HashMap<>();
+        applicationContext.getBeansOfType(RequestMappingHandlerMapping.class).values().forEach(mapping ->
+                mapping.getHandlerMethods().values().forEach(handlerMethod -> handlerMethodMap.putIfAbsent(
+                        new RouteKey(handlerMethod.getBeanType(), handlerMethod.getMethod()), handlerMethod
+                ))
+        );
+
+        // 按字典序为需要授权的权限标识分配索引，保证各节点的索引一致
+        List<String> identityList = handlerMethodMap.values().stream()
+                .filter(handlerMethod -> PermissionUtil.getWhatNeedAccess(
+                        handlerMethod.getBeanType(), handlerMethod.getMethod()
+                ).isAuthorize())
+                .map(handlerMethod -> PermissionUtil.getPermissionIdentity(
+                        handlerMethod.getBeanType(), handlerMethod.getMethod()
+                ))
+                .distinct()
+                .sorted()
+                .toList();
+        Map<String, Integer> indexMap = new HashMap<>();
+        for (int index = 0; index < identityList.size(); index++) {
+            indexMap.put(identityList.get(index), index);
+        }
+        permissionIndexMap = Map.copyOf(indexMap);
+        permissionSignature = DigestUtils.sha1Hex(String.join(",", identityList)).substring(0, 8);
+
+        Map<RouteKey, Route> map = new HashMap<>();
+        handlerMethodMap.forEach((key, handlerMethod) ->
+                map.put(key, createRoute(handlerMethod.getBeanType(), handlerMethod.getMethod()))
+        );
+        routeMap = Map.copyOf(map);
+        log.info("路由表构建完成，共 {} 个路由，{} 个权限", routeMap.size(), permissionIndexMap.size());
+    }
+
+    /**
+     * 获取路由
+     *
+     * @param handlerMethod 处理方法
+     * @return 路由
+     * @apiNote 启动后动态注册的处理方法不在路由表中，将实时解析
+     */
+    public final @NotNull Route getRoute(@NotNull HandlerMethod handlerMethod) {
+        Class<?> clazz = handlerMethod.getBeanType();
+        Method method = handlerMethod.getMethod();
+        Route route = routeMap.get(new RouteKey(clazz, method));
+        if (Objects.nonNull(route)) {
+            return route;
+        }
+        return createRoute(clazz, method);
+    }
+
+    /**
+     * 获取所有路由
+     *
+     * @return 路由列表
+     */
+    public final @NotNull Collection<Route> getRouteList() {
+        return routeMap.values();
+    }
+
+    /**
+     * 获取权限标识的索引
+     *
+     * @param permissionIdentity 权限标识
+     * @return 权限索引，未被索引时返回 <code>-1</code>
+     * @apiNote 同时兼容 {@link PermissionUtil#scanPermission} 扫描出的首字母大写的标识
+     */
+    public final int getPermissionIndex(String permissionIdentity) {
+        if (Objects.isNull(permissionIdentity)) {
+            return -1;
+        }
+        Integer index = permissionIndexMap.get(permissionIdentity);
+        if (Objects.isNull(index)) {
+            index = permissionIndexMap.get(StringUtils.uncapitalize(permissionIdentity));
+        }
+        return Objects.isNull(index) ? -1 : index;
+    }
+
+    /**
+     * 获取权限索引签名
+     *
+     * @return 签名
+     * @apiNote 权限标识集合变化时签名随之变化，可用于区分不同版本构建的权限位图
+     */
+    public final @NotNull String getPermissionSignature() {
+        return permissionSignature;
+    }
+
+    /**
+     * 创建路由
+     *
+     * @param clazz  控制器类
+     * @param method 方法
+     * @return 路由
+     */
+    private @NotNull Route createRoute(@NotNull Class<?> clazz, @NotNull Method method) {
+        Access access = PermissionUtil.getWhatNeedAccess(clazz, method);
+        String permissionIdentity = PermissionUtil.getPermissionIdentity(clazz, method);
+        return new Route(
+                clazz,
+                method,
+                access,
+                permissionIdentity,
+                Curd.getCurdSet(clazz),
+                access.isAuthorize() ? getPermissionIndex(permissionIdentity) : -1
+        );
+    }
+
+    /**
+     * 路由表的 KEY
+     *
+     * @apiNote 继承自父控制器的方法在各个子控制器中是同一个 {@link Method}，所以需要同时使用控制器类
+     */
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class RouteKey {
+        /**
+         * 控制器类
+         */
+        private final Class<?> clazz;
+
+        /**
+         * 方法
+         */
+        private final Method method;
+    }
+}
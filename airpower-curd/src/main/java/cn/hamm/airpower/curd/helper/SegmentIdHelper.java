@@ -0,0 +1,411 @@
+package cn.hamm.airpower.curd.helper;
+
+import cn.hamm.airpower.core.exception.ServiceException;
+import cn.hamm.airpower.redis.RedisConfig;
+import cn.hamm.airpower.redis.RedisHelper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * <h1>号段 ID 助手类</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 每次从 Redis 原子地租用一段连续的 ID，在本地无锁分配；当前号段用掉一定比例后在后台预取下一段，
+ * 切换号段时才需要同步；首次租用或 Redis 中的计数丢失时以表中号段范围内的最大 ID 为下限，
+ * 每次租用还以本节点租到过的最大值为下限，避免与已有数据冲突；租用失败后在一段时间内直接返回雪花 ID，不再逐个等待 Redis 超时
+ */
+@Component
+@Slf4j
+public class SegmentIdHelper {
+    /**
+     * 号段的 key 前缀
+     */
+    private static final String SEGMENT_KEY_PREFIX = "ID_SEGMENT_";
+
+    /**
+     * 剩余比例低于此值时预取下一段
+     */
+    private static final double PREFETCH_RATIO = 0.2;
+
+    /**
+     * 号段 ID 的最大值
+     *
+     * @apiNote JavaScript 的最大安全整数；雪花 ID 都大于此值，读取表中最大 ID 时只统计此范围内的 ID
+     */
+    public static final long SEGMENT_MAX_ID = (1L << 53) - 1;
+
+    /**
+     * 租用失败后的退避时间(毫秒)
+     */
+    private static final long LEASE_RETRY_MILLISECOND = 5000;
+
+    /**
+     * 租用号段时计数不存在的返回值
+     */
+    private static final long LEASE_MISSING = -1;
+
+    /**
+     * 租用号段的脚本
+     *
+     * @apiNote {@code ARGV}: 号段长度、下限、计数不存在时是否直接返回；
+     * 返回本次号段的最大值，计数低于下限时从下限开始，计数不存在且要求直接返回时为 {@code -1}
+     */
+    private static final RedisScript<Long> LEASE_SCRIPT = new DefaultRedisScript<>("""
+            if ARGV[3] == '1' and redis.call('exists', KEYS[1]) == 0 then
+                return -1
+            end
+            local step = tonumber(ARGV[1])
+            local max = redis.call('incrby', KEYS[1], step)
+            if max - step < tonumber(ARGV[2]) then
+                max = tonumber(ARGV[2]) + step
+                redis.call('set', KEYS[1], max)
+            end
+            return max
+            """, Long.class);
+
+    /**
+     * 雪花 ID 的起始时间
+     */
+    private static final long SNOWFLAKE_EPOCH = 1704067200000L;
+
+    /**
+     * 雪花 ID 的节点位数
+     */
+    private static final int SNOWFLAKE_WORKER_BITS = 10;
+
+    /**
+     * 雪花 ID 的序列位数
+     */
+    private static final int SNOWFLAKE_SEQUENCE_BITS = 12;
+
+    /**
+     * 雪花 ID 的节点标识
+     */
+    private static final long SNOWFLAKE_WORKER_ID = ThreadLocalRandom.current().nextLong(1L << SNOWFLAKE_WORKER_BITS);
+
+    /**
+     * 雪花 ID 的最近一次时间与序列
+     */
+    private static final AtomicLong SNOWFLAKE_STATE = new AtomicLong();
+
+    /**
+     * 当前实例
+     *
+     * @apiNote ID 生成器由 Hibernate 创建，通过此实例访问 Spring 管理的组件
+     */
+    private static volatile SegmentIdHelper instance;
+
+    /**
+     * 号段缓冲
+     */
+    private final Map<String, SegmentBuffer> bufferMap = new ConcurrentHashMap<>();
+
+    /**
+     * 预取线程
+     */
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "airpower-segment-prefetcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 下次允许租用号段的时间
+     *
+     * @apiNote 租用失败后推迟，期间号段用完的线程直接使用雪花 ID
+     */
+    private volatile long leaseRetryTime;
+
+    @Autowired
+    private RedisHelper redisHelper;
+
+    @Autowired
+    private RedisConfig redisConfig;
+
+    /**
+     * 获取当前实例
+     *
+     * @return 实例，未初始化时为 {@code null}
+     */
+    public static @Nullable SegmentIdHelper getInstance() {
+        return instance;
+    }
+
+    /**
+     * 生成雪花 ID
+     *
+     * @return ID
+     * @apiNote 41 位毫秒时间、10 位节点标识、12 位序列；节点标识在启动时随机生成，
+     * 仅作为 Redis 不可用时的兜底；距起始时间超过 {@code 2^31} 毫秒后生成的 ID 都大于 {@link #SEGMENT_MAX_ID}，
+     * 不会占用号段 ID 的范围
+     */
+    public static long nextSnowflakeId() {
+        final long sequenceMask = (1L << SNOWFLAKE_SEQUENCE_BITS) - 1;
+        while (true) {
+            long state = SNOWFLAKE_STATE.get();
+            long lastTime = state >>> SNOWFLAKE_SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - SNOWFLAKE_EPOCH;
+            long time = Math.max(now, lastTime);
+            long sequence = time == lastTime ? (state & sequenceMask) + 1 : 0;
+            if (sequence > sequenceMask) {
+                // 当前毫秒的序列已用完，借用下一毫秒
+                time++;
+                sequence = 0;
+            }
+            if (SNOWFLAKE_STATE.compareAndSet(state, (time << SNOWFLAKE_SEQUENCE_BITS) | sequence)) {
+                return (time << (SNOWFLAKE_WORKER_BITS + SNOWFLAKE_SEQUENCE_BITS)) |
+                        (SNOWFLAKE_WORKER_ID << SNOWFLAKE_SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    /**
+     * 注册当前实例
+     */
+    @PostConstruct
+    public void init() {
+        instance = this;
+    }
+
+    /**
+     * 停止预取
+     */
+    @PreDestroy
+    public void destroy() {
+        instance = null;
+        prefetcher.shutdownNow();
+    }
+
+    /**
+     * 分配 ID
+     *
+     * @param name 号段名称
+     * @param step 号段长度
+     * @param seed 首次租用或计数丢失时的下限，应只统计不超过 {@link #SEGMENT_MAX_ID} 的 ID
+     * @return ID，租用号段失败时为雪花 ID
+     */
+    public final long nextId(String name, int step, LongSupplier seed) {
+        SegmentBuffer buffer = bufferMap.computeIfAbsent(name, key -> new SegmentBuffer(name, step));
+        while (true) {
+            Segment segment = buffer.current.get();
+            if (Objects.nonNull(segment)) {
+                long id = segment.cursor.getAndIncrement();
+                if (id <= segment.max) {
+                    if (segment.max - id < step * PREFETCH_RATIO) {
+                        prefetch(buffer);
+                    }
+                    return id;
+                }
+            }
+            if (isLeaseBlocked()) {
+                return nextSnowflakeId();
+            }
+            try {
+                switchSegment(buffer, segment, seed);
+            } catch (RuntimeException exception) {
+                leaseRetryTime = System.currentTimeMillis() + LEASE_RETRY_MILLISECOND;
+                log.error("租用号段失败，{} 毫秒内使用雪花 ID，name= {}", LEASE_RETRY_MILLISECOND, name, exception);
+                return nextSnowflakeId();
+            }
+        }
+    }
+
+    /**
+     * 是否处于租用失败后的退避期
+     *
+     * @return 是否退避
+     */
+    private boolean isLeaseBlocked() {
+        return System.currentTimeMillis() < leaseRetryTime;
+    }
+
+    /**
+     * 切换到下一个号段
+     *
+     * @param buffer  号段缓冲
+     * @param current 已用完的号段
+     * @param seed    首次租用或计数丢失时的下限
+     */
+    private void switchSegment(@NotNull SegmentBuffer buffer, @Nullable Segment current, LongSupplier seed) {
+        synchronized (buffer) {
+            if (buffer.current.get() != current || isLeaseBlocked()) {
+                // 其他线程已经切换，或者在等待期间租用失败
+                return;
+            }
+            Segment next = buffer.next.getAndSet(null);
+            buffer.current.set(Objects.nonNull(next) ? next : Objects.requireNonNull(lease(buffer, seed)));
+        }
+    }
+
+    /**
+     * 在后台预取下一个号段
+     *
+     * @param buffer 号段缓冲
+     */
+    private void prefetch(@NotNull SegmentBuffer buffer) {
+        if (Objects.nonNull(buffer.next.get()) || isLeaseBlocked() || !buffer.loading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            prefetcher.execute(() -> {
+                try {
+                    // 预取线程没有数据库会话，计数丢失时放弃预取，由切换号段的线程按表中最大 ID 重新租用
+                    Segment next = lease(buffer, null);
+                    if (Objects.nonNull(next)) {
+                        buffer.next.compareAndSet(null, next);
+                    }
+                } catch (Exception exception) {
+                    leaseRetryTime = System.currentTimeMillis() + LEASE_RETRY_MILLISECOND;
+                    log.error("预取号段失败，name= {}", buffer.name, exception);
+                } finally {
+                    buffer.loading.set(false);
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            buffer.loading.set(false);
+        }
+    }
+
+    /**
+     * 从 Redis 租用号段
+     *
+     * @param buffer 号段缓冲
+     * @param seed   首次租用或计数丢失时的下限，为 {@code null} 时计数丢失直接返回
+     * @return 号段，计数丢失且没有下限时为 {@code null}
+     * @apiNote 计数可能因淘汰、清空或主从切换丢失，此时 {@code INCRBY} 会从头开始，必须重新读取表中最大 ID
+     */
+    private @Nullable Segment lease(@NotNull SegmentBuffer buffer, @Nullable LongSupplier seed) {
+        final String key = redisConfig.getPrefix() + SEGMENT_KEY_PREFIX + buffer.name;
+        long floor = buffer.leasedMax;
+        if (!buffer.seeded && Objects.nonNull(seed)) {
+            floor = Math.max(floor, seed.getAsLong());
+        }
+        long segmentMax = lease(key, buffer.step, floor, true);
+        if (segmentMax == LEASE_MISSING) {
+            if (Objects.isNull(seed)) {
+                return null;
+            }
+            log.warn("号段计数不存在，按表中最大 ID 重新租用，name= {}", buffer.name);
+            segmentMax = lease(key, buffer.step, Math.max(buffer.leasedMax, seed.getAsLong()), false);
+        }
+        buffer.seeded = true;
+        if (segmentMax > SEGMENT_MAX_ID) {
+            throw new ServiceException("号段 ID 超出范围，name= " + buffer.name);
+        }
+        synchronized (buffer) {
+            buffer.leasedMax = Math.max(buffer.leasedMax, segmentMax);
+        }
+        return new Segment(segmentMax - buffer.step + 1, segmentMax);
+    }
+
+    /**
+     * 执行租用号段的脚本
+     *
+     * @param key            号段的 key
+     * @param step           号段长度
+     * @param floor          下限
+     * @param requireExisting 计数不存在时是否直接返回
+     * @return 号段的最大值，计数不存在且要求直接返回时为 {@link #LEASE_MISSING}
+     */
+    private long lease(String key, int step, long floor, boolean requireExisting) {
+        Long max = redisHelper.getRedisTemplate().execute(LEASE_SCRIPT, List.of(key),
+                String.valueOf(step), String.valueOf(floor), requireExisting ? "1" : "0"
+        );
+        return Objects.requireNonNull(max);
+    }
+
+    /**
+     * 号段
+     */
+    private static class Segment {
+        /**
+         * 下一个待分配的 ID
+         */
+        private final AtomicLong cursor;
+
+        /**
+         * 号段的最大值
+         */
+        private final long max;
+
+        /**
+         * 创建号段
+         *
+         * @param min 最小值
+         * @param max 最大值
+         */
+        private Segment(long min, long max) {
+            this.cursor = new AtomicLong(min);
+            this.max = max;
+        }
+    }
+
+    /**
+     * 号段缓冲
+     */
+    private static class SegmentBuffer {
+        /**
+         * 当前号段
+         */
+        private final AtomicReference<Segment> current = new AtomicReference<>();
+
+        /**
+         * 预取的下一个号段
+         */
+        private final AtomicReference<Segment> next = new AtomicReference<>();
+
+        /**
+         * 是否正在预取
+         */
+        private final AtomicBoolean loading = new AtomicBoolean();
+
+        /**
+         * 号段名称
+         */
+        private final String name;
+
+        /**
+         * 号段长度
+         */
+        private final int step;
+
+        /**
+         * 是否已按表中最大 ID 租用过
+         */
+        private volatile boolean seeded;
+
+        /**
+         * 本节点租到过的最大值
+         *
+         * @apiNote 作为每次租用的下限，计数丢失后也不会分配本节点已经分配过的 ID
+         */
+        private volatile long leasedMax;
+
+        /**
+         * 创建号段缓冲
+         *
+         * @param name 号段名称
+         * @param step 号段长度
+         */
+        private SegmentBuffer(String name, int step) {
+            this.name = name;
+            this.step = step;
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package cn.hamm.airpower.curd.interceptor;
 
+import cn.hamm.airpower.api.AccessTokenHelper;
 import cn.hamm.airpower.api.config.ApiConfig;
 import cn.hamm.airpower.core.AccessTokenUtil;
 import cn.hamm.airpower.core.TraceUtil;
 import cn.hamm.airpower.core.constant.HttpConstant;
+import cn.hamm.airpower.curd.helper.PermissionHelper;
+import cn.hamm.airpower.curd.helper.RouteHelper;
 import cn.hamm.airpower.curd.model.Access;
-import cn.hamm.airpower.curd.permission.PermissionUtil;
+import cn.hamm.airpower.curd.model.Route;
+import cn.hamm.airpower.curd.permission.IPermissionLoader;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
@@ -43,9 +47,23 @@ public class CurdRequestInterceptor implements HandlerInterceptor {
      */
     public static final String REQUEST_CONTROLLER_KEY = "REQUEST_CONTROLLER_KEY";
 
+    /**
+     * 缓存的 {@code REQUEST_ROUTE_KEY}
+     */
+    public static final String REQUEST_ROUTE_KEY = "REQUEST_ROUTE_KEY";
+
     @Autowired
     protected ApiConfig apiConfig;
 
+    @Autowired
+    protected AccessTokenHelper accessTokenHelper;
+
+    @Autowired
+    protected PermissionHelper permissionHelper;
+
+    @Autowired
+    private RouteHelper routeHelper;
+
     /**
      * 拦截器
      *
@@ -64,12 +82,12 @@ public class CurdRequestInterceptor implements HandlerInterceptor {
         TraceUtil.setTraceId(traceId);
         log.info("请求地址 {}", request.getRequestURI());
         HandlerMethod handlerMethod = (HandlerMethod) object;
-        //取出控制器和方法
-        Class<?> clazz = handlerMethod.getBeanType();
-        Method method = handlerMethod.getMethod();
-        setShareData(REQUEST_METHOD_KEY, method);
+        //取出路由
+        Route route = routeHelper.getRoute(handlerMethod);
+        setShareData(REQUEST_METHOD_KEY, route.getMethod());
         setShareData(REQUEST_CONTROLLER_KEY, handlerMethod.getBean());
-        handleRequest(request, response, clazz, method);
+        setShareData(REQUEST_ROUTE_KEY, route);
+        handleRequest(request, response, route);
         return true;
     }
 
@@ -91,16 +109,15 @@ public class CurdRequestInterceptor implements HandlerInterceptor {
      *
      * @param request  请求
      * @param response 响应
-     * @param clazz    控制器
-     * @param method   方法
+     * @param route    路由
      */
     private void handleRequest(
             @NotNull HttpServletRequest request,
             @NotNull HttpServletResponse response,
-            Class<?> clazz, Method method
+            @NotNull Route route
     ) {
-        interceptRequest(request, response, clazz, method);
-        Access access = PermissionUtil.getWhatNeedAccess(clazz, method);
+        interceptRequest(request, response, route.getControllerClass(), route.getMethod());
+        Access access = route.getAccess();
         if (!access.isLogin()) {
             // 不需要登录 直接返回有权限
             return;
@@ -115,11 +132,13 @@ public class CurdRequestInterceptor implements HandlerInterceptor {
         }
         UNAUTHORIZED.whenEmpty(accessToken);
         AccessTokenUtil.VerifiedToken verifiedToken = getVerifiedToken(accessToken);
+        // 请求内共享验证后的令牌，避免控制器中重复验证
+        request.setAttribute(AccessTokenHelper.REQUEST_VERIFIED_TOKEN_KEY, verifiedToken);
 
         //需要 RBAC
         if (access.isAuthorize()) {
             //验证用户是否有接口的访问权限
-            checkUserPermission(verifiedToken, PermissionUtil.getPermissionIdentity(clazz, method), request);
+            checkUserPermission(verifiedToken, route.getPermissionIdentity(), request);
         }
     }
 
@@ -131,7 +150,7 @@ public class CurdRequestInterceptor implements HandlerInterceptor {
      * @apiNote 如需前置验证令牌，可重写此方法
      */
     public AccessTokenUtil.VerifiedToken getVerifiedToken(String accessToken) {
-        return AccessTokenUtil.create().verify(accessToken, apiConfig.getAccessTokenSecret());
+        return accessTokenHelper.verify(accessToken);
     }
 
     /**
@@ -140,11 +159,18 @@ public class CurdRequestInterceptor implements HandlerInterceptor {
      * @param verifiedToken      合法令牌
      * @param permissionIdentity 权限标识
      * @param request            请求对象
-     * @apiNote 抛出异常则为拦截
+     * @apiNote 抛出异常则为拦截，注册了 {@link IPermissionLoader} 时默认使用内置的权限缓存鉴权
      */
     public void checkUserPermission(
             AccessTokenUtil.@NotNull VerifiedToken verifiedToken, String permissionIdentity, HttpServletRequest request
     ) {
+        if (request.getAttribute(REQUEST_ROUTE_KEY) instanceof Route route
+                && Objects.equals(route.getPermissionIdentity(), permissionIdentity)) {
+            // 路由构建时已经解析好权限索引
+            permissionHelper.checkPermission(verifiedToken.getPayloadId(), route.getPermissionIndex());
+            return;
+        }
+        permissionHelper.checkPermission(verifiedToken.getPayloadId(), permissionIdentity);
     }
 
     /**
@@ -9,6 +9,7 @@ import cn.hamm.airpower.core.constant.HttpConstant;
 import cn.hamm.airpower.curd.annotation.DisableRequestLog;
 import cn.hamm.airpower.curd.annotation.DisableResponseLog;
 import cn.hamm.airpower.curd.base.CurdController;
+import cn.hamm.airpower.curd.helper.RequestLogHelper;
 import cn.hamm.airpower.curd.model.query.QueryPageResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +29,7 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
 import org.springframework.web.util.ContentCachingRequestWrapper;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
@@ -46,6 +48,9 @@ public class CurdResponseInterceptor implements ResponseBodyAdvice<Object> {
     @Autowired
     private ApiConfig apiConfig;
 
+    @Autowired
+    private RequestLogHelper requestLogHelper;
+
     /**
      * 是否支持
      *
@@ -94,49 +99,55 @@ public class CurdResponseInterceptor implements ResponseBodyAdvice<Object> {
             String traceId = TraceUtil.getTraceId();
             response.getHeaders().set(HttpConstant.Header.TRACE_ID, traceId);
         }
-        printRequestLog(method, request);
-        printResponseLog(method, Json.toString(responseResult));
+        printLog(method, request, responseResult);
         return responseResult;
     }
 
     /**
-     * 打印响应日志
+     * 打印请求和响应日志
      *
      * @param method         请求的方法
+     * @param request        请求
      * @param responseResult 响应的包体
+     * @apiNote 仅在日志确实需要输出时才会序列化包体
      */
-    private void printResponseLog(Method method, String responseResult) {
-        if (!apiConfig.getResponseLog()) {
+    private void printLog(Method method, @NotNull ServerHttpRequest request, Object responseResult) {
+        boolean isRequestLog = apiConfig.getRequestLog() && !isLogDisabled(DisableRequestLog.class, method);
+        boolean isResponseLog = apiConfig.getResponseLog() && !isLogDisabled(DisableResponseLog.class, method);
+        if (!isRequestLog && !isResponseLog) {
             return;
         }
-        if (method != null) {
-            DisableResponseLog disableResponseLog = ReflectUtil.getAnnotation(DisableResponseLog.class, method);
-            if (Objects.nonNull(disableResponseLog) && disableResponseLog.value()) {
-                // 禁用日志
-                return;
-            }
+        HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+        if (!requestLogHelper.isSampled(servletRequest)) {
+            return;
+        }
+        if (isRequestLog) {
+            requestLogHelper.append("请求包体 {}", () -> getRequestBody(servletRequest));
+        }
+        if (isResponseLog) {
+            requestLogHelper.append("响应包体 {}", () -> Json.toString(responseResult));
         }
-        log.info("响应包体 {}", responseResult);
     }
 
     /**
-     * 打印请求日志
+     * 判断方法是否禁用了日志
      *
-     * @param method  请求的方法
-     * @param request 请求
+     * @param annotationClass 禁用日志的注解类
+     * @param method          请求的方法
+     * @return 是否禁用
      */
-    private void printRequestLog(Method method, @NotNull ServerHttpRequest request) {
-        if (!apiConfig.getRequestLog()) {
-            return;
+    private boolean isLogDisabled(Class<? extends Annotation> annotationClass, Method method) {
+        if (Objects.isNull(method)) {
+            return false;
         }
-        if (method != null) {
-            DisableRequestLog disableRequestLog = ReflectUtil.getAnnotation(DisableRequestLog.class, method);
-            if (Objects.nonNull(disableRequestLog) && disableRequestLog.value()) {
-                // 禁用日志
-                return;
-            }
+        Annotation annotation = ReflectUtil.getAnnotation(annotationClass, method);
+        if (annotation instanceof DisableRequestLog disableRequestLog) {
+            return disableRequestLog.value();
+        }
+        if (annotation instanceof DisableResponseLog disableResponseLog) {
+            return disableResponseLog.value();
         }
-        log.info("请求包体 {}", getRequestBody(((ServletServerHttpRequest) request).getServletRequest()));
+        return false;
     }
 
     /**
@@ -1,7 +1,9 @@
 package cn.hamm.airpower.curd.interceptor.filter;
 
 import cn.hamm.airpower.api.RequestUtil;
+import cn.hamm.airpower.api.config.ApiConfig;
 import cn.hamm.airpower.core.enums.HttpMethod;
+import cn.hamm.airpower.curd.helper.RequestLogHelper;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletRequest;
@@ -9,6 +11,7 @@ import jakarta.servlet.ServletResponse;
 import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.util.ContentCachingRequestWrapper;
 
 /**
@@ -19,6 +22,12 @@ import org.springframework.web.util.ContentCachingRequestWrapper;
 @WebFilter
 @Slf4j
 public class RequestFilter implements Filter {
+    @Autowired
+    private ApiConfig apiConfig;
+
+    @Autowired
+    private RequestLogHelper requestLogHelper;
+
     /**
      * 过滤器
      *
@@ -34,9 +43,13 @@ public class RequestFilter implements Filter {
             // 仅对POST、PUT等有body的请求做缓存，可根据需求调整
             HttpServletRequest httpRequest = (HttpServletRequest) servletRequest;
             String method = httpRequest.getMethod();
-            if (HttpMethod.POST.name().equals(method) && !RequestUtil.isUploadRequest(servletRequest)) {
-                // 包装请求，缓存请求体
-                ContentCachingRequestWrapper wrappedRequest = new ContentCachingRequestWrapper(httpRequest);
+            if (HttpMethod.POST.name().equals(method) && !RequestUtil.isUploadRequest(servletRequest)
+                    && apiConfig.getRequestLog() && requestLogHelper.isSampled(httpRequest)) {
+                // 仅在请求日志需要输出时包装请求，缓存请求体
+                int maxLength = apiConfig.getLogMaxBodyLength();
+                ContentCachingRequestWrapper wrappedRequest = maxLength > 0 ?
+                        new ContentCachingRequestWrapper(httpRequest, maxLength) :
+                        new ContentCachingRequestWrapper(httpRequest);
                 filterChain.doFilter(wrappedRequest, servletResponse);
                 return;
             }
@@ -0,0 +1,50 @@
+package cn.hamm.airpower.curd.model;
+
+import cn.hamm.airpower.curd.base.Curd;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+
+/**
+ * <h1>路由</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 启动时解析完成，运行期只读
+ */
+@Getter
+@AllArgsConstructor
+public class Route {
+    /**
+     * 控制器类
+     */
+    private final Class<?> controllerClass;
+
+    /**
+     * 执行方法
+     */
+    private final Method method;
+
+    /**
+     * 需要的访问权限
+     */
+    private final Access access;
+
+    /**
+     * 权限标识
+     */
+    private final String permissionIdentity;
+
+    /**
+     * 控制器可用的增删改查接口
+     */
+    private final Set<Curd> curdSet;
+
+    /**
+     * 权限索引
+     *
+     * @apiNote 不需要授权的路由为 <code>-1</code>
+     */
+    private final int permissionIndex;
+}
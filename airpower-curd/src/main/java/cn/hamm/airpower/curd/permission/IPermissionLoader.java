@@ -0,0 +1,23 @@
+package cn.hamm.airpower.curd.permission;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+
+/**
+ * <h1>用户权限加载接口</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 实现此接口并注册为 Bean 后，将启用内置的权限缓存，仅在缓存失效时才会调用此接口
+ * @see cn.hamm.airpower.curd.helper.PermissionHelper
+ */
+public interface IPermissionLoader {
+    /**
+     * 加载用户拥有的权限标识
+     *
+     * @param userId 用户 ID
+     * @return 权限标识列表
+     * @apiNote 权限标识与 {@link PermissionUtil#scanPermission} 扫描出的标识一致
+     */
+    @NotNull Collection<String> loadPermissionIdentities(long userId);
+}
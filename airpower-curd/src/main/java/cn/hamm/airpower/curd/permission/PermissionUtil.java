@@ -1,22 +1,15 @@
 package cn.hamm.airpower.curd.permission;
 
 import cn.hamm.airpower.api.annotation.Api;
-import cn.hamm.airpower.core.DictionaryUtil;
 import cn.hamm.airpower.core.ReflectUtil;
 import cn.hamm.airpower.curd.base.Curd;
+import cn.hamm.airpower.curd.base.CurdUtil;
 import cn.hamm.airpower.curd.model.Access;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
-import org.springframework.core.io.support.ResourcePatternResolver;
-import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
-import org.springframework.core.type.classreading.MetadataReader;
-import org.springframework.core.type.classreading.MetadataReaderFactory;
-import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -26,9 +19,9 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 import static cn.hamm.airpower.exception.Errors.PARAM_MISSING;
-import static org.springframework.core.io.support.ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX;
 
 /**
  * <h1>权限处理工具类</h1>
@@ -118,26 +111,11 @@ public class PermissionUtil {
             String packageName, Class<P> permissionClass
     ) {
         List<P> permissions = new ArrayList<>();
+        List<Class<?>> classList = CurdUtil.scanClass(packageName, CurdUtil.INDEX_CONTROLLER, CONTROLLER,
+                clazz -> Objects.nonNull(clazz.getAnnotation(Api.class))
+        );
         try {
-            ResourcePatternResolver resourcePatternResolver = new PathMatchingResourcePatternResolver();
-            String pattern = CLASSPATH_ALL_URL_PREFIX +
-                    ClassUtils.convertClassNameToResourcePath(packageName) + "/**/*" + CONTROLLER + ".class";
-            Resource[] resources = resourcePatternResolver.getResources(pattern);
-            MetadataReaderFactory metadataReaderFactory = new CachingMetadataReaderFactory(resourcePatternResolver);
-
-            for (Resource resource : resources) {
-                // 用于读取类信息
-                MetadataReader metadataReader = metadataReaderFactory.getMetadataReader(resource);
-                // 扫描到的类
-                String className = metadataReader.getClassMetadata().getClassName();
-                Class<?> clazz = Class.forName(className);
-
-                Api api = clazz.getAnnotation(Api.class);
-                if (Objects.isNull(api)) {
-                    // 不是 Rest 控制器或者是指定的几个白名单控制器
-                    continue;
-                }
-
+            for (Class<?> clazz : classList) {
                 String customClassName = ReflectUtil.getDescription(clazz);
                 String identity = clazz.getSimpleName().replace(CONTROLLER, "");
                 P permission = permissionClass.getConstructor().newInstance();
@@ -150,14 +128,11 @@ public class PermissionUtil {
                 Method[] methods = clazz.getMethods();
 
                 // 取出控制器类上的Extends注解 如自己没标 则使用父类的
-                List<Curd> curdList = Curd.getCurdList(clazz);
+                Set<Curd> curdSet = Curd.getCurdSet(clazz);
                 for (Method method : methods) {
-                    try {
-                        Curd current = DictionaryUtil.getDictionary(Curd.class, Curd::getMethodName, method.getName());
-                        if (!curdList.contains(current)) {
-                            continue;
-                        }
-                    } catch (Exception ignored) {
+                    Curd current = Curd.getByMethodName(method.getName());
+                    if (Objects.nonNull(current) && !curdSet.contains(current)) {
+                        continue;
                     }
                     String subIdentity = getMethodPermissionIdentity(method);
                     if (Objects.isNull(subIdentity)) {
@@ -0,0 +1,289 @@
+package cn.hamm.airpower.curd.helper;
+
+import cn.hamm.airpower.redis.RedisConfig;
+import cn.hamm.airpower.redis.RedisHelper;
+import jakarta.annotation.PreDestroy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import redis.clients.jedis.Jedis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * <h1>号段 ID 集成测试</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 连接 {@code airpower.test.redis.host}、{@code airpower.test.redis.port} 指定的 Redis，默认 {@code localhost:6379}，
+ * 不可用时跳过；另一个节点由容器另行创建的 {@link SegmentIdHelper} 模拟
+ */
+@SpringJUnitConfig(SegmentIdHelperTest.TestConfig.class)
+@EnabledIf("cn.hamm.airpower.curd.helper.SegmentIdHelperTest#isRedisAvailable")
+class SegmentIdHelperTest {
+    /**
+     * Redis 地址
+     */
+    private static final String HOST = System.getProperty("airpower.test.redis.host", "localhost");
+
+    /**
+     * Redis 端口
+     */
+    private static final int PORT = Integer.getInteger("airpower.test.redis.port", 6379);
+
+    /**
+     * 每次 {@code SCAN} 和 {@code UNLINK} 的数量
+     */
+    private static final int SCAN_COUNT = 500;
+
+    /**
+     * 号段长度
+     */
+    private static final int STEP = 10;
+
+    /**
+     * 每个线程分配的 ID 数量
+     */
+    private static final int COUNT_PER_THREAD = 500;
+
+    /**
+     * 线程数量
+     */
+    private static final int THREAD_COUNT = 4;
+
+    @Autowired
+    private SegmentIdHelper segmentIdHelper;
+
+    @Autowired
+    private RedisConfig redisConfig;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    /**
+     * 另一个节点
+     */
+    private SegmentIdHelper otherNode;
+
+    /**
+     * Redis 是否可用
+     *
+     * @return 是否可用
+     */
+    static boolean isRedisAvailable() {
+        try (Jedis jedis = new Jedis(HOST, PORT, 500)) {
+            return "PONG".equalsIgnoreCase(jedis.ping());
+        } catch (Exception exception) {
+            return false;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        otherNode = beanFactory.createBean(SegmentIdHelper.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        beanFactory.destroyBean(otherNode);
+    }
+
+    @Test
+    void idsAreUniqueAcrossThreadsAndNodes() throws Exception {
+        final String name = newName();
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT * 2);
+        try {
+            List<Future<List<Long>>> futureList = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                futureList.add(executor.submit(() -> nextIds(segmentIdHelper, name, 0, COUNT_PER_THREAD)));
+                futureList.add(executor.submit(() -> nextIds(otherNode, name, 0, COUNT_PER_THREAD)));
+            }
+            Set<Long> idSet = new HashSet<>();
+            for (Future<List<Long>> future : futureList) {
+                for (long id : future.get(30, TimeUnit.SECONDS)) {
+                    assertTrue(idSet.add(id), "ID 重复: " + id);
+                }
+            }
+            assertEquals(THREAD_COUNT * 2 * COUNT_PER_THREAD, idSet.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void firstIdIsAboveSeed() {
+        final String name = newName();
+        final long seed = 100_000;
+        assertTrue(segmentIdHelper.nextId(name, STEP, () -> seed) > seed);
+        assertTrue(otherNode.nextId(name, STEP, () -> seed) > seed);
+    }
+
+    @Test
+    void lostCounterDoesNotReuseLeasedIds() {
+        final String name = newName();
+        long max = Collections.max(nextIds(segmentIdHelper, name, 0, STEP * 3 + 5));
+        deleteCounter(name);
+
+        // 表中没有数据时下限为 0，仍不能分配本节点租到过的 ID
+        for (long id : nextIds(segmentIdHelper, name, 0, STEP * 5)) {
+            assertTrue(id > max, "计数丢失后分配了旧 ID: " + id);
+        }
+    }
+
+    @Test
+    void lostCounterIsReseededFromTable() {
+        final String name = newName();
+        nextIds(segmentIdHelper, name, 0, STEP);
+        deleteCounter(name);
+
+        // 旧号段和预取的号段用完后应按表中最大 ID 重新租用
+        final long seed = 1_000_000;
+        List<Long> idList = nextIds(segmentIdHelper, name, seed, STEP * 3);
+        assertTrue(idList.get(idList.size() - 1) > seed);
+        assertTrue(otherNode.nextId(name, STEP, () -> seed) > seed);
+    }
+
+    @Test
+    void failedLeaseFallsBackToSnowflake() {
+        // 号段耗尽时租用失败，使用独立的节点，避免退避影响其他测试
+        long fallback = otherNode.nextId(newName(), STEP, () -> SegmentIdHelper.SEGMENT_MAX_ID);
+        assertTrue(fallback > SegmentIdHelper.SEGMENT_MAX_ID);
+
+        // 退避期内不再访问 Redis，种子也不会被读取
+        long id = otherNode.nextId(newName(), STEP, () -> {
+            throw new IllegalStateException("退避期内不应租用号段");
+        });
+        assertTrue(id > SegmentIdHelper.SEGMENT_MAX_ID);
+    }
+
+    /**
+     * 连续分配 ID
+     *
+     * @param helper 号段 ID 助手
+     * @param name   号段名称
+     * @param seed   下限
+     * @param count  数量
+     * @return ID 列表
+     */
+    private List<Long> nextIds(SegmentIdHelper helper, String name, long seed, int count) {
+        List<Long> idList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            idList.add(helper.nextId(name, STEP, () -> seed));
+        }
+        return idList;
+    }
+
+    /**
+     * 删除 Redis 中的计数，模拟淘汰或主从切换
+     *
+     * @param name 号段名称
+     */
+    private void deleteCounter(String name) {
+        redisTemplate.delete(redisConfig.getPrefix() + "ID_SEGMENT_" + name);
+    }
+
+    /**
+     * 生成不重复的号段名称
+     *
+     * @return 名称
+     */
+    private String newName() {
+        return "test_" + UUID.randomUUID();
+    }
+
+    /**
+     * 测试配置
+     */
+    @Configuration
+    @Import(SegmentIdHelper.class)
+    static class TestConfig {
+        @Autowired
+        private RedisConfig redisConfig;
+
+        @Autowired
+        private RedisTemplate<String, Object> redisTemplate;
+
+        @Bean
+        public RedisConfig redisConfig() {
+            RedisConfig config = new RedisConfig();
+            config.setPrefix("airpower-test:" + UUID.randomUUID() + ":");
+            return config;
+        }
+
+        @Bean
+        public JedisConnectionFactory redisConnectionFactory() {
+            return new JedisConnectionFactory(new RedisStandaloneConfiguration(HOST, PORT));
+        }
+
+        @Bean
+        public RedisTemplate<String, Object> redisTemplate(JedisConnectionFactory redisConnectionFactory) {
+            RedisTemplate<String, Object> template = new RedisTemplate<>();
+            template.setConnectionFactory(redisConnectionFactory);
+            template.setKeySerializer(new StringRedisSerializer());
+            template.setValueSerializer(new StringRedisSerializer());
+            return template;
+        }
+
+        @Bean
+        public RedisHelper redisHelper(RedisTemplate<String, Object> redisTemplate) {
+            RedisHelper redisHelper = mock(RedisHelper.class);
+            when(redisHelper.getRedisTemplate()).thenReturn(redisTemplate);
+            return redisHelper;
+        }
+
+        /**
+         * 删除本次运行的 key
+         *
+         * @apiNote 使用 {@code SCAN} 遍历并以 {@code UNLINK} 分批删除，不使用会阻塞 Redis 的 {@code KEYS}
+         */
+        @PreDestroy
+        public void cleanup() {
+            ScanOptions options = ScanOptions.scanOptions().match(redisConfig.getPrefix() + "*").count(SCAN_COUNT).build();
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                List<byte[]> batch = new ArrayList<>(SCAN_COUNT);
+                try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                    while (cursor.hasNext()) {
+                        batch.add(cursor.next());
+                        if (batch.size() >= SCAN_COUNT) {
+                            connection.keyCommands().unlink(batch.toArray(byte[][]::new));
+                            batch.clear();
+                        }
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    connection.keyCommands().unlink(batch.toArray(byte[][]::new));
+                }
+                return null;
+            });
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package cn.hamm.airpower.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * <h1>类索引注解处理器</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 编译期将实体与控制器写入 {@link #INDEX_LOCATION}，运行时扫描实体和权限时直接读取索引，不再扫描类路径；
+ * 项目配置了 {@code annotationProcessorPaths} 时需要将本模块一并加入
+ */
+@SupportedAnnotationTypes("*")
+public class IndexProcessor extends AbstractProcessor {
+    /**
+     * 索引文件位置
+     */
+    public static final String INDEX_LOCATION = "META-INF/airpower.index";
+
+    /**
+     * 实体的索引类型
+     */
+    public static final String TYPE_ENTITY = "entity";
+
+    /**
+     * 控制器的索引类型
+     */
+    public static final String TYPE_CONTROLLER = "controller";
+
+    /**
+     * 实体注解
+     */
+    private static final String ENTITY_ANNOTATION = "jakarta.persistence.Entity";
+
+    /**
+     * 控制器注解
+     */
+    private static final String API_ANNOTATION = "cn.hamm.airpower.api.annotation.Api";
+
+    /**
+     * 索引分隔符
+     */
+    private static final String SEPARATOR = "=";
+
+    /**
+     * 本次编译收集到的索引
+     */
+    private final Set<String> indexLines = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+        for (Element element : roundEnv.getRootElements()) {
+            collect(element);
+        }
+        return false;
+    }
+
+    /**
+     * 收集类及其内部类的索引
+     *
+     * @param element 元素
+     * @apiNote {@code Api} 注解可被继承，所以需要读取包含父类在内的全部注解
+     */
+    private void collect(Element element) {
+        if (element.getKind() == ElementKind.CLASS) {
+            TypeElement typeElement = (TypeElement) element;
+            String className = processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+            for (AnnotationMirror mirror : processingEnv.getElementUtils().getAllAnnotationMirrors(typeElement)) {
+                String annotationName = ((TypeElement) mirror.getAnnotationType().asElement())
+                        .getQualifiedName().toString();
+                if (ENTITY_ANNOTATION.equals(annotationName)) {
+                    indexLines.add(TYPE_ENTITY + SEPARATOR + className);
+                } else if (API_ANNOTATION.equals(annotationName)) {
+                    indexLines.add(TYPE_CONTROLLER + SEPARATOR + className);
+                }
+            }
+        }
+        for (Element enclosed : element.getEnclosedElements()) {
+            if (enclosed.getKind().isClass()) {
+                collect(enclosed);
+            }
+        }
+    }
+
+    /**
+     * 写入索引文件
+     *
+     * @apiNote 增量编译时只会处理变化的类，所以需要合并已有的索引；已删除的类由运行时忽略
+     */
+    private void writeIndex() {
+        if (indexLines.isEmpty()) {
+            return;
+        }
+        Set<String> lines = new TreeSet<>(indexLines);
+        try {
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    existing.openInputStream(), StandardCharsets.UTF_8
+            ))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.contains(SEPARATOR)) {
+                        lines.add(line.trim());
+                    }
+                }
+            }
+        } catch (IOException ignored) {
+            // 首次编译时索引不存在
+        }
+        try {
+            FileObject fileObject = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            try (Writer writer = new OutputStreamWriter(fileObject.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException exception) {
+            processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.WARNING, "写入 AirPower 索引失败: " + exception.getMessage()
+            );
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package cn.hamm.airpower.redis;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * <h1>舱壁</h1>
+ *
+ * <li>限制集群内同时执行被标记方法的数量，适用于导出、AI 调用、报表等耗资源的任务</li>
+ * <li>超过等待时间仍未获取到许可时抛出系统繁忙</li>
+ * <li>名称相同的方法共享同一组许可</li>
+ *
+ * @author Hamm.cn
+ * @see BulkheadAspect
+ * @see RedisSemaphoreHelper
+ */
+@Target(METHOD)
+@Retention(RUNTIME)
+@Documented
+public @interface Bulkhead {
+    /**
+     * 许可总数
+     */
+    int value();
+
+    /**
+     * 名称
+     *
+     * @apiNote 默认为 {@code 类名.方法名}
+     */
+    String name() default "";
+
+    /**
+     * 最长等待时间(毫秒)
+     *
+     * @apiNote 默认为 {@code 0}，立即失败
+     */
+    long timeout() default 0;
+}
@@ -0,0 +1,52 @@
+package cn.hamm.airpower.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * <h1>舱壁切面</h1>
+ *
+ * @author Hamm.cn
+ */
+@Slf4j
+@Aspect
+@Component
+public class BulkheadAspect {
+    /**
+     * 舱壁信号量的前缀
+     */
+    private static final String BULKHEAD_PREFIX = "BULKHEAD_";
+
+    @Autowired
+    private RedisSemaphoreHelper redisSemaphoreHelper;
+
+    /**
+     * 舱壁切面
+     */
+    @Around("@annotation(bulkhead)")
+    public Object bulkhead(@NotNull ProceedingJoinPoint proceedingJoinPoint, @NotNull Bulkhead bulkhead)
+            throws Throwable {
+        String name = bulkhead.name();
+        if (!StringUtils.hasText(name)) {
+            Method method = ((MethodSignature) proceedingJoinPoint.getSignature()).getMethod();
+            name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        }
+        RedisSemaphoreHelper.Permit permit = redisSemaphoreHelper.acquire(
+                BULKHEAD_PREFIX + name, bulkhead.value(), bulkhead.timeout()
+        );
+        try {
+            return proceedingJoinPoint.proceed();
+        } finally {
+            redisSemaphoreHelper.release(permit);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package cn.hamm.airpower.redis;
+
+/**
+ * <h1>锁模式</h1>
+ *
+ * @author Hamm.cn
+ */
+public enum LockMode {
+    /**
+     * 读锁
+     *
+     * @apiNote 多个读锁可以同时持有，与写锁互斥
+     */
+    READ,
+
+    /**
+     * 写锁
+     *
+     * @apiNote 与所有锁互斥，同一线程可重入
+     */
+    WRITE,
+}
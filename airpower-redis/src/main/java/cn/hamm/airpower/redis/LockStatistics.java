@@ -0,0 +1,69 @@
+package cn.hamm.airpower.redis;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * <h1>锁统计</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 当前节点自启动以来的统计快照，时间单位均为毫秒
+ */
+@Data
+@Accessors(chain = true)
+public class LockStatistics {
+    /**
+     * 获取成功次数
+     */
+    private long acquireCount;
+
+    /**
+     * 获取超时次数
+     */
+    private long timeoutCount;
+
+    /**
+     * 释放次数
+     */
+    private long releaseCount;
+
+    /**
+     * 平均等待时间
+     */
+    private long averageWaitMillisecond;
+
+    /**
+     * 最长等待时间
+     */
+    private long maxWaitMillisecond;
+
+    /**
+     * 平均持有时间
+     */
+    private long averageHoldMillisecond;
+
+    /**
+     * 最长持有时间
+     */
+    private long maxHoldMillisecond;
+
+    /**
+     * 当前持有的锁数量
+     */
+    private long holdingCount;
+
+    /**
+     * 当前等待的锁数量
+     */
+    private long waitingCount;
+
+    /**
+     * 续期次数
+     */
+    private long renewCount;
+
+    /**
+     * 续期失败次数
+     */
+    private long renewFailureCount;
+}
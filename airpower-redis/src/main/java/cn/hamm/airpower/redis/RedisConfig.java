@@ -1,10 +1,18 @@
 package cn.hamm.airpower.redis;
 
 import cn.hamm.airpower.core.DateTimeUtil;
+import cn.hamm.airpower.redis.cache.NearCacheConfig;
+import cn.hamm.airpower.redis.codec.IRedisCodec;
+import cn.hamm.airpower.redis.codec.JsonRedisCodec;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * <h1>Redis 配置文件</h1>
  *
@@ -35,4 +43,121 @@ public class RedisConfig {
      * @apiNote 单位毫秒
      */
     private Integer lockTimeout = 60 * 1000;
+
+    /**
+     * 是否启用锁的自动续期
+     *
+     * @apiNote 启用后持有锁期间每隔三分之一的过期时间续期一次，进程崩溃后锁在过期时间后自动释放
+     */
+    private Boolean lockWatchdog = true;
+
+    /**
+     * 等待锁时单次等待的最长时间
+     *
+     * @apiNote 单位毫秒，释放通知丢失时最多在此时间后重试
+     */
+    private long lockWaitSliceMillisecond = 1000;
+
+    /**
+     * 实体缓存的压缩阈值
+     *
+     * @apiNote 单位字节，仅对 {@code @RedisCodec(compress = true)} 的实体生效
+     */
+    private int codecCompressThreshold = 1024;
+
+    /**
+     * Spring Cache 使用的编解码器
+     */
+    private Class<? extends IRedisCodec> cacheCodec = JsonRedisCodec.class;
+
+    /**
+     * Spring Cache 允许反序列化的类型所在包
+     *
+     * @apiNote 仅对 CBOR、Smile 编解码器生效；{@code java.*}、框架和应用所在包始终允许，
+     * 缓存其他包中的类型时需要在此配置
+     */
+    private List<String> cacheTypePackages = new ArrayList<>();
+
+    /**
+     * Spring Cache 是否在超过阈值后压缩
+     */
+    private Boolean cacheCompress = false;
+
+    /**
+     * 启用本地缓存的 key 前缀
+     *
+     * @apiNote 前缀不含 {@link #prefix}，如 {@code airpower.redis.near-cache-key-prefixes.CONFIG_.max-size=500}
+     */
+    private Map<String, NearCacheConfig> nearCacheKeyPrefixes = new HashMap<>();
+
+    /**
+     * 启用本地缓存的 Spring Cache 名称
+     */
+    private Map<String, NearCacheConfig> nearCacheNames = new HashMap<>();
+
+    /**
+     * Spring Cache 的默认缓存时间
+     *
+     * @apiNote 单位秒
+     */
+    private long cacheTtlSecond = 10 * DateTimeUtil.SECOND_PER_MINUTE;
+
+    /**
+     * 按缓存名称配置的 Spring Cache 缓存时间
+     *
+     * @apiNote 单位秒，未配置的缓存使用 {@link #cacheTtlSecond}
+     */
+    private Map<String, Long> cacheTtlSeconds = new HashMap<>();
+
+    /**
+     * Spring Cache 缓存时间的随机抖动比例
+     *
+     * @apiNote 如 {@code 0.1} 表示在缓存时间的基础上随机增减 10%，避免同时过期
+     */
+    private double cacheTtlJitterRatio = 0.1;
+
+    /**
+     * Spring Cache 提前刷新的系数
+     *
+     * @apiNote 越大越早刷新，{@code 0} 表示不提前刷新
+     */
+    private double cacheEarlyRefreshBeta = 1;
+
+    /**
+     * Spring Cache 跨节点加载锁的超时时间
+     *
+     * @apiNote 单位毫秒
+     */
+    private int cacheLoadLockMillisecond = 10 * 1000;
+
+    /**
+     * 命名空间代数的本地缓存时间
+     *
+     * @apiNote 单位毫秒，变更通知丢失时最多在这段时间内读取到旧代数
+     */
+    private long namespaceRefreshMillisecond = 10 * 1000;
+
+    /**
+     * 每次 {@code SCAN} 和 {@code UNLINK} 的数量
+     */
+    private int scanCount = 500;
+
+    /**
+     * 信号量许可的租期
+     *
+     * @apiNote 单位毫秒，持有期间由看门狗续期，节点宕机后最多经过一个租期回收
+     */
+    private long semaphoreLeaseMillisecond = 30 * 1000;
+
+    /**
+     * 处理订阅消息的线程数
+     */
+    private int subscriberThreads = 4;
+
+    /**
+     * 待处理的订阅消息队列长度
+     *
+     * @apiNote 队列已满时由订阅线程直接处理，不会丢弃消息
+     */
+    private int subscriberQueueSize = 10000;
 }
@@ -1,6 +1,13 @@
 package cn.hamm.airpower.redis;
 
+import cn.hamm.airpower.core.Json;
+import cn.hamm.airpower.core.exception.ServiceException;
+import cn.hamm.airpower.redis.cache.NearCacheHelper;
+import cn.hamm.airpower.redis.cache.NearCacheManager;
+import cn.hamm.airpower.redis.cache.StampedeCacheManager;
+import cn.hamm.airpower.redis.codec.RedisCodecHelper;
 import jakarta.annotation.Resource;
+import org.jetbrains.annotations.NotNull;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
@@ -9,17 +16,22 @@ import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.cache.interceptor.SimpleCacheResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
-import java.time.Duration;
-import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.Objects;
 
+import static cn.hamm.airpower.exception.Errors.REDIS_ERROR;
+
 /**
  * <h1>Redis 配置</h1>
  *
@@ -28,12 +40,47 @@ import java.util.Objects;
 @Configuration
 @EnableCaching
 public class RedisConfigurer implements CachingConfigurer {
+    /**
+     * 缓存键的分隔符
+     */
+    private static final String KEY_SEPARATOR = ":";
+
     /**
      * 连接工厂
      */
     @Resource
     private RedisConnectionFactory redisConnectionFactory;
 
+    /**
+     * 编解码助手
+     */
+    @Resource
+    private RedisCodecHelper redisCodecHelper;
+
+    /**
+     * 本地缓存助手
+     */
+    @Resource
+    private NearCacheHelper nearCacheHelper;
+
+    /**
+     * 锁助手
+     */
+    @Resource
+    private RedisLockHelper redisLockHelper;
+
+    /**
+     * Redis 配置
+     */
+    @Resource
+    private RedisConfig redisConfig;
+
+    /**
+     * 命名空间助手
+     */
+    @Resource
+    private RedisNamespaceHelper redisNamespaceHelper;
+
     /**
      * 缓存管理器
      */
@@ -41,33 +88,57 @@ public class RedisConfigurer implements CachingConfigurer {
     @Override
     public CacheManager cacheManager() {
         RedisCacheConfiguration redisCacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(10))
+                .entryTtl(StampedeCacheManager.getTtlFunction(redisConfig))
                 .disableCachingNullValues()
+                // key 中带有缓存名称的代数，清空缓存只需增加代数
+                .computePrefixWith(cacheName -> redisConfig.getPrefix() +
+                        redisNamespaceHelper.getKeyPrefix(RedisNamespaceHelper.getCacheNamespace(cacheName))
+                )
                 .serializeKeysWith(
                         RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer())
                 )
                 .serializeValuesWith(
                         RedisSerializationContext.SerializationPair.fromSerializer(
-                                new GenericJackson2JsonRedisSerializer()
+                                redisCodecHelper.getCacheSerializer()
                         )
                 );
-        return RedisCacheManager.builder(redisConnectionFactory)
+        RedisCacheWriter redisCacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(
+                redisConnectionFactory, BatchStrategies.scan(redisConfig.getScanCount())
+        );
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisCacheWriter)
                 .cacheDefaults(redisCacheConfiguration)
                 .build();
+        // 被装饰后不再由容器初始化
+        redisCacheManager.initializeCaches();
+        return new NearCacheManager(
+                new StampedeCacheManager(redisCacheManager, redisConfig, redisLockHelper, redisNamespaceHelper),
+                nearCacheHelper
+        );
     }
 
     /**
      * 缓存键生成器
+     *
+     * @apiNote 键为 {@code 类名:方法名:参数摘要}，摘要包含完整类名、方法签名和每个参数的类型与值，
+     * 避免不同方法或参数拼接后相同导致的缓存冲突
      */
     @Bean
     @Override
     public KeyGenerator keyGenerator() {
         return (target, method, params) -> {
-            StringBuilder builder = new StringBuilder()
-                    .append(target.getClass().getName())
-                    .append(method.getName());
-            Arrays.stream(params).map(Object::toString).forEach(builder::append);
-            return builder.toString();
+            MessageDigest digest = getDigest();
+            update(digest, target.getClass().getName());
+            update(digest, method.toGenericString());
+            for (Object param : params) {
+                if (Objects.isNull(param)) {
+                    update(digest, "null");
+                    continue;
+                }
+                update(digest, param.getClass().getName());
+                update(digest, isSimpleType(param) ? param.toString() : Json.toString(param));
+            }
+            return target.getClass().getSimpleName() + KEY_SEPARATOR + method.getName() + KEY_SEPARATOR +
+                    HexFormat.of().formatHex(digest.digest());
         };
     }
 
@@ -79,4 +150,42 @@ public class RedisConfigurer implements CachingConfigurer {
     public CacheResolver cacheResolver() {
         return new SimpleCacheResolver(Objects.requireNonNull(cacheManager()));
     }
+
+    /**
+     * 获取摘要算法
+     *
+     * @return 摘要算法
+     */
+    private MessageDigest getDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new ServiceException(REDIS_ERROR, "不支持的摘要算法");
+        }
+    }
+
+    /**
+     * 写入带长度前缀的片段
+     *
+     * @param digest 摘要
+     * @param value  片段
+     * @apiNote 长度前缀保证 {@code ("ab", "c")} 和 {@code ("a", "bc")} 得到不同的摘要
+     */
+    private void update(@NotNull MessageDigest digest, @NotNull String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(String.valueOf(bytes.length).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    /**
+     * 是否为可直接使用 {@code toString} 的类型
+     *
+     * @param param 参数
+     * @return 是否简单类型
+     */
+    private boolean isSimpleType(Object param) {
+        return param instanceof CharSequence || param instanceof Number || param instanceof Boolean ||
+                param instanceof Character || param instanceof Enum<?>;
+    }
 }
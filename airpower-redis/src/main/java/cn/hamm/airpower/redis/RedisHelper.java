@@ -1,9 +1,11 @@
 package cn.hamm.airpower.redis;
 
-import cn.hamm.airpower.core.Json;
 import cn.hamm.airpower.core.RootModel;
 import cn.hamm.airpower.core.exception.ServiceException;
 import cn.hamm.airpower.core.interfaces.IEntity;
+import cn.hamm.airpower.redis.cache.LocalCache;
+import cn.hamm.airpower.redis.cache.NearCacheHelper;
+import cn.hamm.airpower.redis.codec.RedisCodecHelper;
 import jakarta.annotation.Resource;
 import lombok.Data;
 import lombok.experimental.Accessors;
@@ -12,14 +14,13 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
-import java.util.Objects;
-import java.util.Set;
-import java.util.UUID;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
 
 import static cn.hamm.airpower.exception.Errors.REDIS_ERROR;
@@ -43,6 +44,21 @@ public class RedisHelper {
     @Autowired
     private RedisConfig redisConfig;
 
+    @Autowired
+    private RedisLockHelper redisLockHelper;
+
+    @Autowired
+    private RedisCodecHelper redisCodecHelper;
+
+    @Autowired
+    private NearCacheHelper nearCacheHelper;
+
+    @Autowired
+    private RedisNamespaceHelper redisNamespaceHelper;
+
+    @Autowired
+    private RedisSemaphoreHelper redisSemaphoreHelper;
+
     /**
      * 加锁运行任务
      *
@@ -76,6 +92,72 @@ public class RedisHelper {
         runWithLock(GLOBAL_LOCK_KEY, task);
     }
 
+    /**
+     * 加读锁运行任务
+     *
+     * @param key  锁的 key
+     * @param task 任务
+     * @apiNote 持有同一个 key 读锁的任务可以在多个节点并行执行，与 {@link #runWithLock(String, Runnable)} 互斥
+     * @see #readLock(String)
+     * @see #releaseLock(Lock)
+     */
+    public final void runWithReadLock(String key, Runnable task) {
+        Lock lock = readLock(key);
+        try {
+            task.run();
+        } catch (Exception e) {
+            log.error("加读锁执行任务失败, {}", e.getMessage(), e);
+            throw e;
+        } finally {
+            releaseLock(lock);
+        }
+    }
+
+    /**
+     * 获取信号量许可后运行任务
+     *
+     * @param name    信号量名称
+     * @param permits 许可总数
+     * @param task    任务
+     * @apiNote 集群内同一个信号量最多同时运行 {@code permits} 个任务
+     * @see #acquirePermit(String, int, long)
+     * @see #releasePermit(RedisSemaphoreHelper.Permit)
+     */
+    public final void runWithPermit(String name, int permits, Runnable task) {
+        RedisSemaphoreHelper.Permit permit = acquirePermit(name, permits, redisConfig.getLockTimeout());
+        try {
+            task.run();
+        } catch (Exception e) {
+            log.error("获取许可执行任务失败, {}", e.getMessage(), e);
+            throw e;
+        } finally {
+            releasePermit(permit);
+        }
+    }
+
+    /**
+     * 获取信号量许可
+     *
+     * @param name    信号量名称
+     * @param permits 许可总数
+     * @param timeout 最长等待时间(毫秒)
+     * @return 许可
+     * @see RedisSemaphoreHelper#acquire(String, int, long)
+     */
+    public final @NotNull RedisSemaphoreHelper.Permit acquirePermit(String name, int permits, long timeout) {
+        return redisSemaphoreHelper.acquire(name, permits, timeout);
+    }
+
+    /**
+     * 释放信号量许可
+     *
+     * @param permit 许可
+     * @see RedisSemaphoreHelper#release(RedisSemaphoreHelper.Permit)
+     */
+    public final void releasePermit(@NotNull RedisSemaphoreHelper.Permit permit) {
+        redisSemaphoreHelper.release(permit);
+    }
+
     /**
      * 自增
      *
@@ -85,7 +167,9 @@ public class RedisHelper {
      */
     public final long increment(String key, long delta) {
         //noinspection DataFlowIssue
-        return getRedisTemplate().opsForValue().increment(getKey(key), delta);
+        long value = getRedisTemplate().opsForValue().increment(getKey(key), delta);
+        nearCacheHelper.invalidateKey(key);
+        return value;
     }
 
     /**
@@ -102,15 +186,11 @@ public class RedisHelper {
      * 释放锁
      *
      * @param lock 锁
+     * @apiNote 需要由获取锁的线程释放
+     * @see RedisLockHelper#release(Lock)
      */
     public final void releaseLock(@NotNull Lock lock) {
-        REDIS_ERROR.whenNull(lock, "释放锁失败，传入的锁为空");
-        final String key = lock.getKey();
-        REDIS_ERROR.whenEmpty(key, "释放锁失败，传入的锁的 key 为空");
-        REDIS_ERROR.whenEmpty(lock.getValue(), "释放锁失败，传入的锁的 value 为空");
-        if (Objects.equals(get(key), lock.getValue())) {
-            getRedisTemplate().delete(getKey(key));
-        }
+        redisLockHelper.release(lock);
     }
 
     /**
@@ -141,11 +221,7 @@ public class RedisHelper {
      * @return 锁的 key
      */
     public final @NotNull <E extends RootModel<E> & IEntity<E>> Lock lockEntity(@NotNull E entity, Integer timeout) {
-        REDIS_ERROR.whenNull(entity, "获取锁失败，传入的实体为空");
-        REDIS_ERROR.whenNull(entity.getId(), "获取锁失败，传入的实体的ID为空");
-        @SuppressWarnings("unchecked")
-        Class<E> clazz = (Class<E>) entity.getClass();
-        return lock(getCacheKey(clazz, entity.getId()), timeout);
+        return lock(getEntityLockKey(entity), timeout);
     }
 
     /**
@@ -154,29 +230,68 @@ public class RedisHelper {
      * @param key     锁的 key
      * @param timeout 锁超时时间(毫秒)
      * @return 锁的 key
+     * @apiNote 同一线程可重入
+     * @see RedisLockHelper#lock(String, int, LockMode)
      */
     public final @NotNull Lock lock(String key, Integer timeout) {
-        String value = UUID.randomUUID().toString();
-        int currentIndex = 0;
-        int step = 50;
-        while (true) {
-            currentIndex++;
-            Boolean lock = getRedisTemplate().opsForValue().setIfAbsent(getKey(key), value, timeout, TimeUnit.MILLISECONDS);
-            if (Boolean.TRUE.equals(lock)) {
-                return new Lock().setKey(key).setValue(value);
-            }
-            if (currentIndex * step >= timeout) {
-                log.error("获取锁超时，key= {}", key);
-                throw new ServiceException("系统繁忙，请稍后重试");
-            }
-            try {
-                //noinspection BusyWait
-                Thread.sleep(step);
-            } catch (InterruptedException ignored) {
-                Thread.currentThread().interrupt();
-                throw new ServiceException("获取锁被中断");
-            }
-        }
+        return redisLockHelper.lock(key, timeout, LockMode.WRITE);
+    }
+
+    /**
+     * 获取读锁
+     *
+     * @param key 锁的 key
+     * @return 锁
+     */
+    public final @NotNull Lock readLock(String key) {
+        return readLock(key, redisConfig.getLockTimeout());
+    }
+
+    /**
+     * 获取读锁
+     *
+     * @param key     锁的 key
+     * @param timeout 锁超时时间(毫秒)
+     * @return 锁
+     * @apiNote 读锁之间共享，与写锁互斥；持有读锁时不能升级为写锁
+     * @see RedisLockHelper#lock(String, int, LockMode)
+     */
+    public final @NotNull Lock readLock(String key, Integer timeout) {
+        return redisLockHelper.lock(key, timeout, LockMode.READ);
+    }
+
+    /**
+     * 获取实体的读锁
+     *
+     * @param entity 实体
+     * @return 锁
+     */
+    public final @NotNull <E extends RootModel<E> & IEntity<E>> Lock readLockEntity(@NotNull E entity) {
+        return readLockEntity(entity, redisConfig.getLockTimeout());
+    }
+
+    /**
+     * 获取实体的读锁
+     *
+     * @param entity  实体
+     * @param timeout 锁超时时间(毫秒)
+     * @return 锁
+     */
+    public final @NotNull <E extends RootModel<E> & IEntity<E>> Lock readLockEntity(@NotNull E entity, Integer timeout) {
+        return readLock(getEntityLockKey(entity), timeout);
+    }
+
+    /**
+     * 获取实体锁的 key
+     *
+     * @param entity 实体
+     * @return 锁的 key
+     */
+    private <E extends RootModel<E> & IEntity<E>> @NotNull String getEntityLockKey(E entity) {
+        REDIS_ERROR.whenNull(entity, "获取锁失败，传入的实体为空");
+        REDIS_ERROR.whenNull(entity.getId(), "获取锁失败，传入的实体的ID为空");
+        // 锁不随缓存失效，不带代数
+        return entity.getClass().getSimpleName() + "_" + entity.getId();
     }
 
     /**
@@ -209,15 +324,7 @@ public class RedisHelper {
      * @return 缓存的实体
      */
     public final @Nullable <E extends IEntity<E>> E getEntity(String key, Class<E> clazz) {
-        Object object = get(key);
-        if (Objects.isNull(object)) {
-            return null;
-        }
-        String json = object.toString();
-        if (Objects.isNull(json)) {
-            return null;
-        }
-        return Json.parse(json, clazz);
+        return redisCodecHelper.decode(getBytes(key), clazz);
     }
 
     /**
@@ -246,7 +353,7 @@ public class RedisHelper {
      */
     public final <E extends RootModel<E> & IEntity<E>> void saveEntity(@NotNull E entity, long second) {
         String cacheKey = getEntityCacheKey(entity);
-        set(cacheKey, Json.toString(entity), second);
+        setBytes(cacheKey, redisCodecHelper.encode(entity), second);
     }
 
     /**
@@ -267,7 +374,49 @@ public class RedisHelper {
      * @param second 缓存时间(秒)
      */
     public final <E extends IEntity<E>> void saveEntity(String key, E entity, long second) {
-        set(key, Json.toString(entity), second);
+        setBytes(key, redisCodecHelper.encode(entity), second);
+    }
+
+    /**
+     * 批量从缓存中获取实体
+     *
+     * @param entityClass 实体类
+     * @param ids         ID 列表
+     * @return 实体列表，与传入的 ID 顺序一致，未缓存的位置为 {@code null}
+     * @apiNote 默认使用内置的 key 规则，一次 {@code MGET} 完成
+     */
+    public final @NotNull <E extends RootModel<E> & IEntity<E>> List<E> getEntities(
+            Class<E> entityClass, @NotNull Collection<Long> ids
+    ) {
+        List<String> keys = ids.stream().map(id -> getCacheKey(entityClass, id)).toList();
+        List<byte[]> values = multiGetBytes(keys);
+        List<E> entities = new ArrayList<>(values.size());
+        for (byte[] value : values) {
+            entities.add(redisCodecHelper.decode(value, entityClass));
+        }
+        return entities;
+    }
+
+    /**
+     * 批量缓存实体
+     *
+     * @param entities 实体列表
+     */
+    public final <E extends RootModel<E> & IEntity<E>> void saveEntities(@NotNull Collection<E> entities) {
+        saveEntities(entities, redisConfig.getCacheExpireSecond());
+    }
+
+    /**
+     * 批量缓存实体
+     *
+     * @param entities 实体列表
+     * @param second   缓存时间(秒)
+     * @apiNote 默认使用内置的 key 规则，通过管道一次发送
+     */
+    public final <E extends RootModel<E> & IEntity<E>> void saveEntities(@NotNull Collection<E> entities, long second) {
+        Map<String, byte[]> map = new LinkedHashMap<>();
+        entities.forEach(entity -> map.put(getEntityCacheKey(entity), redisCodecHelper.encode(entity)));
+        multiSetBytes(map, second);
     }
 
     /**
@@ -287,15 +436,33 @@ public class RedisHelper {
         }
     }
 
+    /**
+     * 使实体类的所有缓存失效
+     *
+     * @param entityClass 实体类
+     * @apiNote 只增加一次代数，旧缓存在后台回收
+     * @see RedisNamespaceHelper#invalidate(String)
+     */
+    public final <E extends RootModel<E> & IEntity<E>> void deleteEntities(@NotNull Class<E> entityClass) {
+        try {
+            redisNamespaceHelper.invalidate(entityClass.getSimpleName());
+        } catch (Exception e) {
+            log.error(REDIS_ERROR.getMessage(), e);
+            throw new ServiceException(REDIS_ERROR);
+        }
+    }
+
     /**
      * 删除所有满足条件的数据
      *
      * @param pattern 正则
+     * @apiNote 以 {@code SCAN} 和 {@code UNLINK} 分批删除，不阻塞 Redis；命名空间的代数哈希不会被删除；
+     * 需要清空实体缓存时请使用 {@link #deleteEntities(Class)}
      */
     public final void clearAll(String pattern) {
         try {
-            Set<String> keys = getRedisTemplate().keys(pattern);
-            getRedisTemplate().delete(keys);
+            redisNamespaceHelper.unlink(pattern, key -> !redisNamespaceHelper.isGenerationKey(key));
+            nearCacheHelper.invalidateAllKeys();
         } catch (Exception e) {
             log.error(REDIS_ERROR.getMessage(), e);
             throw new ServiceException(REDIS_ERROR);
@@ -339,6 +506,7 @@ public class RedisHelper {
     public final void delete(String key) {
         try {
             getRedisTemplate().delete(getKey(key));
+            nearCacheHelper.invalidateKey(key);
         } catch (Exception e) {
             log.error(REDIS_ERROR.getMessage(), e);
             throw new ServiceException(REDIS_ERROR);
@@ -352,8 +520,174 @@ public class RedisHelper {
      * @return 值
      */
     public final @Nullable Object get(String key) {
+        byte[] bytes = getBytes(key);
+        return Objects.isNull(bytes) ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 批量获取缓存
+     *
+     * @param keys 缓存的 Key 列表
+     * @return 值列表，与传入的 Key 顺序一致，不存在的位置为 {@code null}
+     */
+    public final @NotNull List<Object> multiGet(@NotNull Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Object> values = new ArrayList<>(keys.size());
+        for (byte[] bytes : multiGetBytes(keys)) {
+            values.add(Objects.isNull(bytes) ? null : new String(bytes, StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+
+    /**
+     * 批量缓存放入
+     *
+     * @param map 缓存的 Key 与值
+     */
+    public final void multiSet(@NotNull Map<String, ?> map) {
+        multiSet(map, redisConfig.getCacheExpireSecond());
+    }
+
+    /**
+     * 批量缓存放入并设置时间
+     *
+     * @param map    缓存的 Key 与值
+     * @param second 缓存时间(秒)
+     * @apiNote 通过管道发送 {@code SETEX}，如果time小于等于0 将使用默认的缓存时间
+     */
+    public final void multiSet(@NotNull Map<String, ?> map, long second) {
+        Map<String, byte[]> bytesMap = new LinkedHashMap<>();
+        map.forEach((key, value) -> bytesMap.put(key, value.toString().getBytes(StandardCharsets.UTF_8)));
+        multiSetBytes(bytesMap, second);
+    }
+
+    /**
+     * 获取缓存的原始字节
+     *
+     * @param key 缓存的 Key
+     * @return 字节
+     */
+    private byte @Nullable [] getBytes(String key) {
+        LocalCache<byte[]> localCache = nearCacheHelper.getKeyCache(key);
+        if (Objects.nonNull(localCache)) {
+            byte[] cached = localCache.get(key);
+            if (Objects.nonNull(cached)) {
+                return cached;
+            }
+        }
+        try {
+            long version = Objects.isNull(localCache) ? 0 : localCache.getVersion(key);
+            byte[] bytes = getRedisTemplate().execute((RedisCallback<byte[]>) connection ->
+                    connection.stringCommands().get(getKey(key).getBytes(StandardCharsets.UTF_8))
+            );
+            if (Objects.nonNull(localCache)) {
+                localCache.put(key, bytes, version);
+            }
+            return bytes;
+        } catch (Exception e) {
+            log.error(REDIS_ERROR.getMessage(), e);
+            throw new ServiceException(REDIS_ERROR);
+        }
+    }
+
+    /**
+     * 批量获取缓存的原始字节
+     *
+     * @param keys 缓存的 Key 列表
+     * @return 字节列表，与传入的 Key 顺序一致
+     */
+    private @NotNull List<byte[]> multiGetBytes(@NotNull Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> keyList = new ArrayList<>(keys);
+        List<byte[]> values = new ArrayList<>(Collections.nCopies(keyList.size(), null));
+        // 先读本地缓存，只向 Redis 请求未命中的部分
+        List<Integer> missIndexList = new ArrayList<>();
+        List<LocalCache<byte[]>> localCacheList = new ArrayList<>();
+        List<Long> versionList = new ArrayList<>();
+        for (int index = 0; index < keyList.size(); index++) {
+            LocalCache<byte[]> localCache = nearCacheHelper.getKeyCache(keyList.get(index));
+            if (Objects.nonNull(localCache)) {
+                byte[] cached = localCache.get(keyList.get(index));
+                if (Objects.nonNull(cached)) {
+                    values.set(index, cached);
+                    continue;
+                }
+            }
+            missIndexList.add(index);
+            localCacheList.add(localCache);
+            versionList.add(Objects.isNull(localCache) ? 0 : localCache.getVersion(keyList.get(index)));
+        }
+        if (missIndexList.isEmpty()) {
+            return values;
+        }
+        byte[][] rawKeys = missIndexList.stream()
+                .map(index -> getKey(keyList.get(index)).getBytes(StandardCharsets.UTF_8))
+                .toArray(byte[][]::new);
+        try {
+            List<byte[]> loaded = getRedisTemplate().execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.stringCommands().mGet(rawKeys)
+            );
+            if (Objects.isNull(loaded)) {
+                return values;
+            }
+            for (int index = 0; index < missIndexList.size(); index++) {
+                byte[] bytes = loaded.get(index);
+                values.set(missIndexList.get(index), bytes);
+                LocalCache<byte[]> localCache = localCacheList.get(index);
+                if (Objects.nonNull(localCache)) {
+                    localCache.put(keyList.get(missIndexList.get(index)), bytes, versionList.get(index));
+                }
+            }
+            return values;
+        } catch (Exception e) {
+            log.error(REDIS_ERROR.getMessage(), e);
+            throw new ServiceException(REDIS_ERROR);
+        }
+    }
+
+    /**
+     * 以原始字节放入缓存
+     *
+     * @param key    缓存的 Key
+     * @param value  字节
+     * @param second 缓存时间(秒)，小于等于0 将使用默认的缓存时间
+     */
+    private void setBytes(String key, byte @NotNull [] value, long second) {
+        final long expireSecond = second > 0 ? second : redisConfig.getCacheExpireSecond();
         try {
-            return getRedisTemplate().opsForValue().get(getKey(key));
+            getRedisTemplate().execute((RedisCallback<Boolean>) connection ->
+                    connection.stringCommands().setEx(getKey(key).getBytes(StandardCharsets.UTF_8), expireSecond, value)
+            );
+            nearCacheHelper.invalidateKey(key);
+        } catch (Exception e) {
+            log.error(REDIS_ERROR.getMessage(), e);
+            throw new ServiceException(REDIS_ERROR);
+        }
+    }
+
+    /**
+     * 以原始字节批量放入缓存
+     *
+     * @param map    缓存的 Key 与字节
+     * @param second 缓存时间(秒)，小于等于0 将使用默认的缓存时间
+     */
+    private void multiSetBytes(@NotNull Map<String, byte[]> map, long second) {
+        if (map.isEmpty()) {
+            return;
+        }
+        final long expireSecond = second > 0 ? second : redisConfig.getCacheExpireSecond();
+        try {
+            getRedisTemplate().executePipelined((RedisCallback<Object>) connection -> {
+                map.forEach((key, value) -> connection.stringCommands().setEx(
+                        getKey(key).getBytes(StandardCharsets.UTF_8), expireSecond, value
+                ));
+                return null;
+            });
+            map.keySet().forEach(nearCacheHelper::invalidateKey);
         } catch (Exception e) {
             log.error(REDIS_ERROR.getMessage(), e);
             throw new ServiceException(REDIS_ERROR);
@@ -382,6 +716,7 @@ public class RedisHelper {
         try {
             if (second > 0) {
                 getRedisTemplate().opsForValue().set(getKey(key), value.toString(), second, TimeUnit.SECONDS);
+                nearCacheHelper.invalidateKey(key);
             } else {
                 set(key, value);
             }
@@ -412,7 +747,7 @@ public class RedisHelper {
      */
     private @NotNull <T extends RootModel<T>> String getCacheKey(@NotNull Class<T> clazz, Long id) {
         REDIS_ERROR.whenNull(id, "ID 不能为空");
-        return clazz.getSimpleName() + "_" + id;
+        return redisNamespaceHelper.getKeyPrefix(clazz.getSimpleName()) + id;
     }
 
     /**
@@ -453,5 +788,10 @@ public class RedisHelper {
          * 锁的值
          */
         private String value;
+
+        /**
+         * 锁模式
+         */
+        private LockMode mode = LockMode.WRITE;
     }
 }
@@ -0,0 +1,672 @@
+package cn.hamm.airpower.redis;
+
+import cn.hamm.airpower.core.exception.ServiceException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static cn.hamm.airpower.exception.Errors.REDIS_ERROR;
+
+/**
+ * <h1>Redis 锁助手类</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 等待者通过订阅释放通知被唤醒，不再轮询 Redis；持有期间由看门狗自动续期；释放时通过 Lua 脚本原子地比较并删除；
+ * 锁以 {@code 节点:线程} 为持有者，支持重入和读写模式；同一节点内的线程先在本地公平排队，每个 key 只有一个写线程去 Redis 竞争
+ */
+@Component
+@Slf4j
+public class RedisLockHelper {
+    /**
+     * 锁释放通知的频道
+     */
+    private static final String LOCK_CHANNEL = "LOCK_RELEASED";
+
+    /**
+     * 锁模式的字段
+     */
+    private static final String MODE_FIELD = "mode";
+
+    /**
+     * 获取锁的脚本
+     *
+     * @apiNote 锁以哈希存储，{@code mode} 字段为锁模式，其余字段为持有者及其重入次数；
+     * 获取成功返回 {@code 0}，否则返回锁的剩余时间
+     */
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            local mode = redis.call('hget', KEYS[1], ARGV[1])
+            local acquired = false
+            if not mode then
+                redis.call('hset', KEYS[1], ARGV[1], ARGV[2])
+                acquired = true
+            elseif redis.call('hexists', KEYS[1], ARGV[3]) == 1 and (mode == 'WRITE' or ARGV[2] == 'READ') then
+                acquired = true
+            elseif mode == 'READ' and ARGV[2] == 'READ' then
+                acquired = true
+            end
+            if acquired then
+                redis.call('hincrby', KEYS[1], ARGV[3], 1)
+                if redis.call('pttl', KEYS[1]) < tonumber(ARGV[4]) then
+                    redis.call('pexpire', KEYS[1], ARGV[4])
+                end
+                return 0
+            end
+            local ttl = redis.call('pttl', KEYS[1])
+            if ttl <= 0 then
+                return tonumber(ARGV[5])
+            end
+            return ttl
+            """, Long.class);
+
+    /**
+     * 释放锁的脚本
+     *
+     * @apiNote 返回剩余的重入次数，持有者不存在时返回 {@code -1}；最后一个持有者释放后删除锁并发布通知
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then
+                return -1
+            end
+            local count = redis.call('hincrby', KEYS[1], ARGV[1], -1)
+            if count > 0 then
+                return count
+            end
+            redis.call('hdel', KEYS[1], ARGV[1])
+            if redis.call('hlen', KEYS[1]) <= 1 then
+                redis.call('del', KEYS[1])
+                redis.call('publish', ARGV[2], KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * 续期锁的脚本
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then
+                return 0
+            end
+            if redis.call('pttl', KEYS[1]) < tonumber(ARGV[2]) then
+                redis.call('pexpire', KEYS[1], ARGV[2])
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * 当前节点的标识
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 锁的等待者
+     */
+    private final Map<String, LockWaiter> waiterMap = new ConcurrentHashMap<>();
+
+    /**
+     * 本地锁
+     *
+     * @apiNote 按锁的完整 key 引用计数，没有线程使用时移除
+     */
+    private final Map<String, LocalLock> localLockMap = new ConcurrentHashMap<>();
+
+    /**
+     * 当前节点持有的锁
+     *
+     * @apiNote 以锁的完整 key 与持有者为键，重入时只计数
+     */
+    private final Map<String, HeldLock> heldLockMap = new ConcurrentHashMap<>();
+
+    /**
+     * 看门狗
+     */
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "airpower-lock-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder releaseCount = new LongAdder();
+    private final LongAdder waitTimeTotal = new LongAdder();
+    private final LongAdder holdTimeTotal = new LongAdder();
+    private final LongAdder renewCount = new LongAdder();
+    private final LongAdder renewFailureCount = new LongAdder();
+    private final AtomicLong waitTimeMax = new AtomicLong();
+    private final AtomicLong holdTimeMax = new AtomicLong();
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisConfig redisConfig;
+
+    @Autowired
+    private RedisSubscriber redisSubscriber;
+
+    /**
+     * 订阅锁释放通知
+     */
+    @PostConstruct
+    public void init() {
+        redisSubscriber.subscribe(getKey(LOCK_CHANNEL), this::onRelease);
+    }
+
+    /**
+     * 停止看门狗
+     */
+    @PreDestroy
+    public void destroy() {
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * 获取写锁
+     *
+     * @param key     锁的 key
+     * @param timeout 锁超时时间(毫秒)
+     * @return 锁
+     */
+    public final @NotNull RedisHelper.Lock lock(String key, int timeout) {
+        return lock(key, timeout, LockMode.WRITE);
+    }
+
+    /**
+     * 获取锁
+     *
+     * @param key     锁的 key
+     * @param timeout 锁超时时间(毫秒)
+     * @param mode    锁模式
+     * @return 锁
+     * @apiNote 最多等待 {@code timeout} 毫秒，锁的过期时间同为 {@code timeout} 毫秒；
+     * 同一线程可重入，持有写锁时可以再获取读锁，持有读锁时获取写锁将等待至超时
+     */
+    public final @NotNull RedisHelper.Lock lock(String key, int timeout, @NotNull LockMode mode) {
+        final String lockKey = getKey(key);
+        final long startTime = System.currentTimeMillis();
+        final long deadline = startTime + timeout;
+        LocalLock localLock = addLocalLock(lockKey);
+        Lock local = localLock.get(mode);
+        try {
+            // 同一节点内先在本地按顺序排队，只有拿到本地锁的线程才去 Redis 竞争
+            if (!local.tryLock(timeout, TimeUnit.MILLISECONDS)) {
+                removeLocalLock(lockKey);
+                timeoutCount.increment();
+                log.error("获取锁超时，key= {}", key);
+                throw new ServiceException("系统繁忙，请稍后重试");
+            }
+        } catch (InterruptedException exception) {
+            removeLocalLock(lockKey);
+            Thread.currentThread().interrupt();
+            throw new ServiceException("获取锁被中断");
+        }
+        try {
+            return acquire(key, lockKey, timeout, mode, startTime, deadline);
+        } catch (RuntimeException exception) {
+            local.unlock();
+            removeLocalLock(lockKey);
+            throw exception;
+        }
+    }
+
+    /**
+     * 尝试获取写锁
+     *
+     * @param key     锁的 key
+     * @param timeout 锁超时时间(毫秒)
+     * @return 锁，锁被占用时立即返回 {@code null}
+     */
+    public final @Nullable RedisHelper.Lock tryLock(String key, int timeout) {
+        final String lockKey = getKey(key);
+        LocalLock localLock = addLocalLock(lockKey);
+        Lock local = localLock.get(LockMode.WRITE);
+        if (!local.tryLock()) {
+            removeLocalLock(lockKey);
+            return null;
+        }
+        final String value = getOwner();
+        try {
+            Long ttl = stringRedisTemplate.execute(ACQUIRE_SCRIPT, List.of(lockKey),
+                    MODE_FIELD, LockMode.WRITE.name(), value, String.valueOf(timeout),
+                    String.valueOf(redisConfig.getLockWaitSliceMillisecond())
+            );
+            if (Objects.equals(ttl, 0L)) {
+                onAcquired(lockKey, value, timeout, 0);
+                return new RedisHelper.Lock().setKey(key).setValue(value).setMode(LockMode.WRITE);
+            }
+        } catch (RuntimeException exception) {
+            local.unlock();
+            removeLocalLock(lockKey);
+            throw exception;
+        }
+        local.unlock();
+        removeLocalLock(lockKey);
+        return null;
+    }
+
+    /**
+     * 在 Redis 中获取锁
+     *
+     * @param key       锁的 key
+     * @param lockKey   锁的完整 key
+     * @param timeout   锁超时时间(毫秒)
+     * @param mode      锁模式
+     * @param startTime 开始获取的时间
+     * @param deadline  等待的截止时间
+     * @return 锁
+     */
+    private @NotNull RedisHelper.Lock acquire(
+            String key, String lockKey, int timeout, LockMode mode, long startTime, long deadline
+    ) {
+        final String value = getOwner();
+        LockWaiter waiter = null;
+        try {
+            while (true) {
+                // 尝试之前记下代数，尝试失败后只要代数变化就说明期间有锁被释放
+                long generation = Objects.isNull(waiter) ? 0 : waiter.getGeneration();
+                Long ttl = stringRedisTemplate.execute(ACQUIRE_SCRIPT, List.of(lockKey),
+                        MODE_FIELD, mode.name(), value, String.valueOf(timeout),
+                        String.valueOf(redisConfig.getLockWaitSliceMillisecond())
+                );
+                long now = System.currentTimeMillis();
+                if (Objects.equals(ttl, 0L)) {
+                    onAcquired(lockKey, value, timeout, now - startTime);
+                    return new RedisHelper.Lock().setKey(key).setValue(value).setMode(mode);
+                }
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    timeoutCount.increment();
+                    log.error("获取锁超时，key= {}", key);
+                    throw new ServiceException("系统繁忙，请稍后重试");
+                }
+                if (Objects.isNull(waiter)) {
+                    // 先登记再重试一次，避免错过登记之前的释放通知
+                    waiter = addWaiter(lockKey);
+                    continue;
+                }
+                long waitMillis = Math.min(remaining, redisConfig.getLockWaitSliceMillisecond());
+                if (Objects.nonNull(ttl) && ttl > 0) {
+                    waitMillis = Math.min(waitMillis, ttl);
+                }
+                waiter.await(generation, waitMillis);
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException("获取锁被中断");
+        } finally {
+            if (Objects.nonNull(waiter)) {
+                removeWaiter(lockKey);
+            }
+        }
+    }
+
+    /**
+     * 释放锁
+     *
+     * @param lock 锁
+     * @apiNote 重入的锁只减少一次计数，最后一个持有者释放后才会删除，并通知所有节点的等待者；
+     * 需要由获取锁的线程释放，其他线程释放时直接抛出异常，不修改 Redis 和本地锁
+     */
+    public final void release(@NotNull RedisHelper.Lock lock) {
+        REDIS_ERROR.whenNull(lock, "释放锁失败，传入的锁为空");
+        REDIS_ERROR.whenEmpty(lock.getKey(), "释放锁失败，传入的锁的 key 为空");
+        REDIS_ERROR.whenEmpty(lock.getValue(), "释放锁失败，传入的锁的 value 为空");
+        // 本地锁归属于获取锁的线程，其他线程释放会使本地锁永远无法释放
+        REDIS_ERROR.when(!Objects.equals(lock.getValue(), getOwner()), "释放锁失败，锁需要由获取锁的线程释放");
+        final String lockKey = getKey(lock.getKey());
+        try {
+            Long result = stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(lockKey),
+                    lock.getValue(), getKey(LOCK_CHANNEL)
+            );
+            if (Objects.equals(result, -1L)) {
+                log.warn("释放锁时锁已过期或被其他线程持有，key= {}", lock.getKey());
+            }
+        } finally {
+            // Redis 出错时也要停止续期并释放本地锁，锁在 Redis 中随租期过期
+            onReleased(lockKey, lock.getValue());
+            LocalLock localLock = localLockMap.get(lockKey);
+            if (Objects.nonNull(localLock)) {
+                localLock.get(Objects.requireNonNullElse(lock.getMode(), LockMode.WRITE)).unlock();
+                removeLocalLock(lockKey);
+            }
+        }
+    }
+
+    /**
+     * 获取锁的统计
+     *
+     * @return 统计快照
+     */
+    public final @NotNull LockStatistics getStatistics() {
+        long acquired = acquireCount.sum();
+        long released = releaseCount.sum();
+        return new LockStatistics()
+                .setAcquireCount(acquired)
+                .setTimeoutCount(timeoutCount.sum())
+                .setReleaseCount(released)
+                .setAverageWaitMillisecond(acquired == 0 ? 0 : waitTimeTotal.sum() / acquired)
+                .setMaxWaitMillisecond(waitTimeMax.get())
+                .setAverageHoldMillisecond(released == 0 ? 0 : holdTimeTotal.sum() / released)
+                .setMaxHoldMillisecond(holdTimeMax.get())
+                .setHoldingCount(heldLockMap.size())
+                .setWaitingCount(waiterMap.values().stream().mapToLong(LockWaiter::getCount).sum())
+                .setRenewCount(renewCount.sum())
+                .setRenewFailureCount(renewFailureCount.sum());
+    }
+
+    /**
+     * 获取锁成功
+     *
+     * @param lockKey  锁的完整 key
+     * @param value    锁的值
+     * @param timeout  锁超时时间(毫秒)
+     * @param waitTime 等待时间(毫秒)
+     */
+    private void onAcquired(String lockKey, String value, int timeout, long waitTime) {
+        acquireCount.increment();
+        waitTimeTotal.add(waitTime);
+        waitTimeMax.accumulateAndGet(waitTime, Math::max);
+        heldLockMap.compute(getHeldKey(lockKey, value), (heldKey, heldLock) -> {
+            if (Objects.nonNull(heldLock)) {
+                heldLock.count++;
+                return heldLock;
+            }
+            heldLock = new HeldLock(System.currentTimeMillis());
+            if (Boolean.TRUE.equals(redisConfig.getLockWatchdog())) {
+                long interval = Math.max(timeout / 3, 1);
+                heldLock.setRenewFuture(watchdog.scheduleWithFixedDelay(
+                        () -> renew(lockKey, value, timeout), interval, interval, TimeUnit.MILLISECONDS
+                ));
+            }
+            return heldLock;
+        });
+    }
+
+    /**
+     * 释放锁后更新本地持有记录
+     *
+     * @param lockKey 锁的完整 key
+     * @param value   持有者
+     */
+    private void onReleased(String lockKey, String value) {
+        heldLockMap.computeIfPresent(getHeldKey(lockKey, value), (heldKey, heldLock) -> {
+            if (--heldLock.count > 0) {
+                return heldLock;
+            }
+            heldLock.cancelRenew();
+            long holdTime = System.currentTimeMillis() - heldLock.getAcquireTime();
+            releaseCount.increment();
+            holdTimeTotal.add(holdTime);
+            holdTimeMax.accumulateAndGet(holdTime, Math::max);
+            return null;
+        });
+    }
+
+    /**
+     * 获取当前线程的持有者标识
+     *
+     * @return 持有者标识
+     */
+    private @NotNull String getOwner() {
+        return nodeId + ":" + Thread.currentThread().getId();
+    }
+
+    /**
+     * 获取本地持有记录的键
+     *
+     * @param lockKey 锁的完整 key
+     * @param value   持有者
+     * @return 键
+     */
+    @Contract(pure = true)
+    private @NotNull String getHeldKey(String lockKey, String value) {
+        return lockKey + "#" + value;
+    }
+
+    /**
+     * 续期锁
+     *
+     * @param lockKey 锁的完整 key
+     * @param value   锁的值
+     * @param timeout 锁超时时间(毫秒)
+     */
+    private void renew(String lockKey, String value, int timeout) {
+        try {
+            Long result = stringRedisTemplate.execute(RENEW_SCRIPT, List.of(lockKey), value, String.valueOf(timeout));
+            if (Objects.equals(result, 1L)) {
+                renewCount.increment();
+                return;
+            }
+            renewFailureCount.increment();
+            log.warn("锁续期失败，锁已丢失，key= {}", lockKey);
+            HeldLock heldLock = heldLockMap.get(getHeldKey(lockKey, value));
+            if (Objects.nonNull(heldLock)) {
+                heldLock.cancelRenew();
+            }
+        } catch (Exception exception) {
+            // 网络抖动时等待下一次续期
+            renewFailureCount.increment();
+            log.error("锁续期出错，key= {}", lockKey, exception);
+        }
+    }
+
+    /**
+     * 收到锁释放通知
+     *
+     * @param lockKey 锁的完整 key
+     */
+    private void onRelease(String lockKey) {
+        LockWaiter waiter = waiterMap.get(lockKey);
+        if (Objects.nonNull(waiter)) {
+            waiter.signal();
+        }
+    }
+
+    /**
+     * 登记等待者
+     *
+     * @param lockKey 锁的完整 key
+     * @return 等待者
+     */
+    private @NotNull LockWaiter addWaiter(String lockKey) {
+        return waiterMap.compute(lockKey, (k, waiter) -> {
+            if (Objects.isNull(waiter)) {
+                waiter = new LockWaiter();
+            }
+            waiter.count++;
+            return waiter;
+        });
+    }
+
+    /**
+     * 引用本地锁
+     *
+     * @param lockKey 锁的完整 key
+     * @return 本地锁
+     */
+    private @NotNull LocalLock addLocalLock(String lockKey) {
+        return localLockMap.compute(lockKey, (k, localLock) -> {
+            if (Objects.isNull(localLock)) {
+                localLock = new LocalLock();
+            }
+            localLock.count++;
+            return localLock;
+        });
+    }
+
+    /**
+     * 取消引用本地锁
+     *
+     * @param lockKey 锁的完整 key
+     */
+    private void removeLocalLock(String lockKey) {
+        localLockMap.computeIfPresent(lockKey, (k, localLock) -> --localLock.count <= 0 ? null : localLock);
+    }
+
+    /**
+     * 注销等待者
+     *
+     * @param lockKey 锁的完整 key
+     */
+    private void removeWaiter(String lockKey) {
+        waiterMap.computeIfPresent(lockKey, (k, waiter) -> --waiter.count <= 0 ? null : waiter);
+    }
+
+    /**
+     * 获取锁的完整 key
+     *
+     * @param key 锁的 key
+     * @return 完整 key
+     */
+    @Contract(pure = true)
+    private @NotNull String getKey(String key) {
+        return redisConfig.getPrefix() + key;
+    }
+
+    /**
+     * 当前节点持有的锁
+     */
+    @Getter
+    private static class HeldLock {
+        /**
+         * 获取时间
+         */
+        private final long acquireTime;
+
+        /**
+         * 续期任务
+         */
+        private volatile ScheduledFuture<?> renewFuture;
+
+        /**
+         * 重入次数
+         */
+        private int count = 1;
+
+        /**
+         * 创建持有的锁
+         *
+         * @param acquireTime 获取时间
+         */
+        private HeldLock(long acquireTime) {
+            this.acquireTime = acquireTime;
+        }
+
+        /**
+         * 设置续期任务
+         *
+         * @param renewFuture 续期任务
+         */
+        private void setRenewFuture(ScheduledFuture<?> renewFuture) {
+            this.renewFuture = renewFuture;
+        }
+
+        /**
+         * 取消续期
+         */
+        private void cancelRenew() {
+            if (Objects.nonNull(renewFuture)) {
+                renewFuture.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * 本地锁
+     *
+     * @apiNote 公平的读写锁，同一节点内按申请顺序交接
+     */
+    private static class LocalLock {
+        /**
+         * 读写锁
+         */
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+
+        /**
+         * 引用次数
+         */
+        private int count;
+
+        /**
+         * 获取指定模式的锁
+         *
+         * @param mode 锁模式
+         * @return 锁
+         */
+        private Lock get(LockMode mode) {
+            return mode == LockMode.READ ? lock.readLock() : lock.writeLock();
+        }
+    }
+
+    /**
+     * 锁的等待者
+     *
+     * @apiNote 同一个 key 的所有等待线程共享，每次收到释放通知代数加一
+     */
+    @Getter
+    private static class LockWaiter {
+        /**
+         * 代数
+         */
+        private long generation;
+
+        /**
+         * 等待线程数
+         */
+        private int count;
+
+        /**
+         * 获取代数
+         *
+         * @return 代数
+         */
+        public synchronized long getGeneration() {
+            return generation;
+        }
+
+        /**
+         * 唤醒所有等待线程
+         */
+        private synchronized void signal() {
+            generation++;
+            notifyAll();
+        }
+
+        /**
+         * 等待代数变化
+         *
+         * @param expected 期望的代数
+         * @param millis   最长等待时间(毫秒)
+         * @throws InterruptedException 等待被中断
+         */
+        private synchronized void await(long expected, long millis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + millis;
+            while (generation == expected) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return;
+                }
+                wait(remaining);
+            }
+        }
+    }
+}
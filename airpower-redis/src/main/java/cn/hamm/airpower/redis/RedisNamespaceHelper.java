@@ -0,0 +1,316 @@
+package cn.hamm.airpower.redis;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+/**
+ * <h1>Redis 命名空间助手类</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 实体缓存和 Spring Cache 的 key 中带有命名空间的代数，整个命名空间失效只需一次 {@code HINCRBY}；
+ * 旧代数的 key 不再被访问，由后台以 {@code SCAN} 和 {@code UNLINK} 分批回收，不会长时间阻塞 Redis；
+ * 代数第一次使用时以 Redis 的当前毫秒数为起点，代数哈希丢失后重新生成的代数一定大于丢失前的代数，
+ * 各节点刷新时能够跟上，也不会读到丢失前同一代数下的旧数据
+ */
+@Component
+@Slf4j
+public class RedisNamespaceHelper {
+    /**
+     * 代数哈希的 key
+     */
+    private static final String GENERATION_KEY = "NAMESPACE_GENERATION";
+
+    /**
+     * 代数变更通知的频道
+     */
+    private static final String GENERATION_CHANNEL = "NAMESPACE_CHANGED";
+
+    /**
+     * Spring Cache 命名空间的前缀
+     */
+    private static final String CACHE_NAMESPACE_PREFIX = "CACHE_";
+
+    /**
+     * 命名空间与代数的分隔符
+     */
+    private static final String SEPARATOR = ":";
+
+    /**
+     * 读取或增加代数的脚本
+     *
+     * @apiNote {@code ARGV}: 命名空间、增量；命名空间没有代数时以 Redis 的当前毫秒数为起点
+     */
+    private static final RedisScript<Long> GENERATION_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then
+                local time = redis.call('time')
+                local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+                redis.call('hset', KEYS[1], ARGV[1], now)
+            end
+            return redis.call('hincrby', KEYS[1], ARGV[1], tonumber(ARGV[2]))
+            """, Long.class);
+
+    /**
+     * 本地缓存的代数
+     */
+    private final Map<String, Generation> generationMap = new ConcurrentHashMap<>();
+
+    /**
+     * 回收旧代数的线程
+     */
+    private final ExecutorService reclaimer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "airpower-namespace-reclaimer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisConfig redisConfig;
+
+    @Autowired
+    private RedisSubscriber redisSubscriber;
+
+    /**
+     * 订阅代数变更通知
+     */
+    @PostConstruct
+    public void init() {
+        redisSubscriber.subscribe(redisConfig.getPrefix() + GENERATION_CHANNEL, this::onChanged);
+    }
+
+    /**
+     * 停止回收
+     */
+    @PreDestroy
+    public void destroy() {
+        reclaimer.shutdownNow();
+    }
+
+    /**
+     * 获取 Spring Cache 的命名空间
+     *
+     * @param cacheName 缓存名称
+     * @return 命名空间
+     */
+    @Contract(pure = true)
+    public static @NotNull String getCacheNamespace(String cacheName) {
+        return CACHE_NAMESPACE_PREFIX + cacheName;
+    }
+
+    /**
+     * 获取命名空间的 key 前缀
+     *
+     * @param namespace 命名空间
+     * @return 带当前代数的 key 前缀，不含全局前缀
+     */
+    public final @NotNull String getKeyPrefix(String namespace) {
+        return namespace + SEPARATOR + getGeneration(namespace) + SEPARATOR;
+    }
+
+    /**
+     * 获取命名空间当前的代数
+     *
+     * @param namespace 命名空间
+     * @return 代数
+     * @apiNote 优先使用本地缓存，超过 {@link RedisConfig#getNamespaceRefreshMillisecond()} 后重新读取，
+     * 作为变更通知丢失时的兜底
+     */
+    public final long getGeneration(String namespace) {
+        Generation generation = generationMap.get(namespace);
+        long now = System.currentTimeMillis();
+        if (Objects.nonNull(generation) && now - generation.getLoadTime() < redisConfig.getNamespaceRefreshMillisecond()) {
+            return generation.getValue();
+        }
+        long loaded = Objects.requireNonNull(
+                stringRedisTemplate.execute(GENERATION_SCRIPT, List.of(getGenerationKey()), namespace, "0")
+        );
+        generationMap.merge(namespace, new Generation(loaded, now), (oldValue, newValue) ->
+                newValue.getValue() >= oldValue.getValue() ? newValue : new Generation(oldValue.getValue(), now)
+        );
+        return generationMap.get(namespace).getValue();
+    }
+
+    /**
+     * 使整个命名空间失效
+     *
+     * @param namespace 命名空间
+     * @apiNote 只增加代数，旧代数的 key 在后台回收
+     */
+    public final void invalidate(String namespace) {
+        long generation = Objects.requireNonNull(
+                stringRedisTemplate.execute(GENERATION_SCRIPT, List.of(getGenerationKey()), namespace, "1")
+        );
+        updateGeneration(namespace, generation);
+        stringRedisTemplate.convertAndSend(redisConfig.getPrefix() + GENERATION_CHANNEL,
+                namespace + SEPARATOR + generation
+        );
+        reclaim(namespace);
+    }
+
+    /**
+     * 在后台回收命名空间中旧代数的 key
+     *
+     * @param namespace 命名空间
+     */
+    public final void reclaim(String namespace) {
+        final String keyPrefix = redisConfig.getPrefix() + namespace + SEPARATOR;
+        reclaimer.execute(() -> {
+            try {
+                final long current = getGeneration(namespace);
+                long count = unlink(keyPrefix + "*", key -> {
+                    String rest = key.substring(keyPrefix.length());
+                    int index = rest.indexOf(SEPARATOR);
+                    if (index <= 0) {
+                        return false;
+                    }
+                    try {
+                        return Long.parseLong(rest.substring(0, index)) < current;
+                    } catch (NumberFormatException exception) {
+                        // 不是带代数的 key
+                        return false;
+                    }
+                });
+                log.info("回收命名空间 {} 的旧数据 {} 条", namespace, count);
+            } catch (Exception exception) {
+                log.error("回收命名空间 {} 的旧数据失败", namespace, exception);
+            }
+        });
+    }
+
+    /**
+     * 是否为代数哈希的 key
+     *
+     * @param key 完整 key
+     * @return 是否为代数哈希
+     * @apiNote 批量删除时需要跳过，否则各节点的代数会回退
+     */
+    public final boolean isGenerationKey(String key) {
+        return getGenerationKey().equals(key);
+    }
+
+    /**
+     * 分批删除满足条件的 key
+     *
+     * @param pattern 匹配规则
+     * @param filter  过滤器
+     * @return 删除的数量
+     * @apiNote 使用 {@code SCAN} 遍历并以 {@code UNLINK} 分批删除，每批数量为 {@link RedisConfig#getScanCount()}
+     */
+    public final long unlink(String pattern, Predicate<String> filter) {
+        final int batchSize = redisConfig.getScanCount();
+        Long total = stringRedisTemplate.execute((RedisCallback<Long>) connection -> {
+            long count = 0;
+            List<byte[]> batch = new ArrayList<>(batchSize);
+            ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+            try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                while (cursor.hasNext()) {
+                    byte[] key = cursor.next();
+                    if (!filter.test(new String(key, StandardCharsets.UTF_8))) {
+                        continue;
+                    }
+                    batch.add(key);
+                    if (batch.size() >= batchSize) {
+                        count += unlink(connection, batch);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                count += unlink(connection, batch);
+            }
+            return count;
+        });
+        return Objects.isNull(total) ? 0 : total;
+    }
+
+    /**
+     * 删除一批 key
+     *
+     * @param connection 连接
+     * @param batch      key 列表，删除后清空
+     * @return 删除的数量
+     */
+    private long unlink(@NotNull RedisConnection connection, @NotNull List<byte[]> batch) {
+        Long count = connection.keyCommands().unlink(batch.toArray(byte[][]::new));
+        batch.clear();
+        return Objects.isNull(count) ? 0 : count;
+    }
+
+    /**
+     * 收到代数变更通知
+     *
+     * @param message 通知
+     */
+    private void onChanged(@NotNull String message) {
+        int index = message.lastIndexOf(SEPARATOR);
+        if (index <= 0) {
+            return;
+        }
+        updateGeneration(message.substring(0, index), Long.parseLong(message.substring(index + 1)));
+    }
+
+    /**
+     * 更新本地缓存的代数
+     *
+     * @param namespace  命名空间
+     * @param generation 代数
+     * @apiNote 只前进不后退，避免乱序的通知覆盖新的代数
+     */
+    private void updateGeneration(String namespace, long generation) {
+        Generation updated = new Generation(generation, System.currentTimeMillis());
+        generationMap.merge(namespace, updated, (oldValue, newValue) ->
+                newValue.getValue() >= oldValue.getValue() ? newValue : oldValue
+        );
+    }
+
+    /**
+     * 获取代数哈希的 key
+     *
+     * @return key
+     */
+    private @NotNull String getGenerationKey() {
+        return redisConfig.getPrefix() + GENERATION_KEY;
+    }
+
+    /**
+     * 代数
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class Generation {
+        /**
+         * 代数
+         */
+        private final long value;
+
+        /**
+         * 读取时间
+         */
+        private final long loadTime;
+    }
+}
@@ -0,0 +1,429 @@
+package cn.hamm.airpower.redis;
+
+import cn.hamm.airpower.core.exception.ServiceException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static cn.hamm.airpower.exception.Errors.REDIS_ERROR;
+
+/**
+ * <h1>Redis 信号量助手类</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 限制集群内同时执行某类任务的数量；申请者按到达顺序排队，许可带租期并由看门狗续期，
+ * 节点宕机后许可在租期结束时自动回收，排队者停止心跳后自动出队；时间统一使用 Redis 服务端时间
+ */
+@Component
+@Slf4j
+public class RedisSemaphoreHelper {
+    /**
+     * 信号量的 key 前缀
+     */
+    private static final String SEMAPHORE_PREFIX = "SEMAPHORE_";
+
+    /**
+     * 许可释放通知的频道
+     */
+    private static final String SEMAPHORE_CHANNEL = "SEMAPHORE_RELEASED";
+
+    /**
+     * 排队者的心跳有效期是等待分片的倍数
+     */
+    private static final int WAITER_TTL_TIMES = 3;
+
+    /**
+     * 申请许可的脚本
+     *
+     * @apiNote {@code KEYS}: 持有者、排队、心跳、序号；先回收过期的持有者和停止心跳的排队者，再按排队顺序分配，
+     * 获取成功返回 {@code 1}，否则返回 {@code 0} 并保持排队
+     */
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            local time = redis.call('time')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local permits = tonumber(ARGV[1])
+            local lease = tonumber(ARGV[3])
+            local waiterTtl = tonumber(ARGV[4])
+            redis.call('zremrangebyscore', KEYS[1], '-inf', now)
+            local dead = redis.call('zrangebyscore', KEYS[3], '-inf', now)
+            for _, waiter in ipairs(dead) do
+                redis.call('zrem', KEYS[2], waiter)
+            end
+            redis.call('zremrangebyscore', KEYS[3], '-inf', now)
+            if not redis.call('zscore', KEYS[2], ARGV[2]) then
+                redis.call('zadd', KEYS[2], redis.call('incr', KEYS[4]), ARGV[2])
+            end
+            redis.call('zadd', KEYS[3], now + waiterTtl, ARGV[2])
+            local ttl = math.max(lease, waiterTtl) * 2
+            for i = 1, 4 do
+                redis.call('pexpire', KEYS[i], ttl)
+            end
+            local free = permits - redis.call('zcard', KEYS[1])
+            if redis.call('zrank', KEYS[2], ARGV[2]) < free then
+                redis.call('zrem', KEYS[2], ARGV[2])
+                redis.call('zrem', KEYS[3], ARGV[2])
+                redis.call('zadd', KEYS[1], now + lease, ARGV[2])
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * 放弃排队的脚本
+     */
+    private static final RedisScript<Long> CANCEL_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('zrem', KEYS[2], ARGV[1])
+            redis.call('zrem', KEYS[3], ARGV[1])
+            return 1
+            """, Long.class);
+
+    /**
+     * 释放许可的脚本
+     *
+     * @apiNote 许可已过期被回收时返回 {@code 0}
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            local removed = redis.call('zrem', KEYS[1], ARGV[1])
+            redis.call('publish', ARGV[2], ARGV[3])
+            return removed
+            """, Long.class);
+
+    /**
+     * 续期许可的脚本
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>("""
+            if not redis.call('zscore', KEYS[1], ARGV[1]) then
+                return 0
+            end
+            local time = redis.call('time')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            redis.call('zadd', KEYS[1], 'XX', now + tonumber(ARGV[2]), ARGV[1])
+            if redis.call('pttl', KEYS[1]) < tonumber(ARGV[2]) * 2 then
+                redis.call('pexpire', KEYS[1], tonumber(ARGV[2]) * 2)
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * 当前节点的标识
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 信号量的等待者
+     */
+    private final Map<String, PermitWaiter> waiterMap = new ConcurrentHashMap<>();
+
+    /**
+     * 当前节点持有许可的续期任务
+     */
+    private final Map<String, ScheduledFuture<?>> renewMap = new ConcurrentHashMap<>();
+
+    /**
+     * 看门狗
+     */
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "airpower-semaphore-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisConfig redisConfig;
+
+    @Autowired
+    private RedisSubscriber redisSubscriber;
+
+    /**
+     * 订阅许可释放通知
+     */
+    @PostConstruct
+    public void init() {
+        redisSubscriber.subscribe(getKey(SEMAPHORE_CHANNEL), this::onRelease);
+    }
+
+    /**
+     * 停止看门狗
+     */
+    @PreDestroy
+    public void destroy() {
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * 获取许可
+     *
+     * @param name    信号量名称
+     * @param permits 许可总数
+     * @param timeout 最长等待时间(毫秒)
+     * @return 许可
+     * @apiNote 许可的租期为 {@link RedisConfig#getSemaphoreLeaseMillisecond()}，持有期间自动续期；
+     * 同一个信号量的许可总数应保持一致
+     */
+    public final @NotNull Permit acquire(String name, int permits, long timeout) {
+        REDIS_ERROR.when(permits <= 0, "信号量的许可总数必须大于 0");
+        final List<String> keys = getKeys(name);
+        final String permitId = nodeId + ":" + UUID.randomUUID();
+        final long lease = redisConfig.getSemaphoreLeaseMillisecond();
+        final long slice = redisConfig.getLockWaitSliceMillisecond();
+        final long deadline = System.currentTimeMillis() + timeout;
+        PermitWaiter waiter = null;
+        boolean acquired = false;
+        try {
+            while (true) {
+                long generation = Objects.isNull(waiter) ? 0 : waiter.getGeneration();
+                // 每次尝试同时刷新排队心跳
+                Long result = stringRedisTemplate.execute(ACQUIRE_SCRIPT, keys, String.valueOf(permits), permitId,
+                        String.valueOf(lease), String.valueOf(slice * WAITER_TTL_TIMES)
+                );
+                if (Objects.equals(result, 1L)) {
+                    acquired = true;
+                    onAcquired(keys.get(0), permitId, lease);
+                    return new Permit().setName(name).setId(permitId);
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    log.error("获取许可超时，name= {}", name);
+                    throw new ServiceException("系统繁忙，请稍后重试");
+                }
+                if (Objects.isNull(waiter)) {
+                    waiter = addWaiter(name);
+                    continue;
+                }
+                waiter.await(generation, Math.min(remaining, slice));
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException("获取许可被中断");
+        } finally {
+            if (Objects.nonNull(waiter)) {
+                removeWaiter(name);
+            }
+            if (!acquired) {
+                cancel(keys, permitId);
+            }
+        }
+    }
+
+    /**
+     * 释放许可
+     *
+     * @param permit 许可
+     */
+    public final void release(@NotNull Permit permit) {
+        REDIS_ERROR.whenNull(permit, "释放许可失败，传入的许可为空");
+        REDIS_ERROR.whenEmpty(permit.getName(), "释放许可失败，传入的许可的名称为空");
+        REDIS_ERROR.whenEmpty(permit.getId(), "释放许可失败，传入的许可的标识为空");
+        ScheduledFuture<?> renewFuture = renewMap.remove(permit.getId());
+        if (Objects.nonNull(renewFuture)) {
+            renewFuture.cancel(false);
+        }
+        Long result = stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(getKeys(permit.getName()).get(0)),
+                permit.getId(), getKey(SEMAPHORE_CHANNEL), permit.getName()
+        );
+        if (Objects.equals(result, 0L)) {
+            log.warn("释放许可时许可已过期，name= {}", permit.getName());
+        }
+    }
+
+    /**
+     * 获取许可成功
+     *
+     * @param holderKey 持有者的 key
+     * @param permitId  许可标识
+     * @param lease     租期(毫秒)
+     */
+    private void onAcquired(String holderKey, String permitId, long lease) {
+        long interval = Math.max(lease / 3, 1);
+        renewMap.put(permitId, watchdog.scheduleWithFixedDelay(
+                () -> renew(holderKey, permitId, lease), interval, interval, TimeUnit.MILLISECONDS
+        ));
+    }
+
+    /**
+     * 续期许可
+     *
+     * @param holderKey 持有者的 key
+     * @param permitId  许可标识
+     * @param lease     租期(毫秒)
+     */
+    private void renew(String holderKey, String permitId, long lease) {
+        try {
+            Long result = stringRedisTemplate.execute(RENEW_SCRIPT, List.of(holderKey),
+                    permitId, String.valueOf(lease)
+            );
+            if (Objects.equals(result, 1L)) {
+                return;
+            }
+            log.warn("许可续期失败，许可已被回收，key= {}", holderKey);
+            ScheduledFuture<?> renewFuture = renewMap.remove(permitId);
+            if (Objects.nonNull(renewFuture)) {
+                renewFuture.cancel(false);
+            }
+        } catch (Exception exception) {
+            // 网络抖动时等待下一次续期
+            log.error("许可续期出错，key= {}", holderKey, exception);
+        }
+    }
+
+    /**
+     * 放弃排队
+     *
+     * @param keys     信号量的 key
+     * @param permitId 许可标识
+     */
+    private void cancel(List<String> keys, String permitId) {
+        try {
+            stringRedisTemplate.execute(CANCEL_SCRIPT, keys, permitId);
+        } catch (Exception exception) {
+            // 心跳停止后会被其他申请者清理
+            log.error("放弃排队失败，key= {}", keys.get(0), exception);
+        }
+    }
+
+    /**
+     * 收到许可释放通知
+     *
+     * @param name 信号量名称
+     */
+    private void onRelease(String name) {
+        PermitWaiter waiter = waiterMap.get(name);
+        if (Objects.nonNull(waiter)) {
+            waiter.signal();
+        }
+    }
+
+    /**
+     * 登记等待者
+     *
+     * @param name 信号量名称
+     * @return 等待者
+     */
+    private @NotNull PermitWaiter addWaiter(String name) {
+        return waiterMap.compute(name, (k, waiter) -> {
+            if (Objects.isNull(waiter)) {
+                waiter = new PermitWaiter();
+            }
+            waiter.count++;
+            return waiter;
+        });
+    }
+
+    /**
+     * 注销等待者
+     *
+     * @param name 信号量名称
+     */
+    private void removeWaiter(String name) {
+        waiterMap.computeIfPresent(name, (k, waiter) -> --waiter.count <= 0 ? null : waiter);
+    }
+
+    /**
+     * 获取信号量的 key
+     *
+     * @param name 信号量名称
+     * @return 持有者、排队、心跳、序号的 key
+     */
+    private @NotNull List<String> getKeys(String name) {
+        final String key = getKey(SEMAPHORE_PREFIX + name);
+        return List.of(key, key + "_QUEUE", key + "_WAITING", key + "_SEQUENCE");
+    }
+
+    /**
+     * 获取完整 key
+     *
+     * @param key key
+     * @return 完整 key
+     */
+    @Contract(pure = true)
+    private @NotNull String getKey(String key) {
+        return redisConfig.getPrefix() + key;
+    }
+
+    /**
+     * 许可
+     */
+    @Data
+    @Accessors(chain = true)
+    public static class Permit {
+        /**
+         * 信号量名称
+         */
+        private String name;
+
+        /**
+         * 许可标识
+         */
+        private String id;
+    }
+
+    /**
+     * 许可的等待者
+     *
+     * @apiNote 同一个信号量的所有等待线程共享，每次收到释放通知代数加一
+     */
+    private static class PermitWaiter {
+        /**
+         * 代数
+         */
+        private long generation;
+
+        /**
+         * 等待线程数
+         */
+        private int count;
+
+        /**
+         * 获取代数
+         *
+         * @return 代数
+         */
+        private synchronized long getGeneration() {
+            return generation;
+        }
+
+        /**
+         * 唤醒所有等待线程
+         */
+        private synchronized void signal() {
+            generation++;
+            notifyAll();
+        }
+
+        /**
+         * 等待代数变化
+         *
+         * @param expected 期望的代数
+         * @param millis   最长等待时间(毫秒)
+         * @throws InterruptedException 等待被中断
+         */
+        private synchronized void await(long expected, long millis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + millis;
+            while (generation == expected) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return;
+                }
+                wait(remaining);
+            }
+        }
+    }
+}
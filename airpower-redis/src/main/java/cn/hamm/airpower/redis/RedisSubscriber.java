@@ -0,0 +1,111 @@
+package cn.hamm.airpower.redis;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * <h1>Redis 订阅器</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 框架内部共享一个订阅连接，监听容器不注册为 Bean，避免与业务或其他模块的监听容器冲突；
+ * 消息在有界的命名线程池中处理，不会为每条消息创建线程
+ */
+@Component
+@Slf4j
+public class RedisSubscriber {
+    /**
+     * 监听容器
+     */
+    private final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+
+    @Autowired
+    private RedisConnectionFactory redisConnectionFactory;
+
+    @Autowired
+    private RedisConfig redisConfig;
+
+    /**
+     * 处理订阅消息的线程池
+     */
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 启动监听容器
+     */
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        final int threads = Math.max(1, redisConfig.getSubscriberThreads());
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, redisConfig.getSubscriberQueueSize())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "airpower-redis-subscriber-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // 队列已满时由订阅线程处理，反压到订阅连接
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        container.setConnectionFactory(redisConnectionFactory);
+        container.setTaskExecutor(executor);
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    /**
+     * 停止监听容器
+     */
+    @PreDestroy
+    public void stop() {
+        try {
+            container.destroy();
+        } catch (Exception e) {
+            log.error("停止 Redis 订阅失败", e);
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * 订阅频道
+     *
+     * @param channel  频道
+     * @param consumer 消息消费者
+     * @return 监听器，用于取消订阅
+     */
+    public final @NotNull MessageListener subscribe(String channel, Consumer<String> consumer) {
+        MessageListener listener = (message, pattern) -> {
+            try {
+                consumer.accept(new String(message.getBody(), StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                log.error("处理订阅消息失败，channel= {}", channel, e);
+            }
+        };
+        container.addMessageListener(listener, new ChannelTopic(channel));
+        return listener;
+    }
+
+    /**
+     * 取消订阅
+     *
+     * @param channel  频道
+     * @param listener 监听器
+     */
+    public final void unsubscribe(String channel, MessageListener listener) {
+        container.removeMessageListener(listener, new ChannelTopic(channel));
+    }
+}
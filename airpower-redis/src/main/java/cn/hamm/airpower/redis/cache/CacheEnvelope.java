@@ -0,0 +1,33 @@
+package cn.hamm.airpower.redis.cache;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * <h1>缓存信封</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 在缓存值外记录加载耗时和过期时间，用于概率提前刷新
+ */
+@Data
+@Accessors(chain = true)
+public class CacheEnvelope {
+    /**
+     * 缓存的值
+     */
+    private Object value;
+
+    /**
+     * 加载耗时
+     *
+     * @apiNote 单位毫秒
+     */
+    private long loadMillisecond;
+
+    /**
+     * 过期时间
+     *
+     * @apiNote 毫秒时间戳
+     */
+    private long expireTime;
+}
@@ -0,0 +1,144 @@
+package cn.hamm.airpower.redis.cache;
+
+import lombok.AllArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <h1>有界的本地缓存</h1>
+ *
+ * @param <V> 值类型
+ * @author Hamm.cn
+ * @apiNote 按访问顺序淘汰，每个值在配置的时间后过期；版本号按 key 分段，失效只递增 key 所在分段的版本号，
+ * 读取 Redis 前记下 key 的版本号，写入时版本号已变化则放弃写入，避免并发失效后写入旧值，又不影响其他分段的 key 填充
+ */
+public class LocalCache<V> {
+    /**
+     * 版本号的分段数，必须是 2 的幂
+     */
+    private static final int VERSION_STRIPES = 64;
+
+    /**
+     * 缓存配置
+     */
+    private final NearCacheConfig config;
+
+    /**
+     * 缓存数据
+     */
+    private final LinkedHashMap<String, CachedValue<V>> map;
+
+    /**
+     * 各分段的版本号
+     */
+    private final long[] versions = new long[VERSION_STRIPES];
+
+    /**
+     * 创建本地缓存
+     *
+     * @param config 缓存配置
+     */
+    public LocalCache(NearCacheConfig config) {
+        this.config = config;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedValue<V>> eldest) {
+                return size() > config.getMaxSize();
+            }
+        };
+    }
+
+    /**
+     * 获取缓存
+     *
+     * @param key 缓存的 Key
+     * @return 值，未缓存或已过期时返回 {@code null}
+     */
+    public synchronized @Nullable V get(String key) {
+        CachedValue<V> cachedValue = map.get(key);
+        if (Objects.isNull(cachedValue)) {
+            return null;
+        }
+        if (cachedValue.expireTime <= System.currentTimeMillis()) {
+            map.remove(key);
+            return null;
+        }
+        return cachedValue.value;
+    }
+
+    /**
+     * 获取 key 当前的版本号
+     *
+     * @param key 缓存的 Key
+     * @return 版本号
+     */
+    public synchronized long getVersion(String key) {
+        return versions[getStripe(key)];
+    }
+
+    /**
+     * 放入缓存
+     *
+     * @param key     缓存的 Key
+     * @param value   值
+     * @param version 读取前 key 的版本号
+     */
+    public synchronized void put(String key, V value, long version) {
+        if (Objects.isNull(value) || versions[getStripe(key)] != version) {
+            return;
+        }
+        map.put(key, new CachedValue<>(value, System.currentTimeMillis() + config.getExpireMillisecond()));
+    }
+
+    /**
+     * 移除缓存
+     *
+     * @param key 缓存的 Key
+     */
+    public synchronized void remove(String key) {
+        versions[getStripe(key)]++;
+        map.remove(key);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        for (int index = 0; index < VERSION_STRIPES; index++) {
+            versions[index]++;
+        }
+        map.clear();
+    }
+
+    /**
+     * 获取 key 所在的版本号分段
+     *
+     * @param key 缓存的 Key
+     * @return 分段
+     */
+    private int getStripe(String key) {
+        int hash = Objects.hashCode(key);
+        return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    /**
+     * 缓存的值
+     *
+     * @param <V> 值类型
+     */
+    @AllArgsConstructor
+    private static class CachedValue<V> {
+        /**
+         * 值
+         */
+        private final V value;
+
+        /**
+         * 过期时间
+         */
+        private final long expireTime;
+    }
+}
@@ -0,0 +1,25 @@
+package cn.hamm.airpower.redis.cache;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * <h1>本地缓存配置</h1>
+ *
+ * @author Hamm.cn
+ */
+@Data
+@Accessors(chain = true)
+public class NearCacheConfig {
+    /**
+     * 最大缓存数量
+     */
+    private int maxSize = 1000;
+
+    /**
+     * 本地缓存时间
+     *
+     * @apiNote 单位毫秒，失效通知丢失时最多在此时间后读取到新值
+     */
+    private long expireMillisecond = 5000;
+}
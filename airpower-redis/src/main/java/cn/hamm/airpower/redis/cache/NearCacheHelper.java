@@ -0,0 +1,236 @@
+package cn.hamm.airpower.redis.cache;
+
+import cn.hamm.airpower.redis.RedisConfig;
+import cn.hamm.airpower.redis.RedisSubscriber;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h1>本地缓存助手类</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 为配置的 key 前缀和 Spring Cache 名称在 Redis 前增加一层有界的本地缓存；
+ * 任一节点写入或删除时通过订阅频道通知其他节点失效，通知丢失时由本地缓存时间兜底
+ */
+@Component
+@Slf4j
+public class NearCacheHelper {
+    /**
+     * 失效通知的频道
+     */
+    private static final String INVALIDATE_CHANNEL = "NEAR_CACHE_INVALIDATE";
+
+    /**
+     * 通知的分隔符
+     */
+    private static final String SEPARATOR = "|";
+
+    /**
+     * 通知类型：key 前缀
+     */
+    private static final String TYPE_KEY = "K";
+
+    /**
+     * 通知类型：Spring Cache
+     */
+    private static final String TYPE_CACHE = "C";
+
+    /**
+     * 操作：失效单个 key
+     */
+    private static final String OPERATION_EVICT = "E";
+
+    /**
+     * 操作：清空
+     */
+    private static final String OPERATION_CLEAR = "C";
+
+    /**
+     * 当前节点的标识
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 按 key 前缀划分的本地缓存
+     */
+    private final Map<String, LocalCache<byte[]>> keyCacheMap = new ConcurrentHashMap<>();
+
+    /**
+     * 按 Spring Cache 名称划分的本地缓存
+     */
+    private final Map<String, LocalCache<Object>> namedCacheMap = new ConcurrentHashMap<>();
+
+    @Autowired
+    private RedisConfig redisConfig;
+
+    @Autowired
+    private RedisSubscriber redisSubscriber;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 初始化本地缓存并订阅失效通知
+     */
+    @PostConstruct
+    public void init() {
+        redisConfig.getNearCacheKeyPrefixes().forEach((prefix, config) ->
+                keyCacheMap.put(prefix, new LocalCache<>(config))
+        );
+        redisConfig.getNearCacheNames().forEach((cacheName, config) ->
+                namedCacheMap.put(cacheName, new LocalCache<>(config))
+        );
+        if (keyCacheMap.isEmpty() && namedCacheMap.isEmpty()) {
+            return;
+        }
+        redisSubscriber.subscribe(getChannel(), this::onMessage);
+    }
+
+    /**
+     * 获取 key 所在的本地缓存
+     *
+     * @param key 缓存的 Key
+     * @return 本地缓存，未配置时返回 {@code null}
+     */
+    public final @Nullable LocalCache<byte[]> getKeyCache(String key) {
+        if (keyCacheMap.isEmpty() || Objects.isNull(key)) {
+            return null;
+        }
+        for (Map.Entry<String, LocalCache<byte[]>> entry : keyCacheMap.entrySet()) {
+            if (key.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取 Spring Cache 的本地缓存
+     *
+     * @param cacheName 缓存名称
+     * @return 本地缓存，未配置时返回 {@code null}
+     */
+    public final @Nullable LocalCache<Object> getNamedCache(String cacheName) {
+        return namedCacheMap.get(cacheName);
+    }
+
+    /**
+     * 失效 key 的本地缓存
+     *
+     * @param key 缓存的 Key
+     */
+    public final void invalidateKey(String key) {
+        LocalCache<byte[]> localCache = getKeyCache(key);
+        if (Objects.isNull(localCache)) {
+            return;
+        }
+        localCache.remove(key);
+        publish(TYPE_KEY, OPERATION_EVICT, "", key);
+    }
+
+    /**
+     * 清空所有 key 前缀的本地缓存
+     */
+    public final void invalidateAllKeys() {
+        if (keyCacheMap.isEmpty()) {
+            return;
+        }
+        keyCacheMap.values().forEach(LocalCache::clear);
+        publish(TYPE_KEY, OPERATION_CLEAR, "", "");
+    }
+
+    /**
+     * 失效 Spring Cache 的本地缓存
+     *
+     * @param cacheName 缓存名称
+     * @param key       缓存的 Key，为 {@code null} 时清空
+     */
+    public final void invalidateNamed(String cacheName, @Nullable String key) {
+        LocalCache<Object> localCache = getNamedCache(cacheName);
+        if (Objects.isNull(localCache)) {
+            return;
+        }
+        if (Objects.isNull(key)) {
+            localCache.clear();
+            publish(TYPE_CACHE, OPERATION_CLEAR, cacheName, "");
+            return;
+        }
+        localCache.remove(key);
+        publish(TYPE_CACHE, OPERATION_EVICT, cacheName, key);
+    }
+
+    /**
+     * 发布失效通知
+     *
+     * @param type      通知类型
+     * @param operation 操作
+     * @param name      缓存名称
+     * @param key       缓存的 Key
+     */
+    private void publish(String type, String operation, String name, String key) {
+        try {
+            stringRedisTemplate.convertAndSend(getChannel(),
+                    String.join(SEPARATOR, nodeId, type, operation, name, key)
+            );
+        } catch (Exception exception) {
+            // 其他节点将在本地缓存过期后读取到新值
+            log.error("发布本地缓存失效通知失败", exception);
+        }
+    }
+
+    /**
+     * 收到失效通知
+     *
+     * @param message 通知
+     */
+    private void onMessage(@NotNull String message) {
+        String[] parts = message.split("\\" + SEPARATOR, 5);
+        if (parts.length < 5 || nodeId.equals(parts[0])) {
+            // 自己发出的通知已在本地处理
+            return;
+        }
+        final String type = parts[1];
+        final boolean clear = OPERATION_CLEAR.equals(parts[2]);
+        final String name = parts[3];
+        final String key = parts[4];
+        if (TYPE_KEY.equals(type)) {
+            if (clear) {
+                keyCacheMap.values().forEach(LocalCache::clear);
+                return;
+            }
+            LocalCache<byte[]> localCache = getKeyCache(key);
+            if (Objects.nonNull(localCache)) {
+                localCache.remove(key);
+            }
+            return;
+        }
+        LocalCache<Object> localCache = getNamedCache(name);
+        if (Objects.isNull(localCache)) {
+            return;
+        }
+        if (clear) {
+            localCache.clear();
+            return;
+        }
+        localCache.remove(key);
+    }
+
+    /**
+     * 获取失效通知的频道
+     *
+     * @return 频道
+     */
+    private @NotNull String getChannel() {
+        return redisConfig.getPrefix() + INVALIDATE_CHANNEL;
+    }
+}
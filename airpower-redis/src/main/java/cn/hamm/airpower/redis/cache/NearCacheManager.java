@@ -0,0 +1,193 @@
+package cn.hamm.airpower.redis.cache;
+
+import lombok.AllArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * <h1>带本地缓存的缓存管理器</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 仅对配置了本地缓存的缓存名称生效，本地缓存中的对象在调用方之间共享，请勿修改
+ */
+public class NearCacheManager implements CacheManager {
+    /**
+     * 被装饰的缓存管理器
+     */
+    private final CacheManager delegate;
+
+    /**
+     * 本地缓存助手
+     */
+    private final NearCacheHelper nearCacheHelper;
+
+    /**
+     * 已装饰的缓存
+     */
+    private final Map<String, Cache> cacheMap = new ConcurrentHashMap<>();
+
+    /**
+     * 创建缓存管理器
+     *
+     * @param delegate        被装饰的缓存管理器
+     * @param nearCacheHelper 本地缓存助手
+     */
+    public NearCacheManager(CacheManager delegate, NearCacheHelper nearCacheHelper) {
+        this.delegate = delegate;
+        this.nearCacheHelper = nearCacheHelper;
+    }
+
+    @Override
+    public @Nullable Cache getCache(@NotNull String name) {
+        Cache cache = delegate.getCache(name);
+        if (Objects.isNull(cache)) {
+            return null;
+        }
+        LocalCache<Object> localCache = nearCacheHelper.getNamedCache(name);
+        if (Objects.isNull(localCache)) {
+            return cache;
+        }
+        return cacheMap.computeIfAbsent(name, key -> new NearCache(cache, localCache, nearCacheHelper));
+    }
+
+    @Override
+    public @NotNull Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    /**
+     * 带本地缓存的缓存
+     */
+    @AllArgsConstructor
+    private static class NearCache implements Cache {
+        /**
+         * 被装饰的缓存
+         */
+        private final Cache delegate;
+
+        /**
+         * 本地缓存
+         */
+        private final LocalCache<Object> localCache;
+
+        /**
+         * 本地缓存助手
+         */
+        private final NearCacheHelper nearCacheHelper;
+
+        @Override
+        public @NotNull String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public @NotNull Object getNativeCache() {
+            return delegate.getNativeCache();
+        }
+
+        @Override
+        public @Nullable ValueWrapper get(@NotNull Object key) {
+            final String localKey = String.valueOf(key);
+            Object value = localCache.get(localKey);
+            if (Objects.nonNull(value)) {
+                return new SimpleValueWrapper(value);
+            }
+            long version = localCache.getVersion(localKey);
+            ValueWrapper valueWrapper = delegate.get(key);
+            if (Objects.nonNull(valueWrapper)) {
+                localCache.put(localKey, valueWrapper.get(), version);
+            }
+            return valueWrapper;
+        }
+
+        @Override
+        public <T> @Nullable T get(@NotNull Object key, @Nullable Class<T> type) {
+            ValueWrapper valueWrapper = get(key);
+            if (Objects.isNull(valueWrapper)) {
+                return null;
+            }
+            Object value = valueWrapper.get();
+            if (Objects.nonNull(type) && Objects.nonNull(value) && !type.isInstance(value)) {
+                throw new IllegalStateException("缓存的值不是 " + type.getName() + " 类型: " + value);
+            }
+            //noinspection unchecked
+            return (T) value;
+        }
+
+        @Override
+        public <T> @Nullable T get(@NotNull Object key, @NotNull Callable<T> valueLoader) {
+            final String localKey = String.valueOf(key);
+            Object value = localCache.get(localKey);
+            if (Objects.nonNull(value)) {
+                //noinspection unchecked
+                return (T) value;
+            }
+            long version = localCache.getVersion(localKey);
+            T loaded = delegate.get(key, valueLoader);
+            localCache.put(localKey, loaded, version);
+            return loaded;
+        }
+
+        @Override
+        public @Nullable CompletableFuture<?> retrieve(@NotNull Object key) {
+            return delegate.retrieve(key);
+        }
+
+        @Override
+        public <T> @NotNull CompletableFuture<T> retrieve(
+                @NotNull Object key, @NotNull Supplier<CompletableFuture<T>> valueLoader
+        ) {
+            return delegate.retrieve(key, valueLoader);
+        }
+
+        @Override
+        public void put(@NotNull Object key, @Nullable Object value) {
+            delegate.put(key, value);
+            nearCacheHelper.invalidateNamed(getName(), String.valueOf(key));
+        }
+
+        @Override
+        public @Nullable ValueWrapper putIfAbsent(@NotNull Object key, @Nullable Object value) {
+            ValueWrapper valueWrapper = delegate.putIfAbsent(key, value);
+            nearCacheHelper.invalidateNamed(getName(), String.valueOf(key));
+            return valueWrapper;
+        }
+
+        @Override
+        public void evict(@NotNull Object key) {
+            delegate.evict(key);
+            nearCacheHelper.invalidateNamed(getName(), String.valueOf(key));
+        }
+
+        @Override
+        public boolean evictIfPresent(@NotNull Object key) {
+            boolean present = delegate.evictIfPresent(key);
+            nearCacheHelper.invalidateNamed(getName(), String.valueOf(key));
+            return present;
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+            nearCacheHelper.invalidateNamed(getName(), null);
+        }
+
+        @Override
+        public boolean invalidate() {
+            boolean invalidated = delegate.invalidate();
+            nearCacheHelper.invalidateNamed(getName(), null);
+            return invalidated;
+        }
+    }
+}
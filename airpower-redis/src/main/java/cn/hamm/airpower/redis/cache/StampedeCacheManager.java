@@ -0,0 +1,420 @@
+package cn.hamm.airpower.redis.cache;
+
+import cn.hamm.airpower.redis.RedisConfig;
+import cn.hamm.airpower.redis.RedisHelper;
+import cn.hamm.airpower.redis.RedisLockHelper;
+import cn.hamm.airpower.redis.RedisNamespaceHelper;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * <h1>防击穿的缓存管理器</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote <ul>
+ *     <li>{@code @Cacheable(sync = true)} 时同一个 key 在节点内只加载一次，并通过 Redis 锁保证跨节点只加载一次</li>
+ *     <li>按加载耗时概率提前刷新，越接近过期越可能由某一个调用方提前重新加载</li>
+ *     <li>缓存时间可按缓存名称配置，并增加随机抖动，避免同时过期</li>
+ * </ul>
+ */
+public class StampedeCacheManager implements CacheManager {
+    /**
+     * 加载锁的前缀
+     */
+    private static final String LOAD_LOCK_PREFIX = "CACHE_LOAD_";
+
+    /**
+     * 未命中时间记录的最大数量
+     */
+    private static final int MAX_MISS_TIME_SIZE = 10000;
+
+    /**
+     * 被装饰的缓存管理器
+     */
+    private final CacheManager delegate;
+
+    /**
+     * Redis 配置
+     */
+    private final RedisConfig redisConfig;
+
+    /**
+     * 锁助手
+     */
+    private final RedisLockHelper redisLockHelper;
+
+    /**
+     * 命名空间助手
+     */
+    private final RedisNamespaceHelper redisNamespaceHelper;
+
+    /**
+     * 已装饰的缓存
+     */
+    private final Map<String, Cache> cacheMap = new ConcurrentHashMap<>();
+
+    /**
+     * 创建缓存管理器
+     *
+     * @param delegate             被装饰的缓存管理器
+     * @param redisConfig          Redis 配置
+     * @param redisLockHelper      锁助手
+     * @param redisNamespaceHelper 命名空间助手
+     */
+    public StampedeCacheManager(
+            CacheManager delegate, RedisConfig redisConfig,
+            RedisLockHelper redisLockHelper, RedisNamespaceHelper redisNamespaceHelper
+    ) {
+        this.delegate = delegate;
+        this.redisConfig = redisConfig;
+        this.redisLockHelper = redisLockHelper;
+        this.redisNamespaceHelper = redisNamespaceHelper;
+    }
+
+    /**
+     * 获取缓存时间函数
+     *
+     * @param redisConfig Redis 配置
+     * @return 缓存时间函数
+     * @apiNote 信封中的过期时间已包含抖动，直接使用；其他值使用带抖动的默认缓存时间
+     */
+    public static @NotNull RedisCacheWriter.TtlFunction getTtlFunction(RedisConfig redisConfig) {
+        return (key, value) -> {
+            if (value instanceof CacheEnvelope envelope && envelope.getExpireTime() > 0) {
+                return Duration.ofMillis(Math.max(1, envelope.getExpireTime() - System.currentTimeMillis()));
+            }
+            return Duration.ofMillis(jitter(redisConfig.getCacheTtlSecond() * 1000, redisConfig));
+        };
+    }
+
+    /**
+     * 为缓存时间增加随机抖动
+     *
+     * @param millisecond 缓存时间(毫秒)
+     * @param redisConfig Redis 配置
+     * @return 抖动后的缓存时间(毫秒)
+     */
+    private static long jitter(long millisecond, @NotNull RedisConfig redisConfig) {
+        double ratio = redisConfig.getCacheTtlJitterRatio();
+        if (ratio <= 0) {
+            return millisecond;
+        }
+        double offset = (ThreadLocalRandom.current().nextDouble() * 2 - 1) * ratio;
+        return Math.max(1, (long) (millisecond * (1 + offset)));
+    }
+
+    @Override
+    public @Nullable Cache getCache(@NotNull String name) {
+        Cache cache = delegate.getCache(name);
+        if (Objects.isNull(cache)) {
+            return null;
+        }
+        return cacheMap.computeIfAbsent(name, key -> new StampedeCache(cache));
+    }
+
+    @Override
+    public @NotNull Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    /**
+     * 防击穿的缓存
+     */
+    private class StampedeCache implements Cache {
+        /**
+         * 被装饰的缓存
+         */
+        private final Cache delegate;
+
+        /**
+         * 正在加载的 key
+         */
+        private final Map<Object, CompletableFuture<Object>> loadingMap = new ConcurrentHashMap<>();
+
+        /**
+         * 未命中的时间
+         *
+         * @apiNote 用于估算非同步加载的耗时
+         */
+        private final Map<Object, Long> missTimeMap = new ConcurrentHashMap<>();
+
+        /**
+         * 创建缓存
+         *
+         * @param delegate 被装饰的缓存
+         */
+        private StampedeCache(Cache delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public @NotNull String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public @NotNull Object getNativeCache() {
+            return delegate.getNativeCache();
+        }
+
+        @Override
+        public @Nullable ValueWrapper get(@NotNull Object key) {
+            ValueWrapper valueWrapper = delegate.get(key);
+            if (Objects.isNull(valueWrapper)) {
+                recordMiss(key);
+                return null;
+            }
+            if (!(valueWrapper.get() instanceof CacheEnvelope envelope)) {
+                return valueWrapper;
+            }
+            if (shouldRefresh(envelope)) {
+                // 当作未命中，由本次调用方重新加载并写入
+                recordMiss(key);
+                return null;
+            }
+            return new SimpleValueWrapper(envelope.getValue());
+        }
+
+        @Override
+        public <T> @Nullable T get(@NotNull Object key, @Nullable Class<T> type) {
+            ValueWrapper valueWrapper = get(key);
+            if (Objects.isNull(valueWrapper)) {
+                return null;
+            }
+            Object value = valueWrapper.get();
+            if (Objects.nonNull(type) && Objects.nonNull(value) && !type.isInstance(value)) {
+                throw new IllegalStateException("缓存的值不是 " + type.getName() + " 类型: " + value);
+            }
+            //noinspection unchecked
+            return (T) value;
+        }
+
+        @Override
+        public <T> @Nullable T get(@NotNull Object key, @NotNull Callable<T> valueLoader) {
+            ValueWrapper valueWrapper = delegate.get(key);
+            CacheEnvelope stale = null;
+            if (Objects.nonNull(valueWrapper)) {
+                if (!(valueWrapper.get() instanceof CacheEnvelope envelope)) {
+                    //noinspection unchecked
+                    return (T) valueWrapper.get();
+                }
+                if (!shouldRefresh(envelope)) {
+                    //noinspection unchecked
+                    return (T) envelope.getValue();
+                }
+                stale = envelope;
+            }
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            CompletableFuture<Object> loading = loadingMap.putIfAbsent(key, future);
+            if (Objects.nonNull(loading)) {
+                if (Objects.nonNull(stale)) {
+                    // 其他线程正在提前刷新，直接返回旧值
+                    //noinspection unchecked
+                    return (T) stale.getValue();
+                }
+                return join(key, valueLoader, loading);
+            }
+            try {
+                Object value = load(key, valueLoader, stale);
+                future.complete(value);
+                //noinspection unchecked
+                return (T) value;
+            } catch (RuntimeException exception) {
+                future.completeExceptionally(exception);
+                throw exception;
+            } finally {
+                loadingMap.remove(key, future);
+            }
+        }
+
+        @Override
+        public @Nullable CompletableFuture<?> retrieve(@NotNull Object key) {
+            CompletableFuture<?> future = delegate.retrieve(key);
+            if (Objects.isNull(future)) {
+                return null;
+            }
+            return future.thenApply(value -> value instanceof CacheEnvelope envelope ? envelope.getValue() : value);
+        }
+
+        @Override
+        public <T> @NotNull CompletableFuture<T> retrieve(
+                @NotNull Object key, @NotNull Supplier<CompletableFuture<T>> valueLoader
+        ) {
+            //noinspection unchecked
+            return delegate.retrieve(key, () -> valueLoader.get().thenApply(value -> (T) wrap(value, 0)))
+                    .thenApply(value -> {
+                        //noinspection unchecked
+                        return value instanceof CacheEnvelope envelope ? (T) envelope.getValue() : value;
+                    });
+        }
+
+        @Override
+        public void put(@NotNull Object key, @Nullable Object value) {
+            Long missTime = missTimeMap.remove(key);
+            long loadMillisecond = Objects.isNull(missTime) ? 0 : System.currentTimeMillis() - missTime;
+            delegate.put(key, wrap(value, loadMillisecond));
+        }
+
+        @Override
+        public @Nullable ValueWrapper putIfAbsent(@NotNull Object key, @Nullable Object value) {
+            ValueWrapper valueWrapper = delegate.putIfAbsent(key, wrap(value, 0));
+            if (Objects.nonNull(valueWrapper) && valueWrapper.get() instanceof CacheEnvelope envelope) {
+                return new SimpleValueWrapper(envelope.getValue());
+            }
+            return valueWrapper;
+        }
+
+        @Override
+        public void evict(@NotNull Object key) {
+            delegate.evict(key);
+        }
+
+        @Override
+        public boolean evictIfPresent(@NotNull Object key) {
+            return delegate.evictIfPresent(key);
+        }
+
+        @Override
+        public void clear() {
+            // 增加代数即可，旧数据在后台回收
+            redisNamespaceHelper.invalidate(RedisNamespaceHelper.getCacheNamespace(getName()));
+        }
+
+        @Override
+        public boolean invalidate() {
+            clear();
+            return true;
+        }
+
+        /**
+         * 加载并写入缓存
+         *
+         * @param key         缓存的 Key
+         * @param valueLoader 加载器
+         * @param stale       即将过期的旧值，没有时为 {@code null}
+         * @return 值
+         * @apiNote 跨节点通过 Redis 锁互斥；提前刷新时不等待锁，拿不到锁说明其他节点正在刷新，直接返回旧值
+         */
+        private @Nullable Object load(Object key, Callable<?> valueLoader, @Nullable CacheEnvelope stale) {
+            final String lockKey = LOAD_LOCK_PREFIX + getName() + "_" + key;
+            final int lockTimeout = redisConfig.getCacheLoadLockMillisecond();
+            RedisHelper.Lock lock;
+            if (Objects.nonNull(stale)) {
+                lock = redisLockHelper.tryLock(lockKey, lockTimeout);
+                if (Objects.isNull(lock)) {
+                    return stale.getValue();
+                }
+            } else {
+                lock = redisLockHelper.lock(lockKey, lockTimeout);
+            }
+            try {
+                if (Objects.isNull(stale)) {
+                    // 拿到锁后再查一次，其他节点可能已经加载完成
+                    ValueWrapper valueWrapper = delegate.get(key);
+                    if (Objects.nonNull(valueWrapper)) {
+                        Object value = valueWrapper.get();
+                        return value instanceof CacheEnvelope envelope ? envelope.getValue() : value;
+                    }
+                }
+                long startTime = System.currentTimeMillis();
+                Object value;
+                try {
+                    value = valueLoader.call();
+                } catch (Exception exception) {
+                    throw new ValueRetrievalException(key, valueLoader, exception);
+                }
+                delegate.put(key, wrap(value, System.currentTimeMillis() - startTime));
+                return value;
+            } finally {
+                redisLockHelper.release(lock);
+            }
+        }
+
+        /**
+         * 等待其他线程加载完成
+         *
+         * @param key         缓存的 Key
+         * @param valueLoader 加载器
+         * @param loading     正在进行的加载
+         * @param <T>         类型
+         * @return 值
+         */
+        private <T> @Nullable T join(Object key, Callable<T> valueLoader, @NotNull CompletableFuture<Object> loading) {
+            try {
+                //noinspection unchecked
+                return (T) loading.get(redisConfig.getCacheLoadLockMillisecond(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new ValueRetrievalException(key, valueLoader, exception);
+            } catch (ExecutionException exception) {
+                if (exception.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new ValueRetrievalException(key, valueLoader, exception.getCause());
+            } catch (TimeoutException exception) {
+                throw new ValueRetrievalException(key, valueLoader, exception);
+            }
+        }
+
+        /**
+         * 包装为缓存信封
+         *
+         * @param value           值
+         * @param loadMillisecond 加载耗时(毫秒)
+         * @return 缓存信封
+         */
+        private @Nullable Object wrap(@Nullable Object value, long loadMillisecond) {
+            if (Objects.isNull(value)) {
+                return null;
+            }
+            long ttlSecond = redisConfig.getCacheTtlSeconds().getOrDefault(getName(), redisConfig.getCacheTtlSecond());
+            return new CacheEnvelope()
+                    .setValue(value)
+                    .setLoadMillisecond(loadMillisecond)
+                    .setExpireTime(System.currentTimeMillis() + jitter(ttlSecond * 1000, redisConfig));
+        }
+
+        /**
+         * 是否需要提前刷新
+         *
+         * @param envelope 缓存信封
+         * @return 是否提前刷新
+         * @apiNote {@code now - loadMillisecond * beta * ln(random) >= expireTime}
+         */
+        private boolean shouldRefresh(@NotNull CacheEnvelope envelope) {
+            double beta = redisConfig.getCacheEarlyRefreshBeta();
+            if (beta <= 0 || envelope.getLoadMillisecond() <= 0 || envelope.getExpireTime() <= 0) {
+                return false;
+            }
+            double random = ThreadLocalRandom.current().nextDouble();
+            if (random <= 0) {
+                return false;
+            }
+            double gap = -envelope.getLoadMillisecond() * beta * Math.log(random);
+            return System.currentTimeMillis() + gap >= envelope.getExpireTime();
+        }
+
+        /**
+         * 记录未命中的时间
+         *
+         * @param key 缓存的 Key
+         */
+        private void recordMiss(Object key) {
+            if (missTimeMap.size() >= MAX_MISS_TIME_SIZE) {
+                missTimeMap.clear();
+            }
+            missTimeMap.put(key, System.currentTimeMillis());
+        }
+    }
+}
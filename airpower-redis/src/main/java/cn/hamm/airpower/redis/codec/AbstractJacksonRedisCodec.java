@@ -0,0 +1,138 @@
+package cn.hamm.airpower.redis.codec;
+
+import cn.hamm.airpower.core.exception.ServiceException;
+import cn.hamm.airpower.redis.RedisConfig;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import jakarta.annotation.PostConstruct;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static cn.hamm.airpower.exception.Errors.REDIS_ERROR;
+
+/**
+ * <h1>基于 Jackson 的 Redis 编解码器</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 子类只需提供对应数据格式的 {@link ObjectMapper}；Spring Cache 的值带有类型信息，
+ * 反序列化时只允许 {@code java.*}、框架、应用所在包和 {@link RedisConfig#getCacheTypePackages()} 中的类型
+ */
+public abstract class AbstractJacksonRedisCodec implements IRedisCodec {
+    /**
+     * 框架的包前缀
+     */
+    private static final String FRAMEWORK_PACKAGE = "cn.hamm.airpower.";
+
+    /**
+     * 实体使用的 ObjectMapper
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Spring Cache 使用的序列化器
+     */
+    private RedisSerializer<Object> cacheSerializer;
+
+    @Autowired
+    private BeanFactory beanFactory;
+
+    @Autowired
+    private RedisConfig redisConfig;
+
+    /**
+     * 创建编解码器
+     */
+    protected AbstractJacksonRedisCodec() {
+        objectMapper = configure(createObjectMapper());
+    }
+
+    /**
+     * 创建 Spring Cache 使用的序列化器
+     *
+     * @apiNote 应用所在包在容器启动后才能确定，所以不在构造方法中创建；
+     * 与 {@link GenericJackson2JsonRedisSerializer} 一致为所有类型写入类型标识，{@code Long}、数组、时间和 final 类型才能原样读回
+     */
+    @PostConstruct
+    @SuppressWarnings("deprecation")
+    public void init() {
+        BasicPolymorphicTypeValidator.Builder builder = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubTypeIsArray()
+                .allowIfSubType("java.")
+                .allowIfSubType(FRAMEWORK_PACKAGE)
+                .allowIfSubType(NullValue.class);
+        getTypePackageList().forEach(packageName -> builder.allowIfSubType(packageName + "."));
+        ObjectMapper typedObjectMapper = configure(createObjectMapper());
+        typedObjectMapper.activateDefaultTyping(
+                builder.build(), ObjectMapper.DefaultTyping.EVERYTHING, JsonTypeInfo.As.PROPERTY
+        );
+        cacheSerializer = new GenericJackson2JsonRedisSerializer(typedObjectMapper);
+    }
+
+    /**
+     * 创建 ObjectMapper
+     *
+     * @return ObjectMapper
+     */
+    protected abstract @NotNull ObjectMapper createObjectMapper();
+
+    @Override
+    public byte @NotNull [] encode(@NotNull Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException exception) {
+            throw new ServiceException(REDIS_ERROR, "编码失败: " + exception.getMessage());
+        }
+    }
+
+    @Override
+    public <T> T decode(byte @NotNull [] bytes, @NotNull Class<T> clazz) {
+        try {
+            return objectMapper.readValue(bytes, clazz);
+        } catch (IOException exception) {
+            throw new ServiceException(REDIS_ERROR, "解码失败: " + exception.getMessage());
+        }
+    }
+
+    @Override
+    public @NotNull RedisSerializer<Object> getCacheSerializer() {
+        return cacheSerializer;
+    }
+
+    /**
+     * 获取允许反序列化的应用包
+     *
+     * @return 包名列表
+     */
+    private @NotNull List<String> getTypePackageList() {
+        List<String> packageList = new ArrayList<>(redisConfig.getCacheTypePackages());
+        if (AutoConfigurationPackages.has(beanFactory)) {
+            packageList.addAll(AutoConfigurationPackages.get(beanFactory));
+        }
+        return packageList;
+    }
+
+    /**
+     * 统一配置 ObjectMapper
+     *
+     * @param objectMapper ObjectMapper
+     * @return ObjectMapper
+     */
+    private @NotNull ObjectMapper configure(@NotNull ObjectMapper objectMapper) {
+        objectMapper.findAndRegisterModules();
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        objectMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        return objectMapper;
+    }
+}
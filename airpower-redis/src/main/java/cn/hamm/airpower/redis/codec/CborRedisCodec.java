@@ -0,0 +1,29 @@
+package cn.hamm.airpower.redis.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * <h1>CBOR 编解码器</h1>
+ *
+ * @author Hamm.cn
+ */
+@Component
+public class CborRedisCodec extends AbstractJacksonRedisCodec {
+    /**
+     * 编解码器标识
+     */
+    public static final byte ID = 2;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    protected @NotNull ObjectMapper createObjectMapper() {
+        return new CBORMapper();
+    }
+}
@@ -0,0 +1,45 @@
+package cn.hamm.airpower.redis.codec;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * <h1>Redis 编解码器</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 实现此接口并注册为 Bean 即可通过 {@link RedisCodec} 为实体选择，{@link #getId()} 写入缓存数据的头部，全局唯一且不可变更
+ */
+public interface IRedisCodec {
+    /**
+     * 编解码器标识
+     *
+     * @return 标识
+     */
+    byte getId();
+
+    /**
+     * 编码
+     *
+     * @param value 值
+     * @return 字节
+     */
+    byte @NotNull [] encode(@NotNull Object value);
+
+    /**
+     * 解码
+     *
+     * @param bytes 字节
+     * @param clazz 类型
+     * @param <T>   类型
+     * @return 值
+     */
+    <T> T decode(byte @NotNull [] bytes, @NotNull Class<T> clazz);
+
+    /**
+     * 获取 Spring Cache 使用的序列化器
+     *
+     * @return 序列化器
+     * @apiNote 需要在数据中保留类型信息，以便不指定类型时反序列化
+     */
+    @NotNull RedisSerializer<Object> getCacheSerializer();
+}
@@ -0,0 +1,48 @@
+package cn.hamm.airpower.redis.codec;
+
+import cn.hamm.airpower.core.Json;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <h1>JSON 编解码器</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 默认的编解码器，与之前直接存储 JSON 文本的数据完全兼容
+ */
+@Component
+public class JsonRedisCodec implements IRedisCodec {
+    /**
+     * 编解码器标识
+     */
+    public static final byte ID = 1;
+
+    /**
+     * Spring Cache 使用的序列化器
+     */
+    private final RedisSerializer<Object> cacheSerializer = new GenericJackson2JsonRedisSerializer();
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public byte @NotNull [] encode(@NotNull Object value) {
+        return Json.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public <T> T decode(byte @NotNull [] bytes, @NotNull Class<T> clazz) {
+        return Json.parse(new String(bytes, StandardCharsets.UTF_8), clazz);
+    }
+
+    @Override
+    public @NotNull RedisSerializer<Object> getCacheSerializer() {
+        return cacheSerializer;
+    }
+}
@@ -0,0 +1,31 @@
+package cn.hamm.airpower.redis.codec;
+
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * <h1>实体缓存的编解码器</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 标记在实体类上，未标记时使用 {@link JsonRedisCodec} 且不压缩；读取时按数据头部识别编解码器，切换后旧缓存仍可读取
+ */
+@Target(TYPE)
+@Retention(RUNTIME)
+@Inherited
+public @interface RedisCodec {
+    /**
+     * 编解码器
+     */
+    Class<? extends IRedisCodec> value() default JsonRedisCodec.class;
+
+    /**
+     * 是否在超过阈值后压缩
+     *
+     * @see cn.hamm.airpower.redis.RedisConfig#getCodecCompressThreshold()
+     */
+    boolean compress() default false;
+}
@@ -0,0 +1,275 @@
+package cn.hamm.airpower.redis.codec;
+
+import cn.hamm.airpower.core.exception.ServiceException;
+import cn.hamm.airpower.redis.RedisConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static cn.hamm.airpower.exception.Errors.REDIS_ERROR;
+
+/**
+ * <h1>Redis 编解码助手类</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 未压缩的 JSON 直接存储文本，与旧数据兼容；其他格式以 {@code 0x00, 编解码器标识, 标记位} 三个字节开头，
+ * 读取时按头部识别编解码器和压缩方式
+ */
+@Component
+@Slf4j
+public class RedisCodecHelper {
+    /**
+     * 头部魔数
+     *
+     * @apiNote JSON 文本不会以 {@code 0x00} 开头
+     */
+    private static final byte MAGIC = 0;
+
+    /**
+     * 头部长度
+     */
+    private static final int HEADER_LENGTH = 3;
+
+    /**
+     * 压缩标记位
+     */
+    private static final byte FLAG_DEFLATE = 1;
+
+    /**
+     * 实体类的编解码配置缓存
+     */
+    private final ClassValue<RedisCodec> codecAnnotationCache = new ClassValue<>() {
+        @Override
+        protected RedisCodec computeValue(@NotNull Class<?> clazz) {
+            return clazz.getAnnotation(RedisCodec.class);
+        }
+    };
+
+    /**
+     * 按类型索引的编解码器
+     */
+    private final Map<Class<?>, IRedisCodec> codecClassMap = new HashMap<>();
+
+    /**
+     * 按标识索引的编解码器
+     */
+    private final Map<Byte, IRedisCodec> codecIdMap = new HashMap<>();
+
+    @Autowired
+    private RedisConfig redisConfig;
+
+    @Autowired
+    private JsonRedisCodec jsonRedisCodec;
+
+    /**
+     * 注册所有编解码器
+     *
+     * @param codecList 编解码器列表
+     */
+    @Autowired
+    public void setCodecList(@NotNull List<IRedisCodec> codecList) {
+        for (IRedisCodec codec : codecList) {
+            IRedisCodec exist = codecIdMap.put(codec.getId(), codec);
+            if (Objects.nonNull(exist) && exist != codec) {
+                throw new ServiceException(REDIS_ERROR, "编解码器标识重复: " + codec.getId());
+            }
+            codecClassMap.put(codec.getClass(), codec);
+        }
+    }
+
+    /**
+     * 编码实体
+     *
+     * @param entity 实体
+     * @return 字节
+     */
+    public final byte @NotNull [] encode(@NotNull Object entity) {
+        RedisCodec annotation = codecAnnotationCache.get(entity.getClass());
+        if (Objects.isNull(annotation)) {
+            return jsonRedisCodec.encode(entity);
+        }
+        IRedisCodec codec = getCodec(annotation.value());
+        return frame(codec, codec.encode(entity), annotation.compress());
+    }
+
+    /**
+     * 解码实体
+     *
+     * @param bytes 字节
+     * @param clazz 实体类
+     * @param <T>   类型
+     * @return 实体
+     */
+    public final <T> @Nullable T decode(byte @Nullable [] bytes, @NotNull Class<T> clazz) {
+        if (Objects.isNull(bytes) || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return jsonRedisCodec.decode(bytes, clazz);
+        }
+        return getCodec(bytes).decode(unframe(bytes), clazz);
+    }
+
+    /**
+     * 获取 Spring Cache 使用的序列化器
+     *
+     * @return 序列化器
+     */
+    public final @NotNull RedisSerializer<Object> getCacheSerializer() {
+        final IRedisCodec cacheCodec = getCodec(redisConfig.getCacheCodec());
+        final boolean compress = Boolean.TRUE.equals(redisConfig.getCacheCompress());
+        return new RedisSerializer<>() {
+            @Override
+            public byte[] serialize(Object value) throws SerializationException {
+                byte[] bytes = cacheCodec.getCacheSerializer().serialize(value);
+                if (Objects.isNull(bytes)) {
+                    return null;
+                }
+                return frame(cacheCodec, bytes, compress);
+            }
+
+            @Override
+            public Object deserialize(byte[] bytes) throws SerializationException {
+                if (Objects.isNull(bytes) || bytes.length == 0) {
+                    return null;
+                }
+                if (bytes[0] != MAGIC) {
+                    return jsonRedisCodec.getCacheSerializer().deserialize(bytes);
+                }
+                return getCodec(bytes).getCacheSerializer().deserialize(unframe(bytes));
+            }
+        };
+    }
+
+    /**
+     * 获取指定类型的编解码器
+     *
+     * @param codecClass 编解码器类型
+     * @return 编解码器
+     */
+    private @NotNull IRedisCodec getCodec(Class<? extends IRedisCodec> codecClass) {
+        IRedisCodec codec = codecClassMap.get(codecClass);
+        if (Objects.isNull(codec)) {
+            throw new ServiceException(REDIS_ERROR, "编解码器未注册: " + codecClass.getName());
+        }
+        return codec;
+    }
+
+    /**
+     * 获取数据头部标识的编解码器
+     *
+     * @param bytes 带头部的字节
+     * @return 编解码器
+     */
+    private @NotNull IRedisCodec getCodec(byte @NotNull [] bytes) {
+        if (bytes.length < HEADER_LENGTH) {
+            throw new ServiceException(REDIS_ERROR, "缓存数据头部不完整");
+        }
+        IRedisCodec codec = codecIdMap.get(bytes[1]);
+        if (Objects.isNull(codec)) {
+            throw new ServiceException(REDIS_ERROR, "未知的编解码器标识: " + bytes[1]);
+        }
+        return codec;
+    }
+
+    /**
+     * 添加头部并按需压缩
+     *
+     * @param codec    编解码器
+     * @param payload  编码后的字节
+     * @param compress 是否允许压缩
+     * @return 最终存储的字节
+     */
+    private byte @NotNull [] frame(@NotNull IRedisCodec codec, byte @NotNull [] payload, boolean compress) {
+        boolean deflate = compress && payload.length > redisConfig.getCodecCompressThreshold();
+        if (codec == jsonRedisCodec && !deflate) {
+            // 与旧数据保持一致
+            return payload;
+        }
+        byte[] body = deflate ? deflate(payload) : payload;
+        byte[] bytes = new byte[HEADER_LENGTH + body.length];
+        bytes[0] = MAGIC;
+        bytes[1] = codec.getId();
+        bytes[2] = deflate ? FLAG_DEFLATE : 0;
+        System.arraycopy(body, 0, bytes, HEADER_LENGTH, body.length);
+        return bytes;
+    }
+
+    /**
+     * 去除头部并按需解压
+     *
+     * @param bytes 带头部的字节
+     * @return 编码后的字节
+     */
+    private byte @NotNull [] unframe(byte @NotNull [] bytes) {
+        byte[] body = new byte[bytes.length - HEADER_LENGTH];
+        System.arraycopy(bytes, HEADER_LENGTH, body, 0, body.length);
+        if ((bytes[2] & FLAG_DEFLATE) != 0) {
+            return inflate(body);
+        }
+        return body;
+    }
+
+    /**
+     * 压缩
+     *
+     * @param bytes 原始字节
+     * @return 压缩后的字节
+     */
+    private byte @NotNull [] deflate(byte @NotNull [] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                outputStream.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 解压
+     *
+     * @param bytes 压缩后的字节
+     * @return 原始字节
+     */
+    private byte @NotNull [] inflate(byte @NotNull [] bytes) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length * 2);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new ServiceException(REDIS_ERROR, "缓存数据已损坏");
+                }
+                outputStream.write(buffer, 0, length);
+            }
+            return outputStream.toByteArray();
+        } catch (DataFormatException exception) {
+            log.error("解压缓存数据失败", exception);
+            throw new ServiceException(REDIS_ERROR, "缓存数据已损坏");
+        } finally {
+            inflater.end();
+        }
+    }
+}
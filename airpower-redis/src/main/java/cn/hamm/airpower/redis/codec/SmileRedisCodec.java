@@ -0,0 +1,29 @@
+package cn.hamm.airpower.redis.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * <h1>Smile 编解码器</h1>
+ *
+ * @author Hamm.cn
+ */
+@Component
+public class SmileRedisCodec extends AbstractJacksonRedisCodec {
+    /**
+     * 编解码器标识
+     */
+    public static final byte ID = 3;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    protected @NotNull ObjectMapper createObjectMapper() {
+        return new SmileMapper();
+    }
+}
@@ -0,0 +1,218 @@
+package cn.hamm.airpower.redis;
+
+import cn.hamm.airpower.core.exception.ServiceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <h1>Redis 锁集成测试</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 另一个节点由容器另行创建的 {@link RedisLockHelper} 模拟，两者的持有者标识互不相同
+ */
+@SpringJUnitConfig(RedisTestConfig.class)
+@EnabledIf("cn.hamm.airpower.redis.RedisTestConfig#isRedisAvailable")
+class RedisLockHelperTest {
+    /**
+     * 锁超时时间(毫秒)
+     */
+    private static final int TIMEOUT = 10000;
+
+    /**
+     * 预期获取失败时的等待时间(毫秒)
+     */
+    private static final int SHORT_TIMEOUT = 300;
+
+    @Autowired
+    private RedisLockHelper redisLockHelper;
+
+    @Autowired
+    private RedisConfig redisConfig;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    /**
+     * 另一个节点
+     */
+    private RedisLockHelper otherNode;
+
+    /**
+     * 另一个线程
+     */
+    private ExecutorService otherThread;
+
+    @BeforeEach
+    void setUp() {
+        otherNode = beanFactory.createBean(RedisLockHelper.class);
+        otherThread = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        otherThread.shutdownNow();
+        beanFactory.destroyBean(otherNode);
+        redisConfig.setLockWatchdog(true);
+        redisConfig.setLockWaitSliceMillisecond(1000);
+    }
+
+    @Test
+    void releaseWakesWaiterOnOtherNode() throws Exception {
+        // 等待分片足够长，只有释放通知才能及时唤醒
+        redisConfig.setLockWaitSliceMillisecond(TIMEOUT);
+        final String key = newKey();
+        RedisHelper.Lock lock = redisLockHelper.lock(key, TIMEOUT);
+        Future<Long> waited = otherThread.submit(() -> {
+            long startTime = System.currentTimeMillis();
+            RedisHelper.Lock other = otherNode.lock(key, TIMEOUT);
+            long waitTime = System.currentTimeMillis() - startTime;
+            otherNode.release(other);
+            return waitTime;
+        });
+        Thread.sleep(200);
+        redisLockHelper.release(lock);
+        long waitTime = waited.get(TIMEOUT, TimeUnit.MILLISECONDS);
+        assertTrue(waitTime < TIMEOUT / 2, "等待者应由释放通知唤醒，实际等待 " + waitTime + " 毫秒");
+    }
+
+    @Test
+    void lockExpiresWithoutWatchdog() throws Exception {
+        redisConfig.setLockWatchdog(false);
+        final String key = newKey();
+        RedisHelper.Lock lock = redisLockHelper.lock(key, SHORT_TIMEOUT);
+        Thread.sleep(SHORT_TIMEOUT * 2);
+
+        RedisHelper.Lock other = assertDoesNotThrow(() -> otherNode.lock(key, SHORT_TIMEOUT), "过期的锁应能被其他节点获取");
+        // 已过期的锁释放时不影响其他节点持有的锁
+        redisLockHelper.release(lock);
+        assertThrows(ServiceException.class, () -> redisLockHelper.lock(key, SHORT_TIMEOUT));
+        otherNode.release(other);
+    }
+
+    @Test
+    void watchdogRenewsHeldLock() throws Exception {
+        final String key = newKey();
+        RedisHelper.Lock lock = redisLockHelper.lock(key, SHORT_TIMEOUT);
+        Thread.sleep(SHORT_TIMEOUT * 3);
+
+        assertLocked(key, "看门狗续期后锁仍应被持有");
+        Long ttl = stringRedisTemplate.getExpire(redisConfig.getPrefix() + key, TimeUnit.MILLISECONDS);
+        assertNotNull(ttl);
+        assertTrue(ttl > 0 && ttl <= SHORT_TIMEOUT, "续期后的剩余时间不应超过锁超时时间: " + ttl);
+        assertTrue(redisLockHelper.getStatistics().getRenewCount() > 0);
+        redisLockHelper.release(lock);
+        assertFalse(stringRedisTemplate.hasKey(redisConfig.getPrefix() + key));
+    }
+
+    @Test
+    void reentrantLockIsHeldUntilLastRelease() {
+        final String key = newKey();
+        RedisHelper.Lock first = redisLockHelper.lock(key, TIMEOUT);
+        RedisHelper.Lock second = redisLockHelper.lock(key, TIMEOUT);
+        redisLockHelper.release(second);
+        assertLocked(key, "重入的锁释放一次后仍应被持有");
+
+        redisLockHelper.release(first);
+        assertUnlocked(key, "最后一次释放后其他节点应能获取");
+    }
+
+    @Test
+    void readLocksAreShared() {
+        final String key = newKey();
+        RedisHelper.Lock read = redisLockHelper.lock(key, TIMEOUT, LockMode.READ);
+        RedisHelper.Lock otherRead = otherNode.lock(key, SHORT_TIMEOUT, LockMode.READ);
+        otherNode.release(otherRead);
+        redisLockHelper.release(read);
+    }
+
+    @Test
+    void readLockExcludesWriteLock() {
+        final String key = newKey();
+        RedisHelper.Lock read = redisLockHelper.lock(key, TIMEOUT, LockMode.READ);
+        assertLocked(key, "持有读锁时其他节点不能获取写锁");
+        redisLockHelper.release(read);
+        assertUnlocked(key, "读锁释放后其他节点应能获取写锁");
+    }
+
+    @Test
+    void writeLockExcludesReadLock() {
+        final String key = newKey();
+        RedisHelper.Lock write = redisLockHelper.lock(key, TIMEOUT);
+        assertThrows(ServiceException.class, () -> otherNode.lock(key, SHORT_TIMEOUT, LockMode.READ));
+        redisLockHelper.release(write);
+
+        RedisHelper.Lock read = otherNode.lock(key, SHORT_TIMEOUT, LockMode.READ);
+        otherNode.release(read);
+    }
+
+    @Test
+    void writeHolderCanAcquireReadLock() {
+        final String key = newKey();
+        RedisHelper.Lock write = redisLockHelper.lock(key, TIMEOUT);
+        RedisHelper.Lock read = redisLockHelper.lock(key, SHORT_TIMEOUT, LockMode.READ);
+        redisLockHelper.release(read);
+        assertLocked(key, "释放读锁后写锁仍应被持有");
+        redisLockHelper.release(write);
+        assertUnlocked(key, "写锁释放后其他节点应能获取");
+    }
+
+    @Test
+    void releaseFromOtherThreadIsRejected() {
+        final String key = newKey();
+        RedisHelper.Lock lock = redisLockHelper.lock(key, TIMEOUT);
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> otherThread.submit(() -> redisLockHelper.release(lock)).get()
+        );
+        assertInstanceOf(ServiceException.class, exception.getCause());
+        assertLocked(key, "其他线程释放失败后锁仍应被持有");
+        redisLockHelper.release(lock);
+    }
+
+    /**
+     * 断言锁被其他节点持有
+     *
+     * @param key     锁的 key
+     * @param message 失败时的提示
+     */
+    private void assertLocked(String key, String message) {
+        assertThrows(ServiceException.class, () -> otherNode.lock(key, SHORT_TIMEOUT), message);
+    }
+
+    /**
+     * 断言锁可以被其他节点获取
+     *
+     * @param key     锁的 key
+     * @param message 失败时的提示
+     */
+    private void assertUnlocked(String key, String message) {
+        RedisHelper.Lock other = assertDoesNotThrow(() -> otherNode.lock(key, SHORT_TIMEOUT), message);
+        otherNode.release(other);
+    }
+
+    /**
+     * 生成不重复的锁 key
+     *
+     * @return key
+     */
+    private String newKey() {
+        return "LOCK_TEST_" + UUID.randomUUID();
+    }
+}
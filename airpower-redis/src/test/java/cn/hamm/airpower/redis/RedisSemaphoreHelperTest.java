@@ -0,0 +1,164 @@
+package cn.hamm.airpower.redis;
+
+import cn.hamm.airpower.core.exception.ServiceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <h1>Redis 信号量集成测试</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 另一个节点由容器另行创建的 {@link RedisSemaphoreHelper} 模拟，销毁后看门狗停止，用于模拟节点宕机
+ */
+@SpringJUnitConfig(RedisTestConfig.class)
+@EnabledIf("cn.hamm.airpower.redis.RedisTestConfig#isRedisAvailable")
+class RedisSemaphoreHelperTest {
+    /**
+     * 最长等待时间(毫秒)
+     */
+    private static final long TIMEOUT = 10000;
+
+    /**
+     * 预期获取失败时的等待时间(毫秒)
+     */
+    private static final long SHORT_TIMEOUT = 300;
+
+    /**
+     * 测试租期(毫秒)
+     */
+    private static final long SHORT_LEASE = 300;
+
+    @Autowired
+    private RedisSemaphoreHelper redisSemaphoreHelper;
+
+    @Autowired
+    private RedisConfig redisConfig;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    /**
+     * 另一个节点
+     */
+    private RedisSemaphoreHelper otherNode;
+
+    /**
+     * 另一个线程
+     */
+    private ExecutorService otherThread;
+
+    /**
+     * 默认租期
+     */
+    private long defaultLease;
+
+    @BeforeEach
+    void setUp() {
+        otherNode = beanFactory.createBean(RedisSemaphoreHelper.class);
+        otherThread = Executors.newSingleThreadExecutor();
+        defaultLease = redisConfig.getSemaphoreLeaseMillisecond();
+    }
+
+    @AfterEach
+    void tearDown() {
+        otherThread.shutdownNow();
+        beanFactory.destroyBean(otherNode);
+        redisConfig.setSemaphoreLeaseMillisecond(defaultLease);
+        redisConfig.setLockWaitSliceMillisecond(1000);
+    }
+
+    @Test
+    void permitsAreLimitedAcrossNodes() {
+        final String name = newName();
+        RedisSemaphoreHelper.Permit first = redisSemaphoreHelper.acquire(name, 2, SHORT_TIMEOUT);
+        RedisSemaphoreHelper.Permit second = otherNode.acquire(name, 2, SHORT_TIMEOUT);
+        assertNotEquals(first.getId(), second.getId());
+        assertThrows(ServiceException.class, () -> redisSemaphoreHelper.acquire(name, 2, SHORT_TIMEOUT));
+
+        otherNode.release(second);
+        RedisSemaphoreHelper.Permit third = redisSemaphoreHelper.acquire(name, 2, SHORT_TIMEOUT);
+        redisSemaphoreHelper.release(third);
+        redisSemaphoreHelper.release(first);
+    }
+
+    @Test
+    void releaseWakesWaiterOnOtherNode() throws Exception {
+        // 等待分片足够长，只有释放通知才能及时唤醒
+        redisConfig.setLockWaitSliceMillisecond(TIMEOUT);
+        final String name = newName();
+        RedisSemaphoreHelper.Permit permit = redisSemaphoreHelper.acquire(name, 1, SHORT_TIMEOUT);
+        Future<Long> waited = otherThread.submit(() -> {
+            long startTime = System.currentTimeMillis();
+            RedisSemaphoreHelper.Permit other = otherNode.acquire(name, 1, TIMEOUT);
+            long waitTime = System.currentTimeMillis() - startTime;
+            otherNode.release(other);
+            return waitTime;
+        });
+        Thread.sleep(200);
+        redisSemaphoreHelper.release(permit);
+        long waitTime = waited.get(TIMEOUT, TimeUnit.MILLISECONDS);
+        assertTrue(waitTime < TIMEOUT / 2, "等待者应由释放通知唤醒，实际等待 " + waitTime + " 毫秒");
+    }
+
+    @Test
+    void watchdogRenewsHeldPermit() throws Exception {
+        redisConfig.setSemaphoreLeaseMillisecond(SHORT_LEASE);
+        final String name = newName();
+        RedisSemaphoreHelper.Permit permit = redisSemaphoreHelper.acquire(name, 1, SHORT_TIMEOUT);
+        Thread.sleep(SHORT_LEASE * 3);
+
+        assertThrows(ServiceException.class, () -> otherNode.acquire(name, 1, SHORT_TIMEOUT),
+                "看门狗续期后许可仍应被持有"
+        );
+        redisSemaphoreHelper.release(permit);
+    }
+
+    @Test
+    void permitOfCrashedNodeExpires() {
+        redisConfig.setSemaphoreLeaseMillisecond(SHORT_LEASE);
+        final String name = newName();
+        otherNode.acquire(name, 1, SHORT_TIMEOUT);
+        // 停止看门狗且不释放，模拟节点宕机
+        beanFactory.destroyBean(otherNode);
+
+        long startTime = System.currentTimeMillis();
+        RedisSemaphoreHelper.Permit permit = redisSemaphoreHelper.acquire(name, 1, TIMEOUT);
+        assertTrue(System.currentTimeMillis() - startTime >= SHORT_LEASE / 2, "许可应在租期结束后才被回收");
+        redisSemaphoreHelper.release(permit);
+    }
+
+    @Test
+    void waiterKeepsArrivalOrder() throws Exception {
+        final String name = newName();
+        RedisSemaphoreHelper.Permit permit = redisSemaphoreHelper.acquire(name, 1, SHORT_TIMEOUT);
+        Future<RedisSemaphoreHelper.Permit> first = otherThread.submit(() -> otherNode.acquire(name, 1, TIMEOUT));
+        Thread.sleep(200);
+        // 释放后立即申请也不能越过已在排队的申请者
+        redisSemaphoreHelper.release(permit);
+        assertThrows(ServiceException.class, () -> redisSemaphoreHelper.acquire(name, 1, SHORT_TIMEOUT));
+        RedisSemaphoreHelper.Permit queued = first.get(TIMEOUT, TimeUnit.MILLISECONDS);
+        otherNode.release(queued);
+    }
+
+    /**
+     * 生成不重复的信号量名称
+     *
+     * @return 名称
+     */
+    private String newName() {
+        return "SEMAPHORE_TEST_" + UUID.randomUUID();
+    }
+}
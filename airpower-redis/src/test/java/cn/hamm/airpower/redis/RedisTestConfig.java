@@ -0,0 +1,111 @@
+package cn.hamm.airpower.redis;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.clients.jedis.Jedis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * <h1>Redis 集成测试配置</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 连接 {@code airpower.test.redis.host}、{@code airpower.test.redis.port} 指定的 Redis，默认 {@code localhost:6379}；
+ * 每次运行使用独立的 key 前缀，结束后删除；Redis 不可用时通过 {@link #isRedisAvailable()} 跳过测试
+ */
+@Configuration
+@Import({RedisSubscriber.class, RedisLockHelper.class, RedisSemaphoreHelper.class})
+public class RedisTestConfig {
+    /**
+     * Redis 地址
+     */
+    private static final String HOST = System.getProperty("airpower.test.redis.host", "localhost");
+
+    /**
+     * Redis 端口
+     */
+    private static final int PORT = Integer.getInteger("airpower.test.redis.port", 6379);
+
+    /**
+     * 检测连接的超时时间(毫秒)
+     */
+    private static final int PING_TIMEOUT = 500;
+
+    /**
+     * 每次 {@code SCAN} 和 {@code UNLINK} 的数量
+     */
+    private static final int SCAN_COUNT = 500;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisConfig redisConfig;
+
+    /**
+     * Redis 是否可用
+     *
+     * @return 是否可用
+     */
+    public static boolean isRedisAvailable() {
+        try (Jedis jedis = new Jedis(HOST, PORT, PING_TIMEOUT)) {
+            return "PONG".equalsIgnoreCase(jedis.ping());
+        } catch (Exception exception) {
+            return false;
+        }
+    }
+
+    @Bean
+    public RedisConfig redisConfig() {
+        RedisConfig config = new RedisConfig();
+        config.setPrefix("airpower-test:" + UUID.randomUUID() + ":");
+        return config;
+    }
+
+    @Bean
+    public JedisConnectionFactory redisConnectionFactory() {
+        return new JedisConnectionFactory(new RedisStandaloneConfiguration(HOST, PORT));
+    }
+
+    @Bean
+    public StringRedisTemplate stringRedisTemplate(JedisConnectionFactory redisConnectionFactory) {
+        return new StringRedisTemplate(redisConnectionFactory);
+    }
+
+    /**
+     * 删除本次运行的 key
+     *
+     * @apiNote 使用 {@code SCAN} 遍历并以 {@code UNLINK} 分批删除，不使用会阻塞 Redis 的 {@code KEYS}
+     */
+    @PreDestroy
+    public void cleanup() {
+        ScanOptions options = ScanOptions.scanOptions().match(redisConfig.getPrefix() + "*").count(SCAN_COUNT).build();
+        stringRedisTemplate.execute((RedisCallback<Void>) connection -> {
+            List<byte[]> batch = new ArrayList<>(SCAN_COUNT);
+            try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() >= SCAN_COUNT) {
+                        connection.keyCommands().unlink(batch.toArray(byte[][]::new));
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                connection.keyCommands().unlink(batch.toArray(byte[][]::new));
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,290 @@
+package cn.hamm.airpower.redis.codec;
+
+import cn.hamm.airpower.core.exception.ServiceException;
+import cn.hamm.airpower.redis.RedisConfig;
+import cn.hamm.airpower.redis.cache.CacheEnvelope;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <h1>Redis 编解码测试</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 覆盖头部格式、压缩标记、与旧 JSON 数据的兼容以及损坏数据的处理，不需要 Redis
+ */
+@SpringJUnitConfig({
+        RedisConfig.class, JsonRedisCodec.class, CborRedisCodec.class, SmileRedisCodec.class, RedisCodecHelper.class
+})
+class RedisCodecHelperTest {
+    /**
+     * 超过压缩阈值的文本
+     */
+    private static final String LARGE_TEXT = "airpower-".repeat(1000);
+
+    @Autowired
+    private RedisCodecHelper redisCodecHelper;
+
+    @Autowired
+    private RedisConfig redisConfig;
+
+    @AfterEach
+    void tearDown() {
+        redisConfig.setCacheCodec(JsonRedisCodec.class);
+        redisConfig.setCacheCompress(false);
+    }
+
+    @Test
+    void plainEntityIsStoredAsJsonText() {
+        PlainEntity entity = new PlainEntity().setName("json").setCount(1);
+        byte[] bytes = redisCodecHelper.encode(entity);
+        assertEquals('{', bytes[0], "未标记的实体应直接存储 JSON 文本");
+        assertEquals(entity, redisCodecHelper.decode(bytes, PlainEntity.class));
+    }
+
+    @Test
+    void legacyJsonTextIsReadable() {
+        byte[] bytes = "{\"name\":\"legacy\",\"count\":2}".getBytes(StandardCharsets.UTF_8);
+        assertEquals(new CborEntity().setName("legacy").setCount(2), redisCodecHelper.decode(bytes, CborEntity.class));
+    }
+
+    @Test
+    void binaryEntityHasHeader() {
+        CborEntity entity = new CborEntity().setName("cbor").setCount(3);
+        byte[] bytes = redisCodecHelper.encode(entity);
+        assertEquals(0, bytes[0]);
+        assertEquals(CborRedisCodec.ID, bytes[1]);
+        assertEquals(0, bytes[2], "未超过阈值时不应压缩");
+        assertEquals(entity, redisCodecHelper.decode(bytes, CborEntity.class));
+    }
+
+    @Test
+    void largeEntityIsCompressed() {
+        SmileEntity entity = new SmileEntity().setName(LARGE_TEXT).setCount(4);
+        byte[] bytes = redisCodecHelper.encode(entity);
+        assertEquals(0, bytes[0]);
+        assertEquals(SmileRedisCodec.ID, bytes[1]);
+        assertEquals(1, bytes[2], "超过阈值时应压缩");
+        assertTrue(bytes.length < LARGE_TEXT.length());
+        assertEquals(entity, redisCodecHelper.decode(bytes, SmileEntity.class));
+    }
+
+    @Test
+    void compressedJsonHasHeader() {
+        CompressedJsonEntity entity = new CompressedJsonEntity().setName(LARGE_TEXT).setCount(5);
+        byte[] bytes = redisCodecHelper.encode(entity);
+        assertEquals(0, bytes[0]);
+        assertEquals(JsonRedisCodec.ID, bytes[1]);
+        assertEquals(1, bytes[2]);
+        assertEquals(entity, redisCodecHelper.decode(bytes, CompressedJsonEntity.class));
+
+        CompressedJsonEntity small = new CompressedJsonEntity().setName("small").setCount(6);
+        assertEquals('{', redisCodecHelper.encode(small)[0], "未压缩的 JSON 应保持文本格式");
+    }
+
+    @Test
+    void emptyBytesDecodeToNull() {
+        assertNull(redisCodecHelper.decode(null, PlainEntity.class));
+        assertNull(redisCodecHelper.decode(new byte[0], PlainEntity.class));
+    }
+
+    @Test
+    void corruptedDataIsRejected() {
+        assertThrows(ServiceException.class, () -> redisCodecHelper.decode(new byte[]{0, 1}, PlainEntity.class));
+        assertThrows(ServiceException.class, () -> redisCodecHelper.decode(new byte[]{0, 99, 0, 1}, PlainEntity.class));
+
+        byte[] bytes = redisCodecHelper.encode(new SmileEntity().setName(LARGE_TEXT).setCount(7));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length / 2);
+        assertThrows(ServiceException.class, () -> redisCodecHelper.decode(truncated, SmileEntity.class));
+    }
+
+    @Test
+    void cacheSerializerRoundTrip() {
+        redisConfig.setCacheCodec(CborRedisCodec.class);
+        redisConfig.setCacheCompress(true);
+        RedisSerializer<Object> serializer = redisCodecHelper.getCacheSerializer();
+
+        Map<String, Object> value = new HashMap<>();
+        value.put("name", LARGE_TEXT);
+        value.put("list", new ArrayList<>(List.of("a", "b")));
+        byte[] bytes = serializer.serialize(value);
+        assertNotNull(bytes);
+        assertEquals(0, bytes[0]);
+        assertEquals(CborRedisCodec.ID, bytes[1]);
+        assertEquals(1, bytes[2]);
+        assertEquals(value, serializer.deserialize(bytes));
+
+        CborEntity entity = new CborEntity().setName("cache").setCount(8);
+        assertEquals(entity, serializer.deserialize(serializer.serialize(entity)));
+    }
+
+    @Test
+    void cacheSerializerReadsLegacyJson() {
+        redisConfig.setCacheCodec(SmileRedisCodec.class);
+        RedisSerializer<Object> jsonSerializer = new JsonRedisCodec().getCacheSerializer();
+        byte[] legacy = jsonSerializer.serialize(new PlainEntity().setName("legacy").setCount(9));
+        assertEquals(new PlainEntity().setName("legacy").setCount(9),
+                redisCodecHelper.getCacheSerializer().deserialize(legacy)
+        );
+    }
+
+    @Test
+    void cacheSerializerKeepsValueTypes() {
+        for (Class<? extends IRedisCodec> codec : List.of(CborRedisCodec.class, SmileRedisCodec.class)) {
+            redisConfig.setCacheCodec(codec);
+            RedisSerializer<Object> serializer = redisCodecHelper.getCacheSerializer();
+            for (Object value : getTypedValues()) {
+                assertEquals(value, serializer.deserialize(serializer.serialize(value)), codec.getSimpleName());
+            }
+            String[] array = {"a", "b"};
+            assertArrayEquals(array, (String[]) serializer.deserialize(serializer.serialize(array)));
+        }
+    }
+
+    @Test
+    void cacheEnvelopeKeepsValueTypes() {
+        for (Class<? extends IRedisCodec> codec : List.of(CborRedisCodec.class, SmileRedisCodec.class)) {
+            redisConfig.setCacheCodec(codec);
+            RedisSerializer<Object> serializer = redisCodecHelper.getCacheSerializer();
+            for (Object value : getTypedValues()) {
+                CacheEnvelope envelope = new CacheEnvelope().setValue(value).setLoadMillisecond(1).setExpireTime(2);
+                Object decoded = serializer.deserialize(serializer.serialize(envelope));
+                assertInstanceOf(CacheEnvelope.class, decoded, codec.getSimpleName());
+                assertEquals(value, ((CacheEnvelope) decoded).getValue(), codec.getSimpleName());
+            }
+        }
+    }
+
+    /**
+     * 获取类型标识容易丢失的值
+     *
+     * @return 值列表
+     */
+    private List<Object> getTypedValues() {
+        return List.of(
+                1L,
+                LocalDateTime.of(2024, 1, 2, 3, 4, 5),
+                new RecordValue("record", 10L)
+        );
+    }
+
+    /**
+     * 测试记录
+     *
+     * @param name  名称
+     * @param count 数量
+     */
+    public record RecordValue(String name, Long count) {
+    }
+
+    /**
+     * 测试实体
+     */
+    public static class PlainEntity {
+        /**
+         * 名称
+         */
+        private String name;
+
+        /**
+         * 数量
+         */
+        private int count;
+
+        public String getName() {
+            return name;
+        }
+
+        public PlainEntity setName(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public PlainEntity setCount(int count) {
+            this.count = count;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof PlainEntity other && getClass() == other.getClass() &&
+                    count == other.count && Objects.equals(name, other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, count);
+        }
+    }
+
+    /**
+     * CBOR 编码的测试实体
+     */
+    @RedisCodec(CborRedisCodec.class)
+    public static class CborEntity extends PlainEntity {
+        @Override
+        public CborEntity setName(String name) {
+            super.setName(name);
+            return this;
+        }
+
+        @Override
+        public CborEntity setCount(int count) {
+            super.setCount(count);
+            return this;
+        }
+    }
+
+    /**
+     * Smile 编码并压缩的测试实体
+     */
+    @RedisCodec(value = SmileRedisCodec.class, compress = true)
+    public static class SmileEntity extends PlainEntity {
+        @Override
+        public SmileEntity setName(String name) {
+            super.setName(name);
+            return this;
+        }
+
+        @Override
+        public SmileEntity setCount(int count) {
+            super.setCount(count);
+            return this;
+        }
+    }
+
+    /**
+     * JSON 编码并压缩的测试实体
+     */
+    @RedisCodec(compress = true)
+    public static class CompressedJsonEntity extends PlainEntity {
+        @Override
+        public CompressedJsonEntity setName(String name) {
+            super.setName(name);
+            return this;
+        }
+
+        @Override
+        public CompressedJsonEntity setCount(int count) {
+            super.setCount(count);
+            return this;
+        }
+    }
+}
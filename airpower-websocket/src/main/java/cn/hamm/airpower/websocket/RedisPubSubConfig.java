@@ -1,20 +1,63 @@
 package cn.hamm.airpower.websocket;
 
+import jakarta.annotation.PreDestroy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import java.util.concurrent.Executors;
+import java.util.Objects;
+import java.util.concurrent.ThreadPoolExecutor;
 
+/**
+ * <h1>Redis 发布订阅配置</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 提供给业务使用的 {@link RedisMessageListenerContainer}，监听器在有界的命名线程池中执行；
+ * WebSocket 节点的频道订阅使用 {@link WebSocketHandler} 自己的容器，不占用这里的线程
+ */
 @Configuration
 public class RedisPubSubConfig {
+    /**
+     * 执行业务监听器的线程池
+     *
+     * @apiNote 不注册为 Bean，避免替换 Spring Boot 默认的任务线程池；订阅容器不会关闭外部传入的线程池，由本配置关闭
+     */
+    private ThreadPoolTaskExecutor listenerExecutor;
+
     @Bean
-    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            RedisConnectionFactory redisConnectionFactory, WebSocketConfig webSocketConfig
+    ) {
+        final int threads = Math.max(1, webSocketConfig.getListenerThreads());
+        listenerExecutor = new ThreadPoolTaskExecutor();
+        listenerExecutor.setCorePoolSize(threads);
+        listenerExecutor.setMaxPoolSize(threads);
+        listenerExecutor.setQueueCapacity(Math.max(1, webSocketConfig.getListenerQueueSize()));
+        listenerExecutor.setThreadNamePrefix("airpower-redis-listener-");
+        listenerExecutor.setDaemon(true);
+        // 队列已满时由订阅线程处理，反压到订阅连接
+        listenerExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        listenerExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        listenerExecutor.setAwaitTerminationMillis(webSocketConfig.getListenerShutdownMillisecond());
+        listenerExecutor.initialize();
+
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(redisConnectionFactory);
-        // 订阅线程池（非常重要）
-        container.setTaskExecutor(Executors.newFixedThreadPool(4));
+        container.setTaskExecutor(listenerExecutor);
         return container;
     }
-}
\ No newline at end of file
+
+    /**
+     * 关闭监听器线程池
+     *
+     * @apiNote 订阅容器依赖本配置，先于本配置停止，这里只需等待已收到的消息处理完成
+     */
+    @PreDestroy
+    public void destroy() {
+        if (Objects.nonNull(listenerExecutor)) {
+            listenerExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package cn.hamm.airpower.websocket;
+
+import cn.hamm.airpower.core.Json;
+import cn.hamm.airpower.core.exception.ServiceException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import static cn.hamm.airpower.exception.Errors.WEBSOCKET_ERROR;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * <h1>WebSocket 编解码</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 客户端连接时通过 {@code codec} 参数选择，默认 {@link #JSON} 文本帧，其余使用二进制帧
+ */
+public enum WebSocketCodec {
+    /**
+     * JSON
+     */
+    JSON(null),
+
+    /**
+     * CBOR
+     */
+    CBOR(CBORMapper::new),
+
+    /**
+     * Smile
+     */
+    SMILE(SmileMapper::new),
+    ;
+
+    /**
+     * 二进制格式的 ObjectMapper
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 创建编解码
+     *
+     * @param objectMapperSupplier 二进制格式的 ObjectMapper，文本格式为 {@code null}
+     */
+    WebSocketCodec(Supplier<ObjectMapper> objectMapperSupplier) {
+        if (Objects.isNull(objectMapperSupplier)) {
+            objectMapper = null;
+            return;
+        }
+        objectMapper = objectMapperSupplier.get();
+        objectMapper.findAndRegisterModules();
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        objectMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+    }
+
+    /**
+     * 按名称获取编解码
+     *
+     * @param name 名称，不区分大小写
+     * @return 编解码，名称为空或不支持时为 {@link #JSON}
+     */
+    public static @NotNull WebSocketCodec of(String name) {
+        return Arrays.stream(values())
+                .filter(codec -> codec.name().equalsIgnoreCase(name))
+                .findFirst()
+                .orElse(JSON);
+    }
+
+    /**
+     * 编码为帧
+     *
+     * @param event 事件
+     * @return 帧
+     */
+    public final @NotNull WebSocketMessage<?> encode(@NotNull WebSocketEvent event) {
+        if (Objects.isNull(objectMapper)) {
+            return new TextMessage(Json.toString(event));
+        }
+        try {
+            return new BinaryMessage(objectMapper.writeValueAsBytes(event));
+        } catch (IOException exception) {
+            throw new ServiceException(WEBSOCKET_ERROR, "WebSocket 编码失败: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * 解码二进制帧
+     *
+     * @param bytes 字节
+     * @param clazz 类型
+     * @param <T>   类型
+     * @return 值
+     */
+    public final <T> T decode(byte @NotNull [] bytes, @NotNull Class<T> clazz) {
+        if (Objects.isNull(objectMapper)) {
+            return Json.parse(new String(bytes, UTF_8), clazz);
+        }
+        try {
+            return objectMapper.readValue(bytes, clazz);
+        } catch (IOException exception) {
+            throw new ServiceException(WEBSOCKET_ERROR, "WebSocket 解码失败: " + exception.getMessage());
+        }
+    }
+}
@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static cn.hamm.airpower.websocket.WebSocketSupport.NO;
 
 /**
@@ -44,4 +47,139 @@ public class WebSocketConfig {
      * WebSocket 允许的跨域
      */
     private String allowedOrigins = "*";
+
+    /**
+     * 每个连接的发送队列长度
+     */
+    private int sendQueueSize = 1000;
+
+    /**
+     * 每个连接的发送队列字节数上限
+     */
+    private long sendBufferBytes = 1024 * 1024;
+
+    /**
+     * 消息在发送队列中的最长等待时间，以及单次写出的最长阻塞时间
+     *
+     * @apiNote 单位毫秒，消息等待超过后视为客户端过慢，按 {@link #overflowPolicy} 处理；
+     * 单次写出阻塞超过后由下一次发送或心跳断开连接
+     */
+    private long sendTimeLimitMillisecond = 10 * 1000;
+
+    /**
+     * 发送队列溢出策略
+     */
+    private WebSocketOverflowPolicy overflowPolicy = WebSocketOverflowPolicy.DROP_OLDEST;
+
+    /**
+     * 发送线程数
+     */
+    private int sendThreads = Runtime.getRuntime().availableProcessors() * 2;
+
+    /**
+     * 是否启用集群在线状态
+     *
+     * @apiNote 启用后 {@code publishToUser} 只发布到用户所在的节点，用户不在线时不发布；在线状态保存在 Redis 中，
+     * 默认关闭，{@code support=MQTT} 时需要同时有可用的 Redis 才能开启
+     */
+    private boolean presence = false;
+
+    /**
+     * 节点心跳间隔
+     *
+     * @apiNote 单位毫秒，超过三个间隔没有心跳的节点视为下线，超过三个间隔没有刷新的用户登记视为过期
+     */
+    private long presenceHeartbeatMillisecond = 10 * 1000;
+
+    /**
+     * 消息流的最大长度
+     *
+     * @apiNote 仅 {@code support=REDIS_STREAM} 时有效，超过后近似裁剪最早的事件
+     */
+    private long streamMaxLength = 100000;
+
+    /**
+     * 重连时最多补发的事件数
+     *
+     * @apiNote 仅 {@code support=REDIS_STREAM} 时有效，需要补发的事件超过该数量时通知客户端重新加载
+     */
+    private int streamResumeMaxCount = 1000;
+
+    /**
+     * 按负载类型合并发送的窗口
+     *
+     * @apiNote key 为负载类型，value 为窗口毫秒数；窗口内同一会话收到的该类型事件按 key 只保留最后一个，
+     * 窗口结束时作为一个 {@link WebSocketPayload#TYPE_BATCH} 事件下发
+     */
+    private Map<String, Long> coalesceMillisecond = new HashMap<>();
+
+    /**
+     * 服务端心跳间隔
+     *
+     * @apiNote 单位毫秒，连接空闲超过该时间后服务端发送协议层 PING；为 {@code 0} 时不启用服务端心跳
+     */
+    private long heartbeatMillisecond = 30 * 1000;
+
+    /**
+     * 空闲超时
+     *
+     * @apiNote 单位毫秒，超过该时间没有收到客户端的任何消息或 PONG 时断开连接
+     */
+    private long idleTimeoutMillisecond = 90 * 1000;
+
+    /**
+     * 分发频道消息的线程数
+     *
+     * @apiNote 开启虚拟线程时无效
+     */
+    private int dispatchThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 分发频道消息的分片数
+     *
+     * @apiNote 同一个频道的消息总在同一个分片内按顺序执行，分片数多于线程数时负载更均衡
+     */
+    private int dispatchStripes = Runtime.getRuntime().availableProcessors() * 4;
+
+    /**
+     * 每个分片的队列长度
+     *
+     * @apiNote 队列已满时丢弃新消息
+     */
+    private int dispatchQueueSize = 10000;
+
+    /**
+     * 是否使用虚拟线程分发频道消息
+     *
+     * @apiNote 需要运行在 JDK 21 及以上，否则使用平台线程
+     */
+    private boolean dispatchVirtualThreads = false;
+
+    /**
+     * 停止时等待分发完成的时间
+     *
+     * @apiNote 单位毫秒，超过后丢弃未分发的消息
+     */
+    private long dispatchShutdownMillisecond = 5 * 1000;
+
+    /**
+     * 执行业务 Redis 监听器的线程数
+     *
+     * @apiNote 用于 {@link RedisPubSubConfig} 提供的订阅容器
+     */
+    private int listenerThreads = 4;
+
+    /**
+     * 等待执行的业务 Redis 消息数上限
+     *
+     * @apiNote 队列已满时由订阅线程直接执行监听器
+     */
+    private int listenerQueueSize = 10000;
+
+    /**
+     * 停止时等待业务 Redis 监听器执行完成的时间
+     *
+     * @apiNote 单位毫秒
+     */
+    private long listenerShutdownMillisecond = 5 * 1000;
 }
@@ -0,0 +1,232 @@
+package cn.hamm.airpower.websocket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h1>WebSocket 频道消息分发器</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 按频道把消息分到固定的分片，同一分片内串行执行，不同分片并行执行；
+ * 一个用户的事件都在同一个用户频道上，因此不会乱序，吞吐随线程数增加
+ */
+@Slf4j
+@Component
+public class WebSocketDispatcher {
+    /**
+     * 每次连续执行的任务数
+     *
+     * @apiNote 超过后让出线程，避免繁忙的分片占满线程池
+     */
+    private static final int DRAIN_BATCH_SIZE = 64;
+
+    /**
+     * 轮询关闭状态的间隔
+     */
+    private static final long SHUTDOWN_POLL_MILLISECOND = 50;
+
+    @Autowired
+    private WebSocketConfig webSocketConfig;
+
+    /**
+     * 分片
+     */
+    private Stripe[] stripes;
+
+    /**
+     * 执行分片任务的线程池
+     */
+    private ExecutorService executor;
+
+    /**
+     * 丢弃的任务数
+     */
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * 是否已停止接收任务
+     */
+    private volatile boolean stopped;
+
+    /**
+     * 初始化分片和线程池
+     */
+    @PostConstruct
+    public void init() {
+        stripes = new Stripe[Math.max(1, webSocketConfig.getDispatchStripes())];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        executor = createExecutor();
+    }
+
+    /**
+     * 停止分发
+     *
+     * @apiNote 不再接收新任务，等待已接收的任务执行完成，
+     * 超过 {@link WebSocketConfig#getDispatchShutdownMillisecond()} 后强制停止；重复调用时直接返回
+     */
+    @PreDestroy
+    public void destroy() {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        final long deadline = System.currentTimeMillis() + webSocketConfig.getDispatchShutdownMillisecond();
+        try {
+            while (getQueueSize() > 0 && System.currentTimeMillis() < deadline) {
+                //noinspection BusyWait
+                Thread.sleep(SHUTDOWN_POLL_MILLISECOND);
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        if (getQueueSize() > 0) {
+            log.warn("WebSocket 分发器停止时仍有 {} 条消息未处理", getQueueSize());
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * 按频道分发任务
+     *
+     * @param channel 频道
+     * @param task    任务
+     * @apiNote 同一个频道的任务按提交顺序执行；分片队列已满或分发器已停止时丢弃
+     */
+    public final void execute(@NotNull String channel, @NotNull Runnable task) {
+        if (stopped) {
+            rejectedCount.increment();
+            return;
+        }
+        Stripe stripe = stripes[(channel.hashCode() & Integer.MAX_VALUE) % stripes.length];
+        if (stripe.size.get() >= webSocketConfig.getDispatchQueueSize()) {
+            rejectedCount.increment();
+            log.warn("WebSocket 分发队列已满，丢弃频道 {} 的消息", channel);
+            return;
+        }
+        stripe.queue.offer(task);
+        stripe.size.incrementAndGet();
+        stripe.schedule();
+    }
+
+    /**
+     * 获取待处理的任务数
+     *
+     * @return 任务数
+     */
+    public final int getQueueSize() {
+        return Arrays.stream(stripes).mapToInt(stripe -> stripe.size.get()).sum();
+    }
+
+    /**
+     * 获取各分片待处理的任务数
+     *
+     * @return 任务数
+     */
+    public final int[] getStripeQueueSizes() {
+        return Arrays.stream(stripes).mapToInt(stripe -> stripe.size.get()).toArray();
+    }
+
+    /**
+     * 获取丢弃的任务数
+     *
+     * @return 任务数
+     */
+    public final long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * 创建执行分片任务的线程池
+     *
+     * @return 线程池
+     * @apiNote 开启虚拟线程且运行在 JDK 21 及以上时使用虚拟线程，否则使用命名的平台线程
+     */
+    private @NotNull ExecutorService createExecutor() {
+        if (webSocketConfig.isDispatchVirtualThreads()) {
+            try {
+                // 以 JDK 17 编译，通过反射使用虚拟线程
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException exception) {
+                log.warn("当前 JDK 不支持虚拟线程，使用平台线程分发 WebSocket 消息");
+            }
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, webSocketConfig.getDispatchThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "airpower-websocket-dispatch-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 分片
+     */
+    private class Stripe {
+        /**
+         * 待执行的任务
+         */
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+
+        /**
+         * 待执行的任务数
+         */
+        private final AtomicInteger size = new AtomicInteger();
+
+        /**
+         * 是否正在执行
+         */
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        /**
+         * 安排执行
+         */
+        private void schedule() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException exception) {
+                draining.set(false);
+                log.warn("WebSocket 分发线程池已关闭");
+            }
+        }
+
+        /**
+         * 执行队列中的任务
+         */
+        private void drain() {
+            try {
+                Runnable task;
+                int count = 0;
+                while (count++ < DRAIN_BATCH_SIZE && Objects.nonNull(task = queue.poll())) {
+                    size.decrementAndGet();
+                    try {
+                        task.run();
+                    } catch (Exception exception) {
+                        log.error("分发 WebSocket 消息失败: {}", exception.getMessage());
+                    }
+                }
+            } finally {
+                draining.set(false);
+                if (!queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+    }
+}
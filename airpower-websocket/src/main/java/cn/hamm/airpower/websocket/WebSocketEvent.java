@@ -6,8 +6,7 @@ import lombok.experimental.Accessors;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <h1>WebSocket 事件</h1>
@@ -17,6 +16,16 @@ import java.util.Base64;
 @Data
 @Accessors(chain = true)
 public class WebSocketEvent {
+    /**
+     * 节点标识
+     */
+    private static final String NODE = RandomUtil.randomString(6);
+
+    /**
+     * 事件序号
+     */
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
     /**
      * 事件 ID
      */
@@ -81,15 +90,14 @@ public class WebSocketEvent {
 
     /**
      * 重置事件的 ID 和事件
+     *
+     * @apiNote ID 为 {@code 时间-节点-序号}，均为 36 进制；序号在节点内单调递增，同一毫秒内也不会重复
      */
     @Contract(" -> this")
     protected final WebSocketEvent resetEvent() {
         time = System.currentTimeMillis();
-        id = Base64.getEncoder().encodeToString((String.format(
-                "%s-%s",
-                time,
-                RandomUtil.randomString(6)
-        )).getBytes(StandardCharsets.UTF_8));
+        id = Long.toString(time, Character.MAX_RADIX) + "-" + NODE + "-" +
+                Long.toString(SEQUENCE.incrementAndGet(), Character.MAX_RADIX);
         return this;
     }
 }
\ No newline at end of file
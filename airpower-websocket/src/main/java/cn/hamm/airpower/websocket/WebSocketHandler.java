@@ -1,32 +1,57 @@
 package cn.hamm.airpower.websocket;
 
-import cn.hamm.airpower.api.config.ApiConfig;
+import cn.hamm.airpower.api.AccessTokenHelper;
 import cn.hamm.airpower.core.AccessTokenUtil;
 import cn.hamm.airpower.core.Json;
 import cn.hamm.airpower.core.TaskUtil;
 import cn.hamm.airpower.core.exception.ServiceException;
 import cn.hamm.airpower.mqtt.MqttHelper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.paho.client.mqttv3.*;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.connection.*;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.stream.MapRecord;
 import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.PatternTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static cn.hamm.airpower.exception.Errors.WEBSOCKET_ERROR;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
@@ -36,7 +61,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  */
 @Component
 @Slf4j
-public class WebSocketHandler extends TextWebSocketHandler implements MessageListener {
+public class WebSocketHandler extends AbstractWebSocketHandler implements MessageListener, MqttCallbackExtended {
     /**
      * 订阅用户频道前缀
      */
@@ -48,34 +73,190 @@ public class WebSocketHandler extends TextWebSocketHandler implements MessageLis
     public static final String CHANNEL_ALL = "WEBSOCKET_ALL";
 
     /**
-     * Redis 连接列表
+     * MQTT 用户主题前缀
+     *
+     * @apiNote MQTT 的通配符 {@code +} 只能匹配完整的一级主题，所以用户 ID 单独作为一级
+     */
+    public static final String TOPIC_USER_PREFIX = "WEBSOCKET_USER/";
+
+    /**
+     * 补发失败时下发的负载数据
+     *
+     * @apiNote 客户端收到后需要重新加载完整数据
+     */
+    public static final String RESUME_EXPIRED = "RESUME_EXPIRED";
+
+    /**
+     * 重连时传入最后收到的事件 ID 的参数
+     */
+    private static final String PARAM_LAST_EVENT_ID = "lastEventId";
+
+    /**
+     * 连接时选择编解码的参数
      */
-    protected final ConcurrentHashMap<String, RedisConnection> redisConnectionHashMap = new ConcurrentHashMap<>();
+    private static final String PARAM_CODEC = "codec";
 
     /**
-     * MQTT 客户端列表
+     * 心跳时间轮的刻度
      */
-    protected final ConcurrentHashMap<String, MqttClient> mqttClientHashMap = new ConcurrentHashMap<>();
+    private static final long HEARTBEAT_TICK_MILLISECOND = 1000;
 
     /**
-     * 用户 ID 列表
+     * 执行心跳检查的线程数
      */
-    protected final ConcurrentHashMap<String, Long> userIdHashMap = new ConcurrentHashMap<>();
+    private static final int HEARTBEAT_THREADS = 2;
 
     @Autowired
     protected WebSocketConfig webSocketConfig;
 
     @Autowired
-    protected RedisConnectionFactory redisConnectionFactory;
+    protected WebSocketSessionRegistry webSocketSessionRegistry;
 
     @Autowired
     protected MqttHelper mqttHelper;
 
     @Autowired
-    private ApiConfig apiConfig;
+    private AccessTokenHelper accessTokenHelper;
+
+    @Autowired
+    private RedisConnectionFactory redisConnectionFactory;
+
+    @Autowired
+    private WebSocketPresenceHelper webSocketPresenceHelper;
 
     @Autowired
-    private RedisMessageListenerContainer redisMessageListenerContainer;
+    private WebSocketStreamHelper webSocketStreamHelper;
+
+    @Autowired
+    private WebSocketDispatcher webSocketDispatcher;
+
+    /**
+     * 消息流的分发锁
+     *
+     * @apiNote 补发的会话在锁内登记并确定补发的结束 ID，之后的实时事件都会分发给该会话；读取和编码补发的事件在锁外进行
+     */
+    private final Object streamLock = new Object();
+
+    /**
+     * 节点已分发的最后一条消息流事件 ID
+     */
+    private volatile String lastStreamId;
+
+    /**
+     * 发送线程池
+     */
+    private ExecutorService sendExecutor;
+
+    /**
+     * 合并发送的定时器
+     */
+    private ScheduledExecutorService coalesceScheduler;
+
+    /**
+     * 心跳时间轮
+     */
+    private WebSocketTimerWheel heartbeatWheel;
+
+    /**
+     * 执行心跳检查的线程池
+     *
+     * @apiNote 不使用发送线程池，慢客户端占满发送线程时心跳、空闲断开和写出超时检查仍能按时执行
+     */
+    private ExecutorService heartbeatExecutor;
+
+    /**
+     * 节点的 Redis 订阅容器
+     *
+     * @apiNote 不与业务共用 {@link RedisPubSubConfig} 提供的容器；监听器直接在订阅线程中执行，只负责按频道把消息交给
+     * {@link WebSocketDispatcher}，所以消息离开订阅线程时仍保持 Redis 推送的顺序
+     */
+    private RedisMessageListenerContainer redisListenerContainer;
+
+    /**
+     * 节点的 MQTT 客户端
+     */
+    private MqttClient mqttClient;
+
+    /**
+     * 节点级订阅全频道
+     */
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        sendExecutor = Executors.newFixedThreadPool(Math.max(1, webSocketConfig.getSendThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "airpower-websocket-send-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        coalesceScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "airpower-websocket-coalesce");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (webSocketConfig.getHeartbeatMillisecond() > 0) {
+            AtomicInteger heartbeatThreadIndex = new AtomicInteger();
+            heartbeatExecutor = Executors.newFixedThreadPool(HEARTBEAT_THREADS, runnable -> {
+                Thread thread = new Thread(
+                        runnable, "airpower-websocket-heartbeat-" + heartbeatThreadIndex.incrementAndGet()
+                );
+                thread.setDaemon(true);
+                return thread;
+            });
+            heartbeatWheel = new WebSocketTimerWheel(
+                    "airpower-websocket-heartbeat", HEARTBEAT_TICK_MILLISECOND, heartbeatExecutor
+            );
+        }
+        switch (webSocketConfig.getSupport()) {
+            case REDIS -> {
+                startRedisListener();
+                addRedisTopic(getRealChannel(CHANNEL_ALL));
+                if (webSocketPresenceHelper.isEnabled()) {
+                    redisListenerContainer.addMessageListener(
+                            this, PatternTopic.of(getNodeChannelPrefix() + "*")
+                    );
+                }
+            }
+            case MQTT -> startMqttListener();
+            case REDIS_STREAM -> lastStreamId = webSocketStreamHelper.start(
+                    webSocketPresenceHelper.getNodeId(), this::onStreamRecord
+            );
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * 停止 Redis 订阅、MQTT 客户端、分发器、发送线程池和消息流消费
+     */
+    @PreDestroy
+    public void destroy() {
+        if (Objects.nonNull(redisListenerContainer)) {
+            try {
+                redisListenerContainer.destroy();
+            } catch (Exception exception) {
+                log.error("停止 Redis 订阅失败: {}", exception.getMessage());
+            }
+        }
+        if (Objects.nonNull(mqttClient)) {
+            try {
+                mqttClient.disconnect();
+                mqttClient.close();
+            } catch (MqttException exception) {
+                log.error("关闭 MQTT 客户端失败: {}", exception.getMessage());
+            }
+        }
+        // 先停止接收消息并等待已收到的消息分发完，再关闭发送线程
+        webSocketDispatcher.destroy();
+        sendExecutor.shutdown();
+        coalesceScheduler.shutdownNow();
+        if (Objects.nonNull(heartbeatWheel)) {
+            heartbeatWheel.stop();
+            heartbeatExecutor.shutdownNow();
+        }
+        if (webSocketConfig.getSupport() == WebSocketSupport.REDIS_STREAM) {
+            webSocketStreamHelper.stop(webSocketPresenceHelper.getNodeId());
+        }
+    }
 
     /**
      * 收到 WebSocket 消息时
@@ -85,13 +266,10 @@ public class WebSocketHandler extends TextWebSocketHandler implements MessageLis
      */
     @Override
     protected final void handleTextMessage(@NonNull WebSocketSession session, @NotNull TextMessage textMessage) {
+        touch(session);
         final String message = textMessage.getPayload();
         if (webSocketConfig.getPing().equalsIgnoreCase(message)) {
-            try {
-                session.sendMessage(new TextMessage(webSocketConfig.getPong()));
-            } catch (Exception e) {
-                log.error("发送 WebSocket PONG 失败: {}", e.getMessage());
-            }
+            send(session, new TextMessage(webSocketConfig.getPong()));
             return;
         }
         try {
@@ -102,6 +280,76 @@ public class WebSocketHandler extends TextWebSocketHandler implements MessageLis
         }
     }
 
+    /**
+     * 收到 WebSocket 二进制消息时
+     *
+     * @param session       会话
+     * @param binaryMessage 二进制消息
+     * @apiNote 按连接协商的编解码解析负载
+     */
+    @Override
+    protected final void handleBinaryMessage(@NonNull WebSocketSession session, @NotNull BinaryMessage binaryMessage) {
+        touch(session);
+        final ByteBuffer buffer = binaryMessage.getPayload();
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        try {
+            WebSocketPayload webSocketPayload = getCodec(session).decode(bytes, WebSocketPayload.class);
+            onWebSocketPayload(webSocketPayload, session);
+        } catch (Exception e) {
+            log.info("解析 WebSocket 二进制负载失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 收到客户端的 PONG 时
+     *
+     * @param session 会话
+     * @param message PONG 消息
+     */
+    @Override
+    protected final void handlePongMessage(@NonNull WebSocketSession session, @NotNull PongMessage message) {
+        touch(session);
+    }
+
+    /**
+     * 标记会话活跃
+     *
+     * @param session 会话
+     */
+    private void touch(@NotNull WebSocketSession session) {
+        WebSocketSender sender = webSocketSessionRegistry.getSender(session);
+        if (Objects.nonNull(sender)) {
+            sender.touch();
+        }
+    }
+
+    /**
+     * 会话心跳
+     *
+     * @param sender 会话的发送队列
+     * @apiNote 空闲超过心跳间隔时发送协议层 PING，超过空闲超时或写出超时则断开，由 {@code afterConnectionClosed} 完成清理；
+     * 收到消息只更新活跃时间，下一次检查时再按最新的活跃时间重新计算，每个会话同一时刻只有一个定时任务
+     */
+    private void heartbeat(@NotNull WebSocketSender sender) {
+        if (sender.isClosed() || sender.checkSendTimeout()) {
+            return;
+        }
+        final long interval = webSocketConfig.getHeartbeatMillisecond();
+        final long idleTimeout = webSocketConfig.getIdleTimeoutMillisecond();
+        final long idle = System.currentTimeMillis() - sender.getLastActiveTime();
+        if (idle >= idleTimeout) {
+            sender.disconnect("空闲超时");
+            return;
+        }
+        long delay = interval - idle;
+        if (idle >= interval) {
+            sender.send(new PingMessage());
+            delay = Math.min(interval, idleTimeout - idle);
+        }
+        sender.setHeartbeatTimeout(heartbeatWheel.schedule(() -> heartbeat(sender), delay));
+    }
+
     /**
      * 发送 {@code } 事件负载
      *
@@ -110,8 +358,37 @@ public class WebSocketHandler extends TextWebSocketHandler implements MessageLis
      */
     protected final void sendWebSocketPayload(@NotNull WebSocketSession session,
                                               @NotNull WebSocketPayload webSocketPayload) {
+        send(session, getCodec(session).encode(WebSocketEvent.create(webSocketPayload)));
+    }
+
+    /**
+     * 获取会话协商的编解码
+     *
+     * @param session 会话
+     * @return 编解码，会话未登记时为 {@link WebSocketCodec#JSON}
+     */
+    protected final @NotNull WebSocketCodec getCodec(@NotNull WebSocketSession session) {
+        WebSocketSender sender = webSocketSessionRegistry.getSender(session);
+        return Objects.isNull(sender) ? WebSocketCodec.JSON : sender.getCodec();
+    }
+
+    /**
+     * 发送消息
+     *
+     * @param session 会话
+     * @param message 消息
+     * @apiNote 已登记的会话通过发送队列异步发送，保证同一会话同时只有一个线程写出
+     */
+    protected final void send(@NotNull WebSocketSession session, @NotNull WebSocketMessage<?> message) {
+        WebSocketSender sender = webSocketSessionRegistry.getSender(session);
+        if (Objects.nonNull(sender)) {
+            sender.send(message);
+            return;
+        }
         try {
-            session.sendMessage(new TextMessage(Json.toString(WebSocketEvent.create(webSocketPayload))));
+            synchronized (session) {
+                session.sendMessage(message);
+            }
         } catch (IOException e) {
             log.error("发送 WebSocket 消息失败: {}", e.getMessage());
             throw new ServiceException("发送 WebSocket 消息失败，" + e.getMessage());
@@ -137,29 +414,50 @@ public class WebSocketHandler extends TextWebSocketHandler implements MessageLis
         if (Objects.isNull(session.getUri())) {
             return;
         }
-        String accessToken = session.getUri().getQuery();
-        if (Objects.isNull(accessToken)) {
+        // 查询参数的第一段为 AccessToken，其余为 key=value 形式的参数
+        final String query = session.getUri().getQuery();
+        String accessToken = Objects.isNull(query) ? null : query.split("&", 2)[0];
+        if (!StringUtils.hasText(accessToken)) {
             log.error("没有传入AccessToken 即将关闭连接");
             closeConnection(session);
             return;
         }
-        AccessTokenUtil.VerifiedToken verifiedToken = AccessTokenUtil.create()
-                .verify(accessToken, apiConfig.getAccessTokenSecret());
+        AccessTokenUtil.VerifiedToken verifiedToken = accessTokenHelper.verify(accessToken);
         long userId = verifiedToken.getPayloadId();
         log.info("Websocket连接成功 {}", userId);
         try {
-            switch (webSocketConfig.getSupport()) {
-                case REDIS -> startRedisListener(session, userId);
-                case MQTT -> startMqttListener(session, userId);
-                case NO -> {
+            final MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(session.getUri()).build()
+                    .getQueryParams();
+            final WebSocketSender sender = new WebSocketSender(
+                    session, sendExecutor, coalesceScheduler, webSocketConfig,
+                    WebSocketCodec.of(params.getFirst(PARAM_CODEC))
+            );
+            final String lastEventId = params.getFirst(PARAM_LAST_EVENT_ID);
+            if (webSocketConfig.getSupport() == WebSocketSupport.REDIS_STREAM && StringUtils.hasText(lastEventId)) {
+                // 补发完成前实时事件先暂存在发送队列中
+                sender.hold();
+                final String untilId;
+                synchronized (streamLock) {
+                    webSocketSessionRegistry.add(sender, userId, () -> onUserOnline(userId));
+                    untilId = lastStreamId;
                 }
-                default -> throw new ServiceException("WebSocket 暂不支持");
+                sender.release(resume(sender, userId, lastEventId, untilId),
+                        eventId -> webSocketStreamHelper.compare(eventId, untilId) <= 0
+                );
+            } else {
+                webSocketSessionRegistry.add(sender, userId, () -> onUserOnline(userId));
+            }
+            if (Objects.nonNull(heartbeatWheel)) {
+                sender.setHeartbeatTimeout(
+                        heartbeatWheel.schedule(() -> heartbeat(sender), webSocketConfig.getHeartbeatMillisecond())
+                );
             }
-            userIdHashMap.put(session.getId(), userId);
             log.info("Websocket连接成功1 {}", userId);
             TaskUtil.run(() -> afterConnectSuccess(session));
         } catch (Exception exception) {
             log.info("连接失败 {}", exception.getMessage());
+            // 登记失败的会话收不到任何消息，直接关闭让客户端重连
+            closeConnection(session);
         }
     }
 
@@ -173,82 +471,265 @@ public class WebSocketHandler extends TextWebSocketHandler implements MessageLis
     }
 
     /**
-     * 处理监听到的频道消息
+     * 分发频道消息到节点内的会话
      *
-     * @param message 消息
-     * @param session 连接
+     * @param channel 带前缀的真实频道
+     * @param body    JSON 格式的事件
      */
-    private void onChannelMessage(@NotNull String message, @NonNull WebSocketSession session) {
-        try {
-            session.sendMessage(new TextMessage(message));
-        } catch (Exception exception) {
-            log.error("消息发送失败", exception);
+    private void dispatch(@NotNull String channel, byte @NotNull [] body) {
+        dispatch(channel, new Broadcast(new TextMessage(body), null));
+    }
+
+    /**
+     * 分发频道消息到节点内的会话
+     *
+     * @param channel   带前缀的真实频道
+     * @param broadcast 广播
+     * @apiNote 每种编解码只编码一次，构造的帧不可变，由所有接收的会话共享；配置了合并窗口的负载类型交给各会话合并发送
+     */
+    private void dispatch(@NotNull String channel, @NotNull Broadcast broadcast) {
+        Collection<WebSocketSender> senders = getSenders(channel);
+        if (senders.isEmpty()) {
+            return;
         }
+        final Map<String, Long> coalesceMillisecond = webSocketConfig.getCoalesceMillisecond();
+        if (!coalesceMillisecond.isEmpty()) {
+            final WebSocketEvent event = broadcast.getEvent();
+            final WebSocketPayload payload = Objects.isNull(event) ? null : event.getPayload();
+            final Long window = Objects.isNull(payload) ? null : coalesceMillisecond.get(payload.getType());
+            if (Objects.nonNull(window) && window > 0) {
+                final String key = payload.getType() + ":" + Objects.requireNonNullElse(payload.getKey(), "");
+                senders.forEach(sender -> sender.coalesce(
+                        key, event, broadcast.getFrame(sender.getCodec()), window
+                ));
+                return;
+            }
+        }
+        senders.forEach(sender -> {
+            WebSocketMessage<?> frame = broadcast.getFrame(sender.getCodec());
+            if (Objects.nonNull(frame)) {
+                sender.send(frame, broadcast.getStreamId());
+            }
+        });
     }
 
     /**
-     * 开始监听 Redis 消息
+     * 收到节点消费的消息流事件
      *
-     * @param session WebSocket 会话
-     * @param userId  用户 ID
+     * @param record 事件
+     * @apiNote 不经过分发器，在消费线程中同步分发，以便和补发的会话登记共用分发锁
      */
-    private void startRedisListener(@NotNull WebSocketSession session, long userId) {
-        final String personalChannel = getRealChannel(CHANNEL_USER_PREFIX + userId);
-        RedisConnection redisConnection = redisConnectionFactory.getConnection();
-        redisConnectionHashMap.put(session.getId(), redisConnection);
+    private void onStreamRecord(@NotNull MapRecord<String, String, String> record) {
+        synchronized (streamLock) {
+            try {
+                final String channel = webSocketStreamHelper.getChannel(record);
+                if (!getSenders(channel).isEmpty()) {
+                    final WebSocketEvent event = toStreamEvent(record);
+                    dispatch(channel, new Broadcast(new TextMessage(Json.toString(event)), event));
+                }
+            } catch (Exception exception) {
+                log.error("分发 WebSocket 消息流事件失败: {}", exception.getMessage());
+            }
+            lastStreamId = record.getId().getValue();
+        }
+    }
 
-        redisMessageListenerContainer.addMessageListener(
-                (message, pattern) -> {
-                    synchronized (session) {
-                        onChannelMessage(new String(message.getBody(), UTF_8), session);
-                    }
-                },
-                ChannelTopic.of(getRealChannel(CHANNEL_ALL))
+    /**
+     * 获取会话断线期间错过的事件
+     *
+     * @param sender      会话的发送队列
+     * @param userId      用户 ID
+     * @param lastEventId 客户端最后收到的事件 ID
+     * @param untilId     补发的结束 ID，之后的事件由实时分发送达
+     * @return 按会话编解码编码的帧
+     * @apiNote 在分发锁外执行，只补发全频道和用户频道的事件；事件已被裁剪或数量过多时通知客户端重新加载
+     */
+    private @NotNull List<WebSocketMessage<?>> resume(
+            @NotNull WebSocketSender sender, long userId, String lastEventId, String untilId
+    ) {
+        List<MapRecord<String, Object, Object>> records = webSocketStreamHelper.getRecords(lastEventId, untilId);
+        if (Objects.isNull(records)) {
+            // 以结束 ID 作为事件 ID，客户端重新加载后从这里继续
+            return List.of(sender.getCodec().encode(WebSocketEvent.create(
+                    new WebSocketPayload().setData(RESUME_EXPIRED)
+            ).setId(untilId)));
+        }
+        final Set<String> channels = Set.of(
+                getRealChannel(CHANNEL_ALL), getRealChannel(CHANNEL_USER_PREFIX + userId)
         );
-        redisMessageListenerContainer.addMessageListener(
-                (message, pattern) -> {
-                    synchronized (session) {
-                        onChannelMessage(new String(message.getBody(), UTF_8), session);
-                    }
-                },
-                ChannelTopic.of(personalChannel)
+        return records.stream()
+                .filter(record -> channels.contains(webSocketStreamHelper.getChannel(record)))
+                .<WebSocketMessage<?>>map(record -> sender.getCodec().encode(toStreamEvent(record)))
+                .toList();
+    }
+
+    /**
+     * 将消息流事件转为下发的事件
+     *
+     * @param record 事件
+     * @return 以消息流 ID 作为事件 ID 的事件
+     */
+    private @NotNull WebSocketEvent toStreamEvent(@NotNull MapRecord<String, ?, ?> record) {
+        WebSocketEvent event = Json.parse(webSocketStreamHelper.getEvent(record), WebSocketEvent.class);
+        return event.setId(record.getId().getValue());
+    }
+
+    /**
+     * 获取频道在节点内会话的发送队列
+     *
+     * @param channel 带前缀的真实频道
+     * @return 发送队列
+     */
+    private @NotNull Collection<WebSocketSender> getSenders(@NotNull String channel) {
+        if (channel.equals(getRealChannel(CHANNEL_ALL))) {
+            return webSocketSessionRegistry.getSenders();
+        }
+        final String userChannelPrefix = getRealChannel(
+                webSocketConfig.getSupport() == WebSocketSupport.MQTT ? TOPIC_USER_PREFIX : CHANNEL_USER_PREFIX
         );
+        for (String prefix : List.of(getNodeChannelPrefix(), userChannelPrefix)) {
+            if (!channel.startsWith(prefix)) {
+                continue;
+            }
+            try {
+                return webSocketSessionRegistry.getUserSenders(Long.parseLong(channel.substring(prefix.length())));
+            } catch (NumberFormatException ignored) {
+                // 业务自定义的频道
+            }
+        }
+        return webSocketSessionRegistry.getChannelSenders(channel);
     }
 
     /**
-     * 开始监听 MQTT 消息
+     * 获取当前节点的用户频道前缀
      *
-     * @param session WebSocket 会话
-     * @param userId  用户 ID
+     * @return 带前缀的真实频道前缀
      */
-    private void startMqttListener(@NotNull WebSocketSession session, long userId) {
-        try (MqttClient mqttClient = mqttHelper.createClient()) {
-            mqttClient.setCallback(new MqttCallback() {
-                @Override
-                public void connectionLost(Throwable throwable) {
-                }
+    private @NotNull String getNodeChannelPrefix() {
+        return getRealChannel(webSocketPresenceHelper.getNodeChannelPrefix(webSocketPresenceHelper.getNodeId()));
+    }
 
-                @Override
-                public void messageArrived(String topic, MqttMessage mqttMessage) {
-                    synchronized (session) {
-                        onChannelMessage(new String(mqttMessage.getPayload(), UTF_8), session);
-                    }
-                }
+    /**
+     * 用户在节点上的第一个连接建立时
+     *
+     * @param userId 用户 ID
+     * @apiNote 启用在线状态时登记用户所在节点，否则在 Redis 下订阅用户频道；MQTT 已通过通配主题订阅所有用户
+     */
+    private void onUserOnline(long userId) {
+        if (webSocketPresenceHelper.isEnabled()) {
+            webSocketPresenceHelper.online(userId);
+            return;
+        }
+        if (webSocketConfig.getSupport() == WebSocketSupport.REDIS) {
+            addRedisTopic(getRealChannel(CHANNEL_USER_PREFIX + userId));
+        }
+    }
 
-                @Override
-                public void deliveryComplete(IMqttDeliveryToken iMqttDeliveryToken) {
+    /**
+     * 用户在节点上的最后一个连接断开时
+     *
+     * @param userId 用户 ID
+     */
+    private void onUserOffline(long userId) {
+        if (webSocketPresenceHelper.isEnabled()) {
+            webSocketPresenceHelper.offline(userId);
+            return;
+        }
+        if (webSocketConfig.getSupport() == WebSocketSupport.REDIS) {
+            removeRedisTopic(getRealChannel(CHANNEL_USER_PREFIX + userId));
+        }
+    }
 
-                }
-            });
-            mqttClient.connect(mqttHelper.createOption());
-            final String personalChannel = CHANNEL_USER_PREFIX + userId;
-            String[] topics = {CHANNEL_ALL, personalChannel};
-            mqttClient.subscribe(topics);
-            mqttClientHashMap.put(session.getId(), mqttClient);
-        } catch (MqttException ignored) {
+    /**
+     * 启动节点的 Redis 订阅容器
+     */
+    private void startRedisListener() {
+        redisListenerContainer = new RedisMessageListenerContainer();
+        redisListenerContainer.setConnectionFactory(redisConnectionFactory);
+        redisListenerContainer.setSubscriptionExecutor(new SimpleAsyncTaskExecutor("airpower-websocket-subscribe-"));
+        redisListenerContainer.setTaskExecutor(new SyncTaskExecutor());
+        redisListenerContainer.afterPropertiesSet();
+        redisListenerContainer.start();
+    }
+
+    /**
+     * 节点订阅 Redis 频道
+     *
+     * @param channel 带前缀的真实频道
+     */
+    private void addRedisTopic(String channel) {
+        redisListenerContainer.addMessageListener(this, ChannelTopic.of(channel));
+    }
+
+    /**
+     * 节点取消订阅 Redis 频道
+     *
+     * @param channel 带前缀的真实频道
+     */
+    private void removeRedisTopic(String channel) {
+        redisListenerContainer.removeMessageListener(this, ChannelTopic.of(channel));
+    }
+
+    /**
+     * 节点订阅 MQTT 主题
+     *
+     * @param topic 带前缀的真实主题
+     */
+    private void addMqttTopic(String topic) {
+        try {
+            mqttClient.subscribe(topic);
+        } catch (MqttException e) {
+            log.error(e.getMessage(), e);
+            throw new ServiceException("订阅 MQTT 频道失败，" + e.getMessage());
+        }
+    }
+
+    /**
+     * 节点取消订阅 MQTT 主题
+     *
+     * @param topic 带前缀的真实主题
+     */
+    private void removeMqttTopic(String topic) {
+        try {
+            mqttClient.unsubscribe(topic);
+        } catch (MqttException e) {
+            log.error("取消订阅 MQTT 频道失败: {}", e.getMessage());
         }
     }
 
+    /**
+     * 开始监听 MQTT 消息
+     *
+     * @apiNote 节点只建立一个 MQTT 连接，断线后自动重连并重新订阅
+     */
+    private void startMqttListener() {
+        try {
+            mqttClient = mqttHelper.createClient();
+            mqttClient.setCallback(this);
+            MqttConnectOptions options = mqttHelper.createOption();
+            options.setAutomaticReconnect(true);
+            options.setCleanSession(true);
+            mqttClient.connect(options);
+            subscribeMqttTopics();
+        } catch (MqttException e) {
+            log.error(e.getMessage(), e);
+            throw new ServiceException("连接 MQTT 失败，" + e.getMessage());
+        }
+    }
+
+    /**
+     * 订阅节点需要的 MQTT 主题
+     *
+     * @throws MqttException 异常
+     */
+    private void subscribeMqttTopics() throws MqttException {
+        final String userTopic = webSocketPresenceHelper.isEnabled() ?
+                getNodeChannelPrefix() : getRealChannel(TOPIC_USER_PREFIX);
+        List<String> topics = new ArrayList<>(List.of(getRealChannel(CHANNEL_ALL), userTopic + "+"));
+        topics.addAll(webSocketSessionRegistry.getChannels());
+        mqttClient.subscribe(topics.toArray(String[]::new));
+    }
+
     /**
      * 关闭连接
      *
@@ -266,17 +747,18 @@ public class WebSocketHandler extends TextWebSocketHandler implements MessageLis
     @Override
     public final void afterConnectionClosed(@NotNull WebSocketSession session, @NotNull CloseStatus status) {
         try {
-            String sessionId = session.getId();
-            Long userId = userIdHashMap.get(sessionId);
-            if (Objects.nonNull(userId)) {
-                userIdHashMap.remove(sessionId);
-            }
-            if (Objects.nonNull(redisConnectionHashMap.get(sessionId))) {
-                redisConnectionHashMap.remove(sessionId).close();
-            }
-            if (Objects.nonNull(mqttClientHashMap.get(sessionId))) {
-                mqttClientHashMap.remove(sessionId).close();
-            }
+            final Long currentUserId = webSocketSessionRegistry.getUserId(session);
+            Long userId = webSocketSessionRegistry.remove(session,
+                    () -> onUserOffline(currentUserId),
+                    channel -> {
+                        switch (webSocketConfig.getSupport()) {
+                            case REDIS -> removeRedisTopic(channel);
+                            case MQTT -> removeMqttTopic(channel);
+                            default -> {
+                            }
+                        }
+                    }
+            );
             TaskUtil.run(() -> afterDisconnect(session, userId));
         } catch (Exception exception) {
             log.error(exception.getMessage());
@@ -293,9 +775,69 @@ public class WebSocketHandler extends TextWebSocketHandler implements MessageLis
 
     }
 
-    @Contract(pure = true)
+    /**
+     * 收到节点订阅的 Redis 消息
+     *
+     * @param message 消息
+     * @param pattern 匹配规则
+     * @apiNote 按频道交给分发器，同一个频道的消息按收到的顺序分发
+     */
     @Override
     public final void onMessage(@NotNull Message message, byte[] pattern) {
+        final String channel = new String(message.getChannel(), UTF_8);
+        final byte[] body = message.getBody();
+        webSocketDispatcher.execute(channel, () -> dispatch(channel, body));
+    }
+
+    /**
+     * 收到节点订阅的 MQTT 消息
+     *
+     * @param topic       主题
+     * @param mqttMessage 消息
+     * @apiNote 按主题交给分发器，不阻塞 MQTT 回调线程
+     */
+    @Override
+    public final void messageArrived(String topic, @NotNull MqttMessage mqttMessage) {
+        final byte[] payload = mqttMessage.getPayload();
+        webSocketDispatcher.execute(topic, () -> dispatch(topic, payload));
+    }
+
+    /**
+     * MQTT 连接完成
+     *
+     * @param reconnect 是否为重连
+     * @param serverUri 服务器地址
+     */
+    @Override
+    public final void connectComplete(boolean reconnect, String serverUri) {
+        if (!reconnect) {
+            return;
+        }
+        log.info("MQTT 重连成功，重新订阅主题: {}", serverUri);
+        try {
+            subscribeMqttTopics();
+        } catch (MqttException exception) {
+            log.error("MQTT 重新订阅失败: {}", exception.getMessage());
+        }
+    }
+
+    /**
+     * MQTT 连接断开
+     *
+     * @param throwable 异常
+     */
+    @Override
+    public final void connectionLost(@NotNull Throwable throwable) {
+        log.warn("MQTT 连接断开，等待自动重连: {}", throwable.getMessage());
+    }
+
+    /**
+     * MQTT 消息发送完成
+     *
+     * @param token 令牌
+     */
+    @Override
+    public final void deliveryComplete(IMqttDeliveryToken token) {
     }
 
     /**
@@ -306,7 +848,7 @@ public class WebSocketHandler extends TextWebSocketHandler implements MessageLis
      */
     protected final void redisSubscribe(@NotNull String channel, WebSocketSession session) {
         log.info("REDIS开始订阅频道: {}", getRealChannel(channel));
-        getRedisSubscription(session).subscribe(getRealChannel(channel).getBytes(UTF_8));
+        webSocketSessionRegistry.join(getRealChannel(channel), session, this::addRedisTopic);
     }
 
     /**
@@ -317,12 +859,7 @@ public class WebSocketHandler extends TextWebSocketHandler implements MessageLis
      */
     protected final void mqttSubscribe(String channel, WebSocketSession session) {
         log.info("MQTT 开始订阅频道: {}", getRealChannel(channel));
-        try {
-            getMqttClient(session).subscribe(getRealChannel(channel));
-        } catch (MqttException e) {
-            log.error(e.getMessage(), e);
-            throw new ServiceException("订阅 MQTT 频道失败，" + e.getMessage());
-        }
+        webSocketSessionRegistry.join(getRealChannel(channel), session, this::addMqttTopic);
     }
 
     /**
@@ -344,7 +881,7 @@ public class WebSocketHandler extends TextWebSocketHandler implements MessageLis
      */
     protected final void redisUnSubscribe(@NotNull String channel, WebSocketSession session) {
         log.info("REDIS取消订阅频道: {}", getRealChannel(channel));
-        getRedisSubscription(session).unsubscribe(getRealChannel(channel).getBytes(UTF_8));
+        webSocketSessionRegistry.leave(getRealChannel(channel), session, this::removeRedisTopic);
     }
 
     /**
@@ -355,38 +892,7 @@ public class WebSocketHandler extends TextWebSocketHandler implements MessageLis
      */
     protected final void mqttUnSubscribe(String channel, WebSocketSession session) {
         log.info("MQTT取消订阅频道: {}", getRealChannel(channel));
-        try {
-            getMqttClient(session).unsubscribe(getRealChannel(channel));
-        } catch (MqttException e) {
-            log.error(e.getMessage(), e);
-            throw new ServiceException("取消订阅 MQTT 频道失败，" + e.getMessage());
-        }
-    }
-
-    /**
-     * 获取 MQTT 客户端
-     *
-     * @param session WebSocket 会话
-     * @return MQTT 客户端
-     */
-    protected final MqttClient getMqttClient(@NotNull WebSocketSession session) {
-        MqttClient mqttClient = mqttClientHashMap.get(session.getId());
-        WEBSOCKET_ERROR.whenNull(mqttClient, "mqttClient is null");
-        return mqttClient;
-    }
-
-    /**
-     * 获取 Redis 订阅
-     *
-     * @param session WebSocket 会话
-     * @return Redis 订阅
-     */
-    protected final Subscription getRedisSubscription(@NotNull WebSocketSession session) {
-        RedisConnection redisConnection = redisConnectionHashMap.get(session.getId());
-        WEBSOCKET_ERROR.whenNull(redisConnection, "redisConnection is null");
-        Subscription subscription = redisConnection.getSubscription();
-        WEBSOCKET_ERROR.whenNull(subscription, "subscription is null");
-        return subscription;
+        webSocketSessionRegistry.leave(getRealChannel(channel), session, this::removeMqttTopic);
     }
 
     /**
@@ -400,6 +906,10 @@ public class WebSocketHandler extends TextWebSocketHandler implements MessageLis
             case REDIS:
                 redisSubscribe(channel, session);
                 break;
+            case REDIS_STREAM:
+                webSocketSessionRegistry.join(getRealChannel(channel), session, realChannel -> {
+                });
+                break;
             case MQTT:
                 mqttSubscribe(channel, session);
                 break;
@@ -419,6 +929,10 @@ public class WebSocketHandler extends TextWebSocketHandler implements MessageLis
             case REDIS:
                 redisUnSubscribe(channel, session);
                 break;
+            case REDIS_STREAM:
+                webSocketSessionRegistry.leave(getRealChannel(channel), session, realChannel -> {
+                });
+                break;
             case MQTT:
                 mqttUnSubscribe(channel, session);
                 break;
@@ -426,4 +940,88 @@ public class WebSocketHandler extends TextWebSocketHandler implements MessageLis
                 break;
         }
     }
+
+    /**
+     * 一次广播
+     *
+     * @apiNote 事件按需解析一次，每种编解码的帧按需编码一次
+     */
+    private static class Broadcast {
+        /**
+         * JSON 格式的帧
+         */
+        private final TextMessage json;
+
+        /**
+         * 各编解码的帧
+         */
+        private final Map<WebSocketCodec, WebSocketMessage<?>> frames = new EnumMap<>(WebSocketCodec.class);
+
+        /**
+         * 事件
+         */
+        private WebSocketEvent event;
+
+        /**
+         * 是否已解析事件
+         */
+        private boolean parsed;
+
+        /**
+         * 消息流事件 ID
+         */
+        @Getter
+        private final String streamId;
+
+        /**
+         * 创建广播
+         *
+         * @param json  JSON 格式的帧
+         * @param event 已解析的消息流事件，不是消息流事件时为 {@code null}
+         */
+        private Broadcast(TextMessage json, WebSocketEvent event) {
+            this.json = json;
+            this.event = event;
+            this.parsed = Objects.nonNull(event);
+            this.streamId = Objects.isNull(event) ? null : event.getId();
+            frames.put(WebSocketCodec.JSON, json);
+        }
+
+        /**
+         * 获取事件
+         *
+         * @return 事件，无法解析时为 {@code null}
+         */
+        private @Nullable WebSocketEvent getEvent() {
+            if (!parsed) {
+                parsed = true;
+                try {
+                    event = Json.parse(json.getPayload(), WebSocketEvent.class);
+                } catch (Exception exception) {
+                    log.error("解析 WebSocket 事件失败: {}", exception.getMessage());
+                }
+            }
+            return event;
+        }
+
+        /**
+         * 获取编解码对应的帧
+         *
+         * @param codec 编解码
+         * @return 帧，无法解析事件时为 {@code null}
+         */
+        private @Nullable WebSocketMessage<?> getFrame(@NotNull WebSocketCodec codec) {
+            WebSocketMessage<?> frame = frames.get(codec);
+            if (Objects.nonNull(frame)) {
+                return frame;
+            }
+            WebSocketEvent webSocketEvent = getEvent();
+            if (Objects.isNull(webSocketEvent)) {
+                return null;
+            }
+            frame = codec.encode(webSocketEvent);
+            frames.put(codec, frame);
+            return frame;
+        }
+    }
 }
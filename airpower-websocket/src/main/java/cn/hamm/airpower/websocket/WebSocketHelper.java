@@ -10,8 +10,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import java.util.List;
+
 import static cn.hamm.airpower.websocket.WebSocketHandler.CHANNEL_ALL;
 import static cn.hamm.airpower.websocket.WebSocketHandler.CHANNEL_USER_PREFIX;
+import static cn.hamm.airpower.websocket.WebSocketHandler.TOPIC_USER_PREFIX;
 
 /**
  * <h1>WebSocketHelper</h1>
@@ -30,6 +33,15 @@ public class WebSocketHelper {
     @Autowired
     private MqttHelper mqttHelper;
 
+    @Autowired
+    private WebSocketPresenceHelper webSocketPresenceHelper;
+
+    @Autowired
+    private WebSocketSessionRegistry webSocketSessionRegistry;
+
+    @Autowired
+    private WebSocketStreamHelper webSocketStreamHelper;
+
     /**
      * 发布事件负载
      *
@@ -65,9 +77,25 @@ public class WebSocketHelper {
      * @param userId  目标用户 {@code ID}
      * @param payload 事件负载
      * @param from    发送者ID
+     * @apiNote 启用在线状态时只发布到用户所在的节点，用户不在线时不发布；
+     * {@code REDIS_STREAM} 下所有节点都读取同一个流，并且离线用户重连时需要补发，所以总是写入用户频道
      */
     public final void publishToUser(long userId, WebSocketPayload payload, Long from) {
-        publishToChannel(CHANNEL_USER_PREFIX + userId, payload, from);
+        if (webSocketPresenceHelper.isEnabled() && websocketConfig.getSupport() != WebSocketSupport.REDIS_STREAM) {
+            List<String> nodes = webSocketPresenceHelper.getNodes(userId);
+            if (nodes.isEmpty()) {
+                log.info("用户 {} 不在线，跳过发布", userId);
+                return;
+            }
+            final String message = Json.toString(WebSocketEvent.create(from, payload));
+            nodes.forEach(nodeId -> publishMessage(
+                    webSocketPresenceHelper.getNodeChannelPrefix(nodeId) + userId, message
+            ));
+            return;
+        }
+        final String userChannelPrefix = websocketConfig.getSupport() == WebSocketSupport.MQTT ?
+                TOPIC_USER_PREFIX : CHANNEL_USER_PREFIX;
+        publishToChannel(userChannelPrefix + userId, payload, from);
     }
 
     /**
@@ -88,17 +116,41 @@ public class WebSocketHelper {
      * @param from    发送者ID
      */
     public final void publishToChannel(String channel, WebSocketPayload payload, Long from) {
+        publishMessage(channel, Json.toString(WebSocketEvent.create(from, payload)));
+    }
+
+    /**
+     * 用户是否在线
+     *
+     * @param userId 用户 ID
+     * @return 是否在线
+     * @apiNote 未启用在线状态时只能判断用户是否连接在当前节点
+     */
+    public final boolean isOnline(long userId) {
+        if (webSocketPresenceHelper.isEnabled()) {
+            return webSocketPresenceHelper.isOnline(userId);
+        }
+        return !webSocketSessionRegistry.getUserSenders(userId).isEmpty();
+    }
+
+    /**
+     * 发布消息到指定的频道
+     *
+     * @param channel 频道
+     * @param message 已序列化的事件
+     */
+    private void publishMessage(String channel, String message) {
         final String channelPrefix = websocketConfig.getChannelPrefix();
         if (!StringUtils.hasText(channelPrefix)) {
             throw new ServiceException("没有配置 airpower.websocket.channelPrefix, 无法启动WebSocket服务");
         }
-        final WebSocketEvent event = WebSocketEvent.create(from, payload);
         final String targetChannel = channelPrefix + "_" + channel;
-        log.info("发布消息到频道 {} : {}", targetChannel, Json.toString(event));
+        log.info("发布消息到频道 {} : {}", targetChannel, message);
         try {
             switch (websocketConfig.getSupport()) {
-                case REDIS -> redisHelper.publish(targetChannel, Json.toString(event));
-                case MQTT -> mqttHelper.publish(targetChannel, Json.toString(event));
+                case REDIS -> redisHelper.publish(targetChannel, message);
+                case MQTT -> mqttHelper.publish(targetChannel, message);
+                case REDIS_STREAM -> webSocketStreamHelper.append(targetChannel, message);
                 default -> throw new ServiceException("WebSocket 暂不支持");
             }
         } catch (MqttException e) {
@@ -0,0 +1,23 @@
+package cn.hamm.airpower.websocket;
+
+/**
+ * <h1>WebSocket 发送队列溢出策略</h1>
+ *
+ * @author Hamm.cn
+ */
+public enum WebSocketOverflowPolicy {
+    /**
+     * 丢弃最早的消息
+     */
+    DROP_OLDEST,
+
+    /**
+     * 丢弃新的消息
+     */
+    DROP_NEWEST,
+
+    /**
+     * 断开过慢的连接
+     */
+    DISCONNECT,
+}
@@ -1,8 +1,13 @@
 package cn.hamm.airpower.websocket;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.experimental.Accessors;
 
+import java.util.List;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
 /**
  * <h1>WebSocket 事件负载</h1>
  *
@@ -11,6 +16,13 @@ import lombok.experimental.Accessors;
 @Data
 @Accessors(chain = true)
 public class WebSocketPayload {
+    /**
+     * 批量负载的类型
+     *
+     * @apiNote 合并发送时下发，{@link #batch} 中为窗口内合并后的事件
+     */
+    public static final String TYPE_BATCH = "batch";
+
     /**
      * 负载类型
      */
@@ -20,4 +32,20 @@ public class WebSocketPayload {
      * 负载数据
      */
     private String data;
-}
\ No newline at end of file
+
+    /**
+     * 合并的 key
+     *
+     * @apiNote 配置了合并窗口的类型，窗口内类型和 key 都相同的事件只保留最后一个；为空时按类型合并
+     */
+    @JsonInclude(NON_NULL)
+    private String key;
+
+    /**
+     * 批量的事件
+     *
+     * @apiNote 仅 {@link #TYPE_BATCH} 类型有值
+     */
+    @JsonInclude(NON_NULL)
+    private List<WebSocketEvent> batch;
+}
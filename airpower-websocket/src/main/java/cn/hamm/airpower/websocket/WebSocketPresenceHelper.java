@@ -0,0 +1,289 @@
+package cn.hamm.airpower.websocket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>WebSocket 在线状态助手类</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 在 Redis 中以有序集合记录用户连接在哪些节点上，分数为节点最后一次登记的时间：
+ * 用户在节点上的第一个连接建立时登记、最后一个连接断开时注销；节点定时心跳并刷新本节点在线用户的登记时间，
+ * 超过三个心跳间隔没有刷新的登记和宕机节点在查询时被剔除，心跳与下线并发时误登记的用户也会随之过期
+ */
+@Slf4j
+@Component
+public class WebSocketPresenceHelper {
+    /**
+     * 用户所在节点的 key 前缀
+     */
+    private static final String PRESENCE_PREFIX = "WEBSOCKET_PRESENCE_";
+
+    /**
+     * 节点心跳的 key
+     */
+    private static final String NODES = "WEBSOCKET_NODES";
+
+    /**
+     * 节点 Redis 频道前缀
+     */
+    private static final String CHANNEL_NODE_PREFIX = "WEBSOCKET_NODE_";
+
+    /**
+     * 节点 MQTT 主题前缀
+     */
+    private static final String TOPIC_NODE_PREFIX = "WEBSOCKET_NODE/";
+
+    /**
+     * 节点心跳的有效期是心跳间隔的倍数
+     */
+    private static final int NODE_TTL_TIMES = 3;
+
+    /**
+     * 每次心跳脚本刷新的用户数
+     */
+    private static final int REFRESH_BATCH_SIZE = 500;
+
+    /**
+     * 查询用户所在节点的脚本
+     *
+     * @apiNote {@code KEYS}: 用户所在节点、节点心跳；返回登记和心跳都有效的节点，同时移除过期的登记
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> NODES_SCRIPT = new DefaultRedisScript<>("""
+            local time = redis.call('time')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local expired = now - tonumber(ARGV[1])
+            redis.call('zremrangebyscore', KEYS[1], '-inf', expired)
+            local alive = {}
+            for _, node in ipairs(redis.call('zrange', KEYS[1], 0, -1)) do
+                local beat = redis.call('zscore', KEYS[2], node)
+                if beat and tonumber(beat) > expired then
+                    table.insert(alive, node)
+                else
+                    redis.call('zrem', KEYS[1], node)
+                end
+            end
+            return alive
+            """, List.class);
+
+    /**
+     * 登记用户所在节点的脚本
+     *
+     * @apiNote {@code KEYS}: 用户所在节点，可以有多个；{@code ARGV}: 节点标识、有效期；
+     * 以 Redis 的当前时间作为登记时间，整个 key 也在有效期后过期
+     */
+    private static final RedisScript<Long> ONLINE_SCRIPT = new DefaultRedisScript<>("""
+            local time = redis.call('time')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            for _, key in ipairs(KEYS) do
+                redis.call('zadd', key, now, ARGV[1])
+                redis.call('pexpire', key, ARGV[2])
+            end
+            return #KEYS
+            """, Long.class);
+
+    /**
+     * 节点心跳的脚本
+     *
+     * @apiNote {@code KEYS}: 节点心跳；登记当前节点并清理过期的节点
+     */
+    private static final RedisScript<Long> HEARTBEAT_SCRIPT = new DefaultRedisScript<>("""
+            local time = redis.call('time')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            redis.call('zadd', KEYS[1], now, ARGV[1])
+            return redis.call('zremrangebyscore', KEYS[1], '-inf', now - tonumber(ARGV[2]))
+            """, Long.class);
+
+    /**
+     * 当前节点的标识
+     */
+    @Getter
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 心跳线程
+     */
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "airpower-websocket-presence");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    private WebSocketConfig webSocketConfig;
+
+    @Autowired
+    private WebSocketSessionRegistry webSocketSessionRegistry;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 开始节点心跳
+     */
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        final long interval = webSocketConfig.getPresenceHeartbeatMillisecond();
+        heartbeat.scheduleAtFixedRate(this::heartbeat, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止心跳并注销当前节点
+     */
+    @PreDestroy
+    public void destroy() {
+        heartbeat.shutdownNow();
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForZSet().remove(getKey(NODES), nodeId);
+        } catch (Exception exception) {
+            log.error("注销 WebSocket 节点失败: {}", exception.getMessage());
+        }
+    }
+
+    /**
+     * 是否启用集群在线状态
+     *
+     * @return 是否启用
+     */
+    public final boolean isEnabled() {
+        return webSocketConfig.isPresence() && webSocketConfig.getSupport() != WebSocketSupport.NO;
+    }
+
+    /**
+     * 登记用户在当前节点上线
+     *
+     * @param userId 用户 ID
+     */
+    public final void online(long userId) {
+        stringRedisTemplate.execute(ONLINE_SCRIPT, List.of(getPresenceKey(userId)), nodeId,
+                String.valueOf(getNodeTtl())
+        );
+    }
+
+    /**
+     * 登记用户在当前节点下线
+     *
+     * @param userId 用户 ID
+     */
+    public final void offline(long userId) {
+        stringRedisTemplate.opsForZSet().remove(getPresenceKey(userId), nodeId);
+    }
+
+    /**
+     * 获取用户所在的节点
+     *
+     * @param userId 用户 ID
+     * @return 节点标识
+     */
+    @SuppressWarnings("unchecked")
+    public final @NotNull List<String> getNodes(long userId) {
+        List<String> nodes = stringRedisTemplate.execute(NODES_SCRIPT,
+                List.of(getPresenceKey(userId), getKey(NODES)), String.valueOf(getNodeTtl())
+        );
+        return Objects.isNull(nodes) ? Collections.emptyList() : nodes;
+    }
+
+    /**
+     * 用户是否在线
+     *
+     * @param userId 用户 ID
+     * @return 是否在线
+     */
+    public final boolean isOnline(long userId) {
+        return !getNodes(userId).isEmpty();
+    }
+
+    /**
+     * 获取节点的用户频道前缀
+     *
+     * @param nodeId 节点标识
+     * @return 不带前缀的频道，拼接用户 ID 后为完整频道
+     * @apiNote MQTT 的通配符只能匹配完整的一级主题，所以节点和用户 ID 各占一级
+     */
+    public final @NotNull String getNodeChannelPrefix(String nodeId) {
+        if (webSocketConfig.getSupport() == WebSocketSupport.MQTT) {
+            return TOPIC_NODE_PREFIX + nodeId + "/";
+        }
+        return CHANNEL_NODE_PREFIX + nodeId + "_";
+    }
+
+    /**
+     * 节点心跳
+     *
+     * @apiNote 同时刷新本节点在线用户的登记时间，Redis 数据丢失后可以自动恢复；
+     * 刷新时已下线的用户不会再被刷新，登记在有效期后过期
+     */
+    private void heartbeat() {
+        try {
+            stringRedisTemplate.execute(HEARTBEAT_SCRIPT, List.of(getKey(NODES)), nodeId,
+                    String.valueOf(getNodeTtl())
+            );
+            final String ttl = String.valueOf(getNodeTtl());
+            List<String> keys = new ArrayList<>(REFRESH_BATCH_SIZE);
+            for (long userId : webSocketSessionRegistry.getUserIds()) {
+                keys.add(getPresenceKey(userId));
+                if (keys.size() >= REFRESH_BATCH_SIZE) {
+                    stringRedisTemplate.execute(ONLINE_SCRIPT, keys, nodeId, ttl);
+                    keys = new ArrayList<>(REFRESH_BATCH_SIZE);
+                }
+            }
+            if (!keys.isEmpty()) {
+                stringRedisTemplate.execute(ONLINE_SCRIPT, keys, nodeId, ttl);
+            }
+        } catch (Exception exception) {
+            log.error("WebSocket 节点心跳失败: {}", exception.getMessage());
+        }
+    }
+
+    /**
+     * 获取节点心跳和用户登记的有效期
+     *
+     * @return 毫秒
+     */
+    private long getNodeTtl() {
+        return webSocketConfig.getPresenceHeartbeatMillisecond() * NODE_TTL_TIMES;
+    }
+
+    /**
+     * 获取用户所在节点的 key
+     *
+     * @param userId 用户 ID
+     * @return key
+     */
+    @Contract(pure = true)
+    private @NotNull String getPresenceKey(long userId) {
+        return getKey(PRESENCE_PREFIX + userId);
+    }
+
+    /**
+     * 获取带前缀的 key
+     *
+     * @param key key
+     * @return 带前缀的 key
+     */
+    @Contract(pure = true)
+    private @NotNull String getKey(String key) {
+        return webSocketConfig.getChannelPrefix() + "_" + key;
+    }
+}
@@ -0,0 +1,549 @@
+package cn.hamm.airpower.websocket;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * <h1>WebSocket 发送队列</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 每个连接一个有界队列，调用方只入队不等待；同一时刻最多一个线程写出，保证消息顺序且不需要对会话加锁；
+ * 队列满、超出字节数或消息等待过久时按 {@link WebSocketOverflowPolicy} 处理，慢客户端不会拖慢其他连接；
+ * 单次写出阻塞超过 {@link WebSocketConfig#getSendTimeLimitMillisecond()} 时由下一次发送或心跳断开连接，释放被占用的发送线程
+ */
+@Slf4j
+public class WebSocketSender {
+    /**
+     * 会话
+     */
+    @Getter
+    private final WebSocketSession session;
+
+    /**
+     * 发送线程池
+     */
+    private final Executor executor;
+
+    /**
+     * 合并发送的定时器
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 配置
+     */
+    private final WebSocketConfig webSocketConfig;
+
+    /**
+     * 编解码
+     */
+    @Getter
+    private final WebSocketCodec codec;
+
+    /**
+     * 待发送的消息
+     */
+    private final Deque<Frame> queue = new ConcurrentLinkedDeque<>();
+
+    /**
+     * 待发送的消息数
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * 待发送的字节数
+     */
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * 是否正在写出
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * 丢弃的消息数
+     */
+    private final LongAdder droppedCount = new LongAdder();
+
+    /**
+     * 等待合并发送的事件
+     *
+     * @apiNote 同一个合并 key 只保留最后一个事件，按最后一次更新的顺序排列
+     */
+    private final Map<String, Coalesced> coalesceMap = new LinkedHashMap<>();
+
+    /**
+     * 是否已安排合并发送
+     */
+    private boolean coalesceScheduled;
+
+    /**
+     * 补发期间暂存的消息
+     *
+     * @apiNote 不为 {@code null} 时处于补发状态，新的消息先暂存，补发完成后排在补发的事件之后写出
+     */
+    private volatile List<Held> heldList;
+
+    /**
+     * 暂存消息的锁
+     */
+    private final Object holdLock = new Object();
+
+    /**
+     * 是否已关闭
+     */
+    @Getter
+    private volatile boolean closed;
+
+    /**
+     * 最后活跃时间
+     *
+     * @apiNote 收到客户端的任意消息或 PONG 时更新
+     */
+    @Getter
+    private volatile long lastActiveTime = System.currentTimeMillis();
+
+    /**
+     * 当前这次写出的开始时间
+     *
+     * @apiNote 没有正在写出的消息时为 {@code 0}
+     */
+    private volatile long sendStartTime;
+
+    /**
+     * 心跳定时任务
+     *
+     * @apiNote 关闭时取消，避免时间轮继续持有已关闭的会话
+     */
+    private volatile WebSocketTimerWheel.Timeout heartbeatTimeout;
+
+    /**
+     * 创建发送队列
+     *
+     * @param session         会话
+     * @param executor        发送线程池
+     * @param scheduler       合并发送的定时器
+     * @param webSocketConfig 配置
+     * @param codec           编解码
+     */
+    public WebSocketSender(
+            WebSocketSession session, Executor executor, ScheduledExecutorService scheduler,
+            WebSocketConfig webSocketConfig, WebSocketCodec codec
+    ) {
+        this.session = session;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.webSocketConfig = webSocketConfig;
+        this.codec = codec;
+    }
+
+    /**
+     * 发送消息
+     *
+     * @param message 消息
+     * @apiNote 立即返回，消息在发送线程中按顺序写出
+     */
+    public final void send(@NotNull WebSocketMessage<?> message) {
+        send(message, null);
+    }
+
+    /**
+     * 发送消息流中的事件
+     *
+     * @param message 消息
+     * @param eventId 消息流事件 ID，不是消息流事件时为 {@code null}
+     * @apiNote 补发期间暂存，补发完成时跳过已经补发过的事件
+     */
+    public final void send(@NotNull WebSocketMessage<?> message, @Nullable String eventId) {
+        if (closed || checkSendTimeout()) {
+            return;
+        }
+        if (Objects.nonNull(heldList)) {
+            synchronized (holdLock) {
+                if (Objects.nonNull(heldList)) {
+                    if (heldList.size() >= webSocketConfig.getSendQueueSize()) {
+                        disconnect("补发期间暂存的消息过多");
+                        return;
+                    }
+                    heldList.add(new Held(message, eventId));
+                    return;
+                }
+            }
+        }
+        enqueue(message);
+    }
+
+    /**
+     * 开始补发
+     *
+     * @apiNote 需要在会话登记之前调用，之后实时分发的消息都先暂存，直到 {@link #release(List, Predicate)}
+     */
+    public final void hold() {
+        heldList = new ArrayList<>();
+    }
+
+    /**
+     * 结束补发
+     *
+     * @param messages 补发的消息
+     * @param replayed 消息流事件 ID 是否已在补发范围内
+     * @apiNote 先写出补发的消息，再写出补发期间暂存的消息，已在补发范围内的暂存事件不再重复写出
+     */
+    public final void release(@NotNull List<WebSocketMessage<?>> messages, @NotNull Predicate<String> replayed) {
+        synchronized (holdLock) {
+            final List<Held> list = heldList;
+            if (Objects.isNull(list)) {
+                return;
+            }
+            messages.forEach(this::enqueue);
+            list.stream()
+                    .filter(held -> Objects.isNull(held.eventId) || !replayed.test(held.eventId))
+                    .forEach(held -> enqueue(held.message));
+            heldList = null;
+        }
+    }
+
+    /**
+     * 消息入队
+     *
+     * @param message 消息
+     * @apiNote 队列满或超出字节数时按 {@link WebSocketOverflowPolicy} 处理
+     */
+    private void enqueue(@NotNull WebSocketMessage<?> message) {
+        if (closed) {
+            return;
+        }
+        final int length = message.getPayloadLength();
+        if (size.get() >= webSocketConfig.getSendQueueSize() ||
+                bytes.get() + length > webSocketConfig.getSendBufferBytes()) {
+            switch (webSocketConfig.getOverflowPolicy()) {
+                case DROP_NEWEST -> {
+                    droppedCount.increment();
+                    return;
+                }
+                case DROP_OLDEST -> dropOldest();
+                case DISCONNECT -> {
+                    disconnect("发送队列已满");
+                    return;
+                }
+            }
+        }
+        queue.offer(new Frame(message, length, System.currentTimeMillis()));
+        size.incrementAndGet();
+        bytes.addAndGet(length);
+        schedule();
+    }
+
+    /**
+     * 合并发送事件
+     *
+     * @param key     合并 key
+     * @param event   事件
+     * @param message 事件按本会话编解码编码的帧
+     * @param window  合并窗口(毫秒)
+     * @apiNote 窗口内相同 key 的事件只保留最后一个；窗口结束时只有一个事件则原样发送，否则合并为一个批量事件发送，
+     * 批量事件的 ID 为最后收到的事件的 ID，{@code REDIS_STREAM} 下客户端以此断线续传时不会跳过或重复事件
+     */
+    public final void coalesce(String key, WebSocketEvent event, WebSocketMessage<?> message, long window) {
+        if (closed) {
+            return;
+        }
+        if (Objects.nonNull(heldList)) {
+            // 补发期间不合并，以便补发完成时按事件 ID 去重
+            send(message, event.getId());
+            return;
+        }
+        synchronized (coalesceMap) {
+            // 移到末尾，使最后一个事件始终是最后收到的
+            coalesceMap.remove(key);
+            coalesceMap.put(key, new Coalesced(event, message));
+            if (coalesceScheduled) {
+                return;
+            }
+            coalesceScheduled = true;
+        }
+        try {
+            scheduler.schedule(() -> executor.execute(this::flushCoalesced), window, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException exception) {
+            log.warn("合并发送定时器已关闭，会话: {}", session.getId());
+        }
+    }
+
+    /**
+     * 标记会话活跃
+     */
+    public final void touch() {
+        lastActiveTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 设置心跳定时任务
+     *
+     * @param timeout 定时任务
+     * @apiNote 已关闭时立即取消
+     */
+    public final void setHeartbeatTimeout(@NotNull WebSocketTimerWheel.Timeout timeout) {
+        heartbeatTimeout = timeout;
+        if (closed) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * 检查正在进行的写出是否超时
+     *
+     * @return 是否已超时并断开连接
+     * @apiNote 写出阻塞超过 {@link WebSocketConfig#getSendTimeLimitMillisecond()} 时断开连接，
+     * 关闭底层连接后阻塞的写出会失败返回
+     */
+    public final boolean checkSendTimeout() {
+        final long startTime = sendStartTime;
+        if (startTime <= 0 || System.currentTimeMillis() - startTime <= webSocketConfig.getSendTimeLimitMillisecond()) {
+            return false;
+        }
+        disconnect("写出超时");
+        return true;
+    }
+
+    /**
+     * 关闭发送队列
+     *
+     * @apiNote 丢弃未发送的消息并取消心跳
+     */
+    public final void close() {
+        closed = true;
+        final WebSocketTimerWheel.Timeout timeout = heartbeatTimeout;
+        if (Objects.nonNull(timeout)) {
+            timeout.cancel();
+        }
+        heldList = null;
+        queue.clear();
+        size.set(0);
+        bytes.set(0);
+        synchronized (coalesceMap) {
+            coalesceMap.clear();
+        }
+    }
+
+    /**
+     * 获取待发送的消息数
+     *
+     * @return 消息数
+     */
+    public final int getQueueSize() {
+        return size.get();
+    }
+
+    /**
+     * 获取丢弃的消息数
+     *
+     * @return 消息数
+     */
+    public final long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * 发送窗口内合并的事件
+     */
+    private void flushCoalesced() {
+        List<Coalesced> coalescedList;
+        synchronized (coalesceMap) {
+            coalescedList = new ArrayList<>(coalesceMap.values());
+            coalesceMap.clear();
+            coalesceScheduled = false;
+        }
+        if (closed || coalescedList.isEmpty()) {
+            return;
+        }
+        final String lastId = coalescedList.get(coalescedList.size() - 1).event.getId();
+        if (coalescedList.size() == 1) {
+            send(coalescedList.get(0).message, lastId);
+            return;
+        }
+        List<WebSocketEvent> events = coalescedList.stream().map(coalesced -> coalesced.event).toList();
+        send(codec.encode(WebSocketEvent.create(
+                new WebSocketPayload().setType(WebSocketPayload.TYPE_BATCH).setBatch(events)
+        ).setId(lastId)), lastId);
+    }
+
+    /**
+     * 安排写出
+     */
+    private void schedule() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException exception) {
+            draining.set(false);
+            log.warn("发送线程池已关闭，会话: {}", session.getId());
+        }
+    }
+
+    /**
+     * 写出队列中的消息
+     */
+    private void drain() {
+        try {
+            Frame frame;
+            while (!closed && Objects.nonNull(frame = queue.poll())) {
+                size.decrementAndGet();
+                bytes.addAndGet(-frame.length);
+                if (System.currentTimeMillis() - frame.time > webSocketConfig.getSendTimeLimitMillisecond()) {
+                    if (webSocketConfig.getOverflowPolicy() == WebSocketOverflowPolicy.DISCONNECT) {
+                        disconnect("消息等待超时");
+                        return;
+                    }
+                    droppedCount.increment();
+                    continue;
+                }
+                sendStartTime = System.currentTimeMillis();
+                try {
+                    session.sendMessage(frame.message);
+                } finally {
+                    sendStartTime = 0;
+                }
+            }
+        } catch (Exception exception) {
+            log.error("发送 WebSocket 消息失败，会话: {}, {}", session.getId(), exception.getMessage());
+            disconnect("发送失败");
+        } finally {
+            draining.set(false);
+            if (!closed && !queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * 丢弃最早的消息
+     */
+    private void dropOldest() {
+        Frame frame = queue.poll();
+        if (Objects.isNull(frame)) {
+            return;
+        }
+        size.decrementAndGet();
+        bytes.addAndGet(-frame.length);
+        droppedCount.increment();
+    }
+
+    /**
+     * 断开不可靠的连接
+     *
+     * @param reason 原因
+     * @apiNote 以 {@link CloseStatus#SESSION_NOT_RELIABLE} 关闭，由 {@code afterConnectionClosed} 完成清理
+     */
+    public final void disconnect(String reason) {
+        if (closed) {
+            return;
+        }
+        close();
+        log.warn("断开 WebSocket 连接，会话: {}, 原因: {}", session.getId(), reason);
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (Exception exception) {
+            log.error("关闭 WebSocket 失败，会话: {}", session.getId());
+        }
+    }
+
+    /**
+     * 等待合并发送的事件
+     */
+    private static class Coalesced {
+        /**
+         * 事件
+         */
+        private final WebSocketEvent event;
+
+        /**
+         * 事件的帧
+         */
+        private final WebSocketMessage<?> message;
+
+        /**
+         * 创建等待合并发送的事件
+         *
+         * @param event   事件
+         * @param message 事件的帧
+         */
+        private Coalesced(WebSocketEvent event, WebSocketMessage<?> message) {
+            this.event = event;
+            this.message = message;
+        }
+    }
+
+    /**
+     * 补发期间暂存的消息
+     */
+    private static class Held {
+        /**
+         * 消息
+         */
+        private final WebSocketMessage<?> message;
+
+        /**
+         * 消息流事件 ID
+         */
+        private final String eventId;
+
+        /**
+         * 创建暂存的消息
+         *
+         * @param message 消息
+         * @param eventId 消息流事件 ID，不是消息流事件时为 {@code null}
+         */
+        private Held(WebSocketMessage<?> message, String eventId) {
+            this.message = message;
+            this.eventId = eventId;
+        }
+    }
+
+    /**
+     * 待发送的消息
+     */
+    private static class Frame {
+        /**
+         * 消息
+         */
+        private final WebSocketMessage<?> message;
+
+        /**
+         * 字节数
+         */
+        private final int length;
+
+        /**
+         * 入队时间
+         */
+        private final long time;
+
+        /**
+         * 创建待发送的消息
+         *
+         * @param message 消息
+         * @param length  字节数
+         * @param time    入队时间
+         */
+        private Frame(WebSocketMessage<?> message, int length, long time) {
+            this.message = message;
+            this.length = length;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package cn.hamm.airpower.websocket;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h1>WebSocket 会话索引</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 节点内按用户和频道索引会话的发送队列，每个频道在节点上只订阅一次，收到消息后从索引中找到本地会话分发；
+ * 用户或频道的第一个会话加入、最后一个会话离开时执行传入的回调，回调与索引变更在同一个键上串行执行；
+ * 回调可能有网络请求，所以在分段锁中执行而不是在 {@link ConcurrentHashMap#compute} 中，不会阻塞哈希表
+ */
+@Component
+public class WebSocketSessionRegistry {
+    /**
+     * 分段锁的数量
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * 会话的发送队列
+     */
+    private final Map<String, WebSocketSender> senderMap = new ConcurrentHashMap<>();
+
+    /**
+     * 会话的用户 ID
+     */
+    private final Map<String, Long> userIdMap = new ConcurrentHashMap<>();
+
+    /**
+     * 用户的会话
+     */
+    private final Map<Long, Set<WebSocketSender>> userSessionMap = new ConcurrentHashMap<>();
+
+    /**
+     * 频道的会话
+     */
+    private final Map<String, Set<WebSocketSender>> channelSessionMap = new ConcurrentHashMap<>();
+
+    /**
+     * 会话订阅的频道
+     */
+    private final Map<String, Set<String>> sessionChannelMap = new ConcurrentHashMap<>();
+
+    /**
+     * 用户索引的分段锁
+     */
+    private final Object[] userLocks = createLocks();
+
+    /**
+     * 频道索引的分段锁
+     *
+     * @apiNote 与用户索引的分段锁分开，回调中不会同时持有两种锁
+     */
+    private final Object[] channelLocks = createLocks();
+
+    /**
+     * 添加会话
+     *
+     * @param sender  会话的发送队列
+     * @param userId  用户 ID
+     * @param onFirst 用户的第一个会话加入时的回调
+     * @apiNote 回调失败时不登记会话并抛出异常，不会留下只登记了一半的会话
+     */
+    public final void add(@NotNull WebSocketSender sender, long userId, Runnable onFirst) {
+        final String sessionId = sender.getSession().getId();
+        synchronized (getLock(userLocks, userId)) {
+            Set<WebSocketSender> senders = userSessionMap.get(userId);
+            if (Objects.isNull(senders)) {
+                onFirst.run();
+                senders = ConcurrentHashMap.newKeySet();
+                userSessionMap.put(userId, senders);
+            }
+            senders.add(sender);
+        }
+        userIdMap.put(sessionId, userId);
+        senderMap.put(sessionId, sender);
+    }
+
+    /**
+     * 移除会话
+     *
+     * @param session       会话
+     * @param onLast        用户的最后一个会话离开时的回调
+     * @param onChannelLast 频道的最后一个会话离开时的回调
+     * @return 用户 ID，会话不存在时为 {@code null}
+     * @apiNote 同时关闭发送队列并退出会话订阅的所有频道
+     */
+    public final @Nullable Long remove(
+            @NotNull WebSocketSession session, Runnable onLast, ChannelCallback onChannelLast
+    ) {
+        WebSocketSender sender = senderMap.remove(session.getId());
+        if (Objects.isNull(sender)) {
+            return null;
+        }
+        sender.close();
+        Set<String> channels = sessionChannelMap.remove(session.getId());
+        if (Objects.nonNull(channels)) {
+            channels.forEach(channel -> leaveChannel(channel, sender, onChannelLast));
+        }
+        Long userId = userIdMap.remove(session.getId());
+        if (Objects.isNull(userId)) {
+            return null;
+        }
+        synchronized (getLock(userLocks, userId)) {
+            Set<WebSocketSender> senders = userSessionMap.get(userId);
+            if (Objects.nonNull(senders) && senders.remove(sender) && senders.isEmpty()) {
+                userSessionMap.remove(userId);
+                onLast.run();
+            }
+        }
+        return userId;
+    }
+
+    /**
+     * 会话加入频道
+     *
+     * @param channel 频道
+     * @param session 会话
+     * @param onFirst 频道的第一个会话加入时的回调
+     * @apiNote 回调失败时不加入频道并抛出异常
+     */
+    public final void join(String channel, @NotNull WebSocketSession session, ChannelCallback onFirst) {
+        WebSocketSender sender = senderMap.get(session.getId());
+        if (Objects.isNull(sender)) {
+            return;
+        }
+        synchronized (getLock(channelLocks, channel)) {
+            Set<WebSocketSender> senders = channelSessionMap.get(channel);
+            if (Objects.isNull(senders)) {
+                onFirst.run(channel);
+                senders = ConcurrentHashMap.newKeySet();
+                channelSessionMap.put(channel, senders);
+            }
+            senders.add(sender);
+        }
+        sessionChannelMap.computeIfAbsent(session.getId(), key -> ConcurrentHashMap.newKeySet()).add(channel);
+    }
+
+    /**
+     * 会话离开频道
+     *
+     * @param channel 频道
+     * @param session 会话
+     * @param onLast  频道的最后一个会话离开时的回调
+     */
+    public final void leave(String channel, @NotNull WebSocketSession session, ChannelCallback onLast) {
+        Set<String> channels = sessionChannelMap.get(session.getId());
+        WebSocketSender sender = senderMap.get(session.getId());
+        if (Objects.isNull(channels) || Objects.isNull(sender) || !channels.remove(channel)) {
+            return;
+        }
+        leaveChannel(channel, sender, onLast);
+    }
+
+    /**
+     * 获取会话的用户 ID
+     *
+     * @param session 会话
+     * @return 用户 ID
+     */
+    public final @Nullable Long getUserId(@NotNull WebSocketSession session) {
+        return userIdMap.get(session.getId());
+    }
+
+    /**
+     * 获取会话的发送队列
+     *
+     * @param session 会话
+     * @return 发送队列，会话未登记时为 {@code null}
+     */
+    public final @Nullable WebSocketSender getSender(@NotNull WebSocketSession session) {
+        return senderMap.get(session.getId());
+    }
+
+    /**
+     * 获取节点内所有会话的发送队列
+     *
+     * @return 发送队列
+     */
+    public final @NotNull Collection<WebSocketSender> getSenders() {
+        return senderMap.values();
+    }
+
+    /**
+     * 获取用户在节点内会话的发送队列
+     *
+     * @param userId 用户 ID
+     * @return 发送队列
+     */
+    public final @NotNull Collection<WebSocketSender> getUserSenders(long userId) {
+        return userSessionMap.getOrDefault(userId, Collections.emptySet());
+    }
+
+    /**
+     * 获取节点内的在线用户
+     *
+     * @return 用户 ID
+     */
+    public final @NotNull Set<Long> getUserIds() {
+        return userSessionMap.keySet();
+    }
+
+    /**
+     * 获取加入频道的会话的发送队列
+     *
+     * @param channel 频道
+     * @return 发送队列
+     */
+    public final @NotNull Collection<WebSocketSender> getChannelSenders(String channel) {
+        return channelSessionMap.getOrDefault(channel, Collections.emptySet());
+    }
+
+    /**
+     * 获取节点内有会话加入的频道
+     *
+     * @return 频道
+     */
+    public final @NotNull Set<String> getChannels() {
+        return channelSessionMap.keySet();
+    }
+
+    /**
+     * 获取会话数量
+     *
+     * @return 会话数量
+     */
+    public final int size() {
+        return senderMap.size();
+    }
+
+    /**
+     * 从频道索引中移除会话
+     *
+     * @param channel 频道
+     * @param sender  会话的发送队列
+     * @param onLast  频道的最后一个会话离开时的回调
+     */
+    private void leaveChannel(String channel, WebSocketSender sender, ChannelCallback onLast) {
+        synchronized (getLock(channelLocks, channel)) {
+            Set<WebSocketSender> senders = channelSessionMap.get(channel);
+            if (Objects.nonNull(senders) && senders.remove(sender) && senders.isEmpty()) {
+                channelSessionMap.remove(channel);
+                onLast.run(channel);
+            }
+        }
+    }
+
+    /**
+     * 创建分段锁
+     *
+     * @return 分段锁
+     */
+    private static Object @NotNull [] createLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    /**
+     * 获取键对应的分段锁
+     *
+     * @param locks 分段锁
+     * @param key   键
+     * @return 锁
+     */
+    private static @NotNull Object getLock(Object @NotNull [] locks, @NotNull Object key) {
+        return locks[(key.hashCode() & Integer.MAX_VALUE) % locks.length];
+    }
+
+    /**
+     * 频道回调
+     */
+    @FunctionalInterface
+    public interface ChannelCallback {
+        /**
+         * 执行回调
+         *
+         * @param channel 频道
+         */
+        void run(String channel);
+    }
+}
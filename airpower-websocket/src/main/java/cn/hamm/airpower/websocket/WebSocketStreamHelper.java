@@ -0,0 +1,282 @@
+package cn.hamm.airpower.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.*;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.stream.StreamListener;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer.StreamMessageListenerContainerOptions;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <h1>WebSocket 消息流助手类</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 所有频道的事件追加到同一个有长度上限的 Redis Stream，每个节点使用自己的消费组读取全部事件；
+ * 事件 ID 即消息在流中的 ID，客户端重连时带上最后收到的事件 ID 即可补发期间错过的事件；
+ * 节点异常退出时留下的消费组由之后启动的节点清理
+ */
+@Slf4j
+@Component
+public class WebSocketStreamHelper {
+    /**
+     * 消息流的 key
+     */
+    private static final String STREAM = "WEBSOCKET_STREAM";
+
+    /**
+     * 频道字段
+     */
+    private static final String FIELD_CHANNEL = "channel";
+
+    /**
+     * 事件字段
+     */
+    private static final String FIELD_EVENT = "event";
+
+    /**
+     * 空流的起始 ID
+     */
+    private static final String EMPTY_ID = "0-0";
+
+    /**
+     * 读取消息的等待时间
+     */
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+
+    /**
+     * 消费组的空闲上限
+     *
+     * @apiNote 在线节点每个读取周期都会刷新消费者的空闲时间，消费者全部超过该时间未读取的消费组视为节点已下线
+     */
+    private static final Duration GROUP_IDLE_TIMEOUT = Duration.ofMinutes(5);
+
+    @Autowired
+    private WebSocketConfig webSocketConfig;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisConnectionFactory redisConnectionFactory;
+
+    /**
+     * 消费容器
+     */
+    private StreamMessageListenerContainer<String, MapRecord<String, String, String>> container;
+
+    /**
+     * 追加事件
+     *
+     * @param channel 带前缀的真实频道
+     * @param event   已序列化的事件
+     * @apiNote 超过 {@link WebSocketConfig#getStreamMaxLength()} 后近似裁剪最早的事件
+     */
+    public final void append(String channel, String event) {
+        StringRecord record = StreamRecords.string(Map.of(FIELD_CHANNEL, channel, FIELD_EVENT, event))
+                .withStreamKey(getKey());
+        XAddOptions options = XAddOptions.maxlen(webSocketConfig.getStreamMaxLength()).approximateTrimming(true);
+        stringRedisTemplate.execute((RedisCallback<RecordId>) connection ->
+                ((StringRedisConnection) connection).xAdd(record, options)
+        );
+    }
+
+    /**
+     * 开始消费
+     *
+     * @param group    消费组
+     * @param listener 监听器
+     * @return 消费组的起始 ID，此后的事件都会交给监听器
+     * @apiNote 消费组从流当前的最后一条事件之后开始读取，监听器在单个线程中按流的顺序执行；
+     * 同时删除已下线节点留下的消费组
+     */
+    public final @NotNull String start(
+            String group, StreamListener<String, MapRecord<String, String, String>> listener
+    ) {
+        final String startId = getLastId();
+        stringRedisTemplate.opsForStream().createGroup(getKey(), ReadOffset.from(startId), group);
+        pruneGroups(group);
+        StreamMessageListenerContainerOptions<String, MapRecord<String, String, String>> options =
+                StreamMessageListenerContainerOptions.builder()
+                        .pollTimeout(POLL_TIMEOUT)
+                        .build();
+        container = StreamMessageListenerContainer.create(redisConnectionFactory, options);
+        container.register(StreamMessageListenerContainer.StreamReadRequest
+                        .builder(StreamOffset.create(getKey(), ReadOffset.lastConsumed()))
+                        .consumer(Consumer.from(group, group))
+                        .autoAcknowledge(true)
+                        .cancelOnError(exception -> {
+                            log.error("读取 WebSocket 消息流失败: {}", exception.getMessage());
+                            return false;
+                        })
+                        .build(),
+                listener
+        );
+        container.start();
+        return startId;
+    }
+
+    /**
+     * 停止消费并删除消费组
+     *
+     * @param group 消费组
+     */
+    public final void stop(String group) {
+        if (Objects.isNull(container)) {
+            return;
+        }
+        container.stop();
+        try {
+            stringRedisTemplate.opsForStream().destroyGroup(getKey(), group);
+        } catch (Exception exception) {
+            log.error("删除 WebSocket 消费组失败: {}", exception.getMessage());
+        }
+    }
+
+    /**
+     * 比较两个事件 ID
+     *
+     * @param id    ID
+     * @param other 另一个 ID
+     * @return 比较结果，任意一个不是消息流 ID 时视为大于
+     */
+    public final int compare(String id, String other) {
+        try {
+            return compare(RecordId.of(id), RecordId.of(other));
+        } catch (IllegalArgumentException exception) {
+            return 1;
+        }
+    }
+
+    /**
+     * 读取两个 ID 之间的事件
+     *
+     * @param after 起始 ID，不包含
+     * @param until 结束 ID，包含
+     * @return 事件，起始 ID 已被裁剪或超过 {@link WebSocketConfig#getStreamResumeMaxCount()} 时返回 {@code null}
+     */
+    public final @Nullable List<MapRecord<String, Object, Object>> getRecords(String after, String until) {
+        final RecordId afterId;
+        try {
+            afterId = RecordId.of(after);
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+        if (afterId.shouldBeAutoGenerated()) {
+            return null;
+        }
+        if (compare(afterId, RecordId.of(until)) >= 0) {
+            return Collections.emptyList();
+        }
+        List<MapRecord<String, Object, Object>> first = stringRedisTemplate.opsForStream()
+                .range(getKey(), Range.unbounded(), Limit.limit().count(1));
+        if (Objects.isNull(first) || first.isEmpty() || compare(first.get(0).getId(), afterId) > 0) {
+            // 起始 ID 之后的事件已经被裁剪
+            return null;
+        }
+        final int maxCount = webSocketConfig.getStreamResumeMaxCount();
+        List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream().range(getKey(),
+                Range.of(Range.Bound.exclusive(after), Range.Bound.inclusive(until)),
+                Limit.limit().count(maxCount + 1)
+        );
+        if (Objects.isNull(records) || records.size() > maxCount) {
+            return null;
+        }
+        return records;
+    }
+
+    /**
+     * 获取事件的频道
+     *
+     * @param record 事件
+     * @return 带前缀的真实频道
+     */
+    public final String getChannel(@NotNull MapRecord<String, ?, ?> record) {
+        return String.valueOf(record.getValue().get(FIELD_CHANNEL));
+    }
+
+    /**
+     * 获取已序列化的事件
+     *
+     * @param record 事件
+     * @return 事件
+     */
+    public final String getEvent(@NotNull MapRecord<String, ?, ?> record) {
+        return String.valueOf(record.getValue().get(FIELD_EVENT));
+    }
+
+    /**
+     * 删除已下线节点留下的消费组
+     *
+     * @param group 当前节点的消费组
+     * @apiNote 还没有消费者的消费组可能属于正在启动的节点，不会删除
+     */
+    private void pruneGroups(String group) {
+        try {
+            final long idleTimeout = GROUP_IDLE_TIMEOUT.toMillis();
+            stringRedisTemplate.opsForStream().groups(getKey()).stream()
+                    .filter(info -> !group.equals(info.groupName()) && info.consumerCount() > 0)
+                    .filter(info -> stringRedisTemplate.opsForStream().consumers(getKey(), info.groupName()).stream()
+                            .allMatch(consumer -> consumer.idleTimeMs() > idleTimeout)
+                    )
+                    .forEach(info -> {
+                        stringRedisTemplate.opsForStream().destroyGroup(getKey(), info.groupName());
+                        log.info("删除已下线节点的 WebSocket 消费组: {}", info.groupName());
+                    });
+        } catch (Exception exception) {
+            log.error("清理 WebSocket 消费组失败: {}", exception.getMessage());
+        }
+    }
+
+    /**
+     * 获取流中最后一条事件的 ID
+     *
+     * @return ID，流为空时为 {@code 0-0}
+     */
+    private @NotNull String getLastId() {
+        List<MapRecord<String, Object, Object>> last = stringRedisTemplate.opsForStream()
+                .reverseRange(getKey(), Range.unbounded(), Limit.limit().count(1));
+        if (Objects.isNull(last) || last.isEmpty()) {
+            return EMPTY_ID;
+        }
+        return last.get(0).getId().getValue();
+    }
+
+    /**
+     * 比较两个 ID
+     *
+     * @param id    ID
+     * @param other 另一个 ID
+     * @return 比较结果
+     */
+    private int compare(@NotNull RecordId id, @NotNull RecordId other) {
+        int result = Long.compare(id.getTimestamp(), other.getTimestamp());
+        return result != 0 ? result : Long.compare(id.getSequence(), other.getSequence());
+    }
+
+    /**
+     * 获取消息流的 key
+     *
+     * @return key
+     */
+    @Contract(pure = true)
+    private @NotNull String getKey() {
+        return webSocketConfig.getChannelPrefix() + "_" + STREAM;
+    }
+}
@@ -11,6 +11,13 @@ public enum WebSocketSupport {
      */
     REDIS,
 
+    /**
+     * Redis Stream
+     *
+     * @apiNote 事件持久化在有长度上限的流中，客户端重连时可以补发错过的事件
+     */
+    REDIS_STREAM,
+
     /**
      * MQTT
      */
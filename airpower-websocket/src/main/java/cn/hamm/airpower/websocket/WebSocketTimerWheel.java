@@ -0,0 +1,222 @@
+package cn.hamm.airpower.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * <h1>WebSocket 时间轮</h1>
+ *
+ * @author Hamm.cn
+ * @apiNote 哈希时间轮，添加和取消定时任务都是 {@code O(1)}，适合为大量连接维护心跳；
+ * 精度为一个刻度，到期的任务交给传入的线程池执行，避免阻塞时间轮
+ */
+@Slf4j
+public class WebSocketTimerWheel {
+    /**
+     * 格子数，必须是 2 的幂
+     */
+    private static final int WHEEL_SIZE = 512;
+
+    /**
+     * 每个格子中的任务
+     */
+    private final Queue<Timeout>[] wheel;
+
+    /**
+     * 等待放入格子的任务
+     */
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 刻度(毫秒)
+     */
+    private final long tickMillisecond;
+
+    /**
+     * 执行到期任务的线程池
+     */
+    private final Executor executor;
+
+    /**
+     * 时间轮线程
+     */
+    private final Thread worker;
+
+    /**
+     * 启动时间
+     */
+    private final long startTime = System.currentTimeMillis();
+
+    /**
+     * 已经走过的刻度数
+     */
+    private long tick;
+
+    /**
+     * 是否已停止
+     */
+    private volatile boolean stopped;
+
+    /**
+     * 创建时间轮
+     *
+     * @param name            线程名
+     * @param tickMillisecond 刻度(毫秒)
+     * @param executor        执行到期任务的线程池
+     */
+    @SuppressWarnings("unchecked")
+    public WebSocketTimerWheel(String name, long tickMillisecond, Executor executor) {
+        this.tickMillisecond = Math.max(1, tickMillisecond);
+        this.executor = executor;
+        wheel = new Queue[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 添加定时任务
+     *
+     * @param task  任务
+     * @param delay 延迟(毫秒)
+     * @return 定时任务
+     */
+    public final @NotNull Timeout schedule(@NotNull Runnable task, long delay) {
+        Timeout timeout = new Timeout(task, System.currentTimeMillis() + Math.max(0, delay));
+        pending.offer(timeout);
+        return timeout;
+    }
+
+    /**
+     * 停止时间轮
+     *
+     * @apiNote 未到期的任务不再执行
+     */
+    public final void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    /**
+     * 时间轮主循环
+     */
+    private void run() {
+        while (!stopped) {
+            long sleep = startTime + (tick + 1) * tickMillisecond - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            transferPending();
+            expire(wheel[(int) (tick & (WHEEL_SIZE - 1))]);
+            tick++;
+        }
+    }
+
+    /**
+     * 把新添加的任务放入对应的格子
+     */
+    private void transferPending() {
+        Timeout timeout;
+        while (Objects.nonNull(timeout = pending.poll())) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            // 向上取整，任务不会早于到期时间执行
+            long ticks = Math.max((timeout.deadline - startTime + tickMillisecond - 1) / tickMillisecond, tick);
+            timeout.rounds = (ticks - tick) / WHEEL_SIZE;
+            wheel[(int) (ticks & (WHEEL_SIZE - 1))].offer(timeout);
+        }
+    }
+
+    /**
+     * 执行格子中到期的任务
+     *
+     * @param bucket 格子
+     */
+    private void expire(@NotNull Queue<Timeout> bucket) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+                continue;
+            }
+            if (timeout.rounds > 0) {
+                timeout.rounds--;
+                continue;
+            }
+            iterator.remove();
+            final Runnable task = timeout.task;
+            if (Objects.isNull(task)) {
+                continue;
+            }
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException exception) {
+                log.warn("时间轮任务被拒绝: {}", exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 定时任务
+     */
+    public static class Timeout {
+        /**
+         * 任务
+         *
+         * @apiNote 取消后置空，已取消的任务在格子中等待清理时不再持有任务引用的对象
+         */
+        private volatile Runnable task;
+
+        /**
+         * 到期时间
+         */
+        private final long deadline;
+
+        /**
+         * 剩余圈数
+         */
+        private long rounds;
+
+        /**
+         * 是否已取消
+         */
+        private volatile boolean cancelled;
+
+        /**
+         * 创建定时任务
+         *
+         * @param task     任务
+         * @param deadline 到期时间
+         */
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消定时任务
+         */
+        public final void cancel() {
+            cancelled = true;
+            task = null;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package cn.hamm.airpower.websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <h1>WebSocket 时间轮测试</h1>
+ *
+ * @author Hamm.cn
+ */
+class WebSocketTimerWheelTest {
+    /**
+     * 最长等待时间(毫秒)
+     */
+    private static final long TIMEOUT = 5000;
+
+    /**
+     * 时间轮
+     */
+    private WebSocketTimerWheel timerWheel;
+
+    @AfterEach
+    void tearDown() {
+        if (Objects.nonNull(timerWheel)) {
+            timerWheel.stop();
+        }
+    }
+
+    @Test
+    void taskRunsNoEarlierThanDelay() throws Exception {
+        timerWheel = new WebSocketTimerWheel("airpower-test-wheel", 10, Runnable::run);
+        final long delay = 100;
+        AtomicLong firedTime = new AtomicLong();
+        CountDownLatch latch = new CountDownLatch(1);
+        long startTime = System.currentTimeMillis();
+        timerWheel.schedule(() -> {
+            firedTime.set(System.currentTimeMillis());
+            latch.countDown();
+        }, delay);
+
+        assertTrue(latch.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertTrue(firedTime.get() - startTime >= delay, "任务提前执行: " + (firedTime.get() - startTime));
+    }
+
+    @Test
+    void cancelledTaskDoesNotRun() throws Exception {
+        timerWheel = new WebSocketTimerWheel("airpower-test-wheel", 10, Runnable::run);
+        AtomicBoolean fired = new AtomicBoolean();
+        timerWheel.schedule(() -> fired.set(true), 50).cancel();
+        CountDownLatch latch = new CountDownLatch(1);
+        timerWheel.schedule(latch::countDown, 100);
+
+        assertTrue(latch.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertFalse(fired.get(), "已取消的任务不应执行");
+    }
+
+    @Test
+    void delayLongerThanOneRoundIsKept() throws Exception {
+        // 一圈 512 个刻度，延迟跨过一圈以上
+        timerWheel = new WebSocketTimerWheel("airpower-test-wheel", 1, Runnable::run);
+        final long delay = 800;
+        AtomicLong firedTime = new AtomicLong();
+        CountDownLatch latch = new CountDownLatch(1);
+        long startTime = System.currentTimeMillis();
+        timerWheel.schedule(() -> {
+            firedTime.set(System.currentTimeMillis());
+            latch.countDown();
+        }, delay);
+
+        assertTrue(latch.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertTrue(firedTime.get() - startTime >= delay, "跨圈的任务提前执行: " + (firedTime.get() - startTime));
+    }
+
+    @Test
+    void manyTasksAllRun() throws Exception {
+        timerWheel = new WebSocketTimerWheel("airpower-test-wheel", 5, Runnable::run);
+        final int count = 10000;
+        CountDownLatch latch = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            timerWheel.schedule(latch::countDown, i % 200);
+        }
+        assertTrue(latch.await(TIMEOUT, TimeUnit.MILLISECONDS), "未执行的任务: " + latch.getCount());
+    }
+
+    @Test
+    void stoppedWheelRunsNothing() throws Exception {
+        timerWheel = new WebSocketTimerWheel("airpower-test-wheel", 10, Runnable::run);
+        AtomicBoolean fired = new AtomicBoolean();
+        timerWheel.schedule(() -> fired.set(true), 100);
+        timerWheel.stop();
+
+        Thread.sleep(300);
+        assertFalse(fired.get(), "停止后任务不应执行");
+    }
+}